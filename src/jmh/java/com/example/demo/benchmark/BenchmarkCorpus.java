@@ -0,0 +1,151 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.impl.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+// Входные данные бенчмарков. Все корпуса детерминированы: одинаковые параметры
+// дают одинаковые файлы, поэтому результаты разных прогонов сравнимы
+public enum BenchmarkCorpus {
+
+    // Синтетический текст с распределением Ципфа по словарю из VOCABULARY слов
+    ZIPF,
+    // Распакованный testfolder/войнаимир.zip
+    WAR_AND_PEACE;
+
+    private static final String ARCHIVE_PROPERTY = "benchmark.corpus.archive";
+    private static final String DEFAULT_ARCHIVE = "testfolder/войнаимир.zip";
+    private static final String MAC_METADATA = "__MACOSX/";
+    private static final String FILE_POSTFIX = ".txt";
+
+    private static final int VOCABULARY = 200_000;
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final int FILE_SIZE = 4 << 20;
+    private static final long SEED = 42;
+
+    private static final String ALPHABET = "абвгдеёжзийклмнопрстуфхцчшщъыьэюяabcdefghijklmnopqrstuvwxyz";
+    private static final String SEPARATORS = "  ,.;:!?-";
+
+    /**
+     * Создаёт файлы корпуса в каталоге dir и возвращает их список.
+     * sizeMegabytes ограничивает объём синтетического корпуса и не влияет на WAR_AND_PEACE.
+     */
+    public List<Path> prepare(Path dir, int sizeMegabytes) throws IOException {
+        return switch (this) {
+            case ZIPF -> writeZipf(dir, (long) sizeMegabytes << 20);
+            case WAR_AND_PEACE -> unzip(Path.of(System.getProperty(ARCHIVE_PROPERTY, DEFAULT_ARCHIVE)), dir);
+        };
+    }
+
+    /**
+     * Разбирает файлы на слова заранее, чтобы измерять подсчёт отдельно от чтения и токенизации.
+     */
+    public static List<char[]> words(List<Path> files, int minLength) throws IOException {
+        final List<char[]> words = new ArrayList<>();
+        final WordTokenizer tokenizer = new Utf8WordTokenizer();
+        for (final Path file : files) {
+            tokenizer.tokenize(file, minLength, (chars, length) -> words.add(Arrays.copyOf(chars, length)));
+        }
+        return words;
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (final var paths = Files.walk(dir)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static List<Path> unzip(Path archive, Path dir) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (final ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                // Служебные файлы macOS (AppleDouble) не являются текстом корпуса
+                if (entry.isDirectory() || entry.getName().startsWith(MAC_METADATA)
+                        || !entry.getName().endsWith(FILE_POSTFIX)) {
+                    continue;
+                }
+                final Path file = dir.resolve(files.size() + FILE_POSTFIX);
+                Files.copy(zip, file);
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalStateException("No text files in " + archive.toAbsolutePath());
+        }
+        return files;
+    }
+
+    private static List<Path> writeZipf(Path dir, long size) throws IOException {
+        final Random random = new Random(SEED);
+        final String[] vocabulary = vocabulary(random);
+        final double[] cumulative = zipfDistribution(vocabulary.length);
+
+        final List<Path> files = new ArrayList<>();
+        long written = 0;
+        while (written < size) {
+            final Path file = dir.resolve(files.size() + FILE_POSTFIX);
+            final StringBuilder text = new StringBuilder(FILE_SIZE);
+            int line = 0;
+            while (text.length() < FILE_SIZE / 2) {
+                final String word = vocabulary[rank(cumulative, random.nextDouble())];
+                // Часть слов с заглавной буквы — токенизатор приводит их к нижнему регистру
+                text.append(random.nextInt(10) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                text.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+                if (++line == 12) {
+                    text.append('\n');
+                    line = 0;
+                }
+            }
+            final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes);
+            files.add(file);
+            written += bytes.length;
+        }
+        return files;
+    }
+
+    // Длины слов от 1 до 14 букв с пиком около 6, как в естественном тексте
+    private static String[] vocabulary(Random random) {
+        final Set<String> words = new LinkedHashSet<>();
+        final char[] chars = new char[16];
+        while (words.size() < VOCABULARY) {
+            final int length = 1 + Math.min(13, (int) Math.abs(random.nextGaussian() * 3 + 5));
+            // Кириллица и латиница в словаре не смешиваются внутри слова
+            final int offset = random.nextInt(4) == 0 ? 33 : 0;
+            final int letters = offset == 0 ? 33 : ALPHABET.length() - 33;
+            for (int i = 0; i < length; i++) {
+                chars[i] = ALPHABET.charAt(offset + random.nextInt(letters));
+            }
+            words.add(new String(chars, 0, length));
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static double[] zipfDistribution(int size) {
+        final double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int rank(double[] cumulative, double value) {
+        final int index = Arrays.binarySearch(cumulative, value);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.*;
+import com.example.demo.service.impl.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.Map.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static java.util.Comparator.*;
+
+// Подсчёт заранее разобранных слов и выбор top-N. Варианты legacy повторяют исходные
+// processWord (ConcurrentHashMap<String, LongAdder>) и getTopWords (PriorityQueue по Map.Entry)
+// и служат точкой отсчёта для текущих структур
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CountingBenchmark {
+
+    @Param({"ZIPF", "WAR_AND_PEACE"})
+    BenchmarkCorpus corpus;
+
+    @Param({"0", "3"})
+    int minLength;
+
+    @Param({"10", "1000"})
+    int topCount;
+
+    @Param("32")
+    int sizeMegabytes;
+
+    @Param("100000")
+    int approximateCapacity;
+
+    char[][] words;
+    Map<String, Long> legacyCounts;
+    WordCounts counts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path dir = Files.createTempDirectory("counting-benchmark");
+        try {
+            words = BenchmarkCorpus.words(corpus.prepare(dir, sizeMegabytes), minLength).toArray(new char[0][]);
+        } finally {
+            BenchmarkCorpus.deleteRecursively(dir);
+        }
+        legacyCounts = legacyCount();
+        counts = new WordCounts(count());
+    }
+
+    @Benchmark
+    public Map<String, Long> legacyCount() {
+        final ConcurrentHashMap<String, LongAdder> wordFrequency = new ConcurrentHashMap<>();
+        for (final char[] word : words) {
+            wordFrequency.computeIfAbsent(new String(word), k -> new LongAdder()).increment();
+        }
+        final Map<String, Long> result = new HashMap<>(wordFrequency.size() * 2);
+        wordFrequency.forEach((word, count) -> result.put(word, count.sum()));
+        return result;
+    }
+
+    @Benchmark
+    public WordCountMap count() {
+        final WordCountMap map = new WordCountMap();
+        for (final char[] word : words) {
+            map.add(word, word.length);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public List<WordFrequency> approximateCount() {
+        final SpaceSavingCounter counter = new SpaceSavingCounter(approximateCapacity);
+        for (final char[] word : words) {
+            counter.add(word, word.length);
+        }
+        return counter.top(topCount);
+    }
+
+    @Benchmark
+    public List<WordFrequency> legacyTop() {
+        final PriorityQueue<Entry<String, Long>> minHeap = new PriorityQueue<>(topCount, comparingLong(Entry::getValue));
+        for (final Entry<String, Long> entry : legacyCounts.entrySet()) {
+            final Entry<String, Long> lastTop = minHeap.peek();
+            if (minHeap.size() < topCount) {
+                minHeap.offer(entry);
+            } else if (lastTop != null && entry.getValue() > lastTop.getValue()) {
+                minHeap.poll();
+                minHeap.offer(entry);
+            }
+        }
+        final List<WordFrequency> top = new ArrayList<>(topCount);
+        while (!minHeap.isEmpty()) {
+            final Entry<String, Long> entry = minHeap.poll();
+            top.add(new WordFrequency(entry.getKey(), entry.getValue(), minHeap.size() + 1));
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    @Benchmark
+    public List<WordFrequency> top() {
+        return counts.top(topCount);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.*;
+import com.example.demo.service.impl.*;
+import io.zonky.test.db.postgres.embedded.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.datasource.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.concurrent.*;
+
+// Полное удаление устаревших строк через JdbcConnector на встроенном PostgreSQL.
+// Таблица перед каждой итерацией заполняется так же, как в V1__init_tables.sql,
+// поэтому каждая итерация — один замер удаления с нуля (SingleShotTime)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class DeletionBenchmark {
+
+    private static final String TABLE_NAME = "table_1";
+    private static final String COLUMN = "col4";
+
+    private static final String CREATE_TABLE_COMMAND =
+            """
+                    DROP TABLE IF EXISTS %1$s;
+                    CREATE TABLE %1$s (
+                        id SERIAL PRIMARY KEY,
+                        col1 VARCHAR(255),
+                        col2 INTEGER,
+                        col3 NUMERIC(10,2),
+                        col4 TIMESTAMP
+                    )
+                    """;
+
+    private static final String SEED_COMMAND =
+            """
+                    INSERT INTO %s (col1, col2, col3, col4)
+                    SELECT
+                        md5(random()::text),
+                        (random() * 100)::INTEGER,
+                        random() * 1000,
+                        NOW() - (random() * 100 * INTERVAL '1 day')
+                    FROM generate_series(1, ?)
+                    """;
+
+    private static final String ANALYZE_COMMAND = "VACUUM ANALYZE %s";
+
+    // Масштаб: число строк в таблице (в V1 — 15 000 000)
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"KEYSET", "RANGE"})
+    String strategy;
+
+    @Param({"10000", "50000"})
+    int chunkSize;
+
+    // Удаляются строки старше olderThanDays, col4 распределён равномерно в пределах 100 дней
+    @Param({"50"})
+    int olderThanDays;
+
+    EmbeddedPostgres postgres;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    JdbcConnector connector;
+
+    @Setup(Level.Trial)
+    public void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        final var dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        // Как и в приложении: каждая порция в своей транзакции
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        connector = new JdbcConnector(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void seed() {
+        jdbcTemplate.execute(CREATE_TABLE_COMMAND.formatted(TABLE_NAME));
+        jdbcTemplate.update(SEED_COMMAND.formatted(TABLE_NAME), rows);
+        jdbcTemplate.execute(ANALYZE_COMMAND.formatted(TABLE_NAME));
+    }
+
+    @Benchmark
+    public long delete() {
+        final LocalDateTime olderThan = LocalDateTime.now().minusDays(olderThanDays);
+        return strategy.equals("KEYSET") ? deleteByKeyset(olderThan) : deleteByRange(olderThan);
+    }
+
+    private long deleteByKeyset(LocalDateTime olderThan) {
+        final IdRange range = connector.getIdRange(TABLE_NAME);
+        if (range.isEmpty()) {
+            return 0;
+        }
+        long deleted = 0;
+        long afterId = range.minId() - 1;
+        while (true) {
+            final long from = afterId;
+            final DeletionChunk chunk = transactionTemplate.execute(
+                    status -> connector.deleteChunk(TABLE_NAME, COLUMN, olderThan, from, range.maxId(), chunkSize));
+            deleted += chunk.deleted();
+            if (chunk.isEmpty() || chunk.matched() < chunkSize) {
+                return deleted;
+            }
+            afterId = chunk.lastId();
+        }
+    }
+
+    private long deleteByRange(LocalDateTime olderThan) {
+        final IdRange range = connector.getIdRange(TABLE_NAME);
+        if (range.isEmpty()) {
+            return 0;
+        }
+        long deleted = 0;
+        for (long from = range.minId(); from <= range.maxId(); from += chunkSize) {
+            final long start = from;
+            deleted += transactionTemplate.execute(
+                    status -> connector.deleteRange(TABLE_NAME, COLUMN, olderThan, start, start + chunkSize)).deleted();
+        }
+        return deleted;
+    }
+}
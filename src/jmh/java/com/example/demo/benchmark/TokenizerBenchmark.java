@@ -0,0 +1,54 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.impl.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Чтение и разбор корпуса на слова без подсчёта: сравнение построчного regex-токенизатора
+// (исходный extractWords) с побайтовым разбором UTF-8
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenizerBenchmark {
+
+    @Param({"ZIPF", "WAR_AND_PEACE"})
+    BenchmarkCorpus corpus;
+
+    @Param({"REGEX", "UTF8"})
+    String tokenizer;
+
+    // 0 — все слова, 3 и 7 — типичные фильтры запроса (слова длиннее minLength)
+    @Param({"0", "3", "7"})
+    int minLength;
+
+    @Param("64")
+    int sizeMegabytes;
+
+    Path dir;
+    List<Path> files;
+    WordTokenizer wordTokenizer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("tokenizer-benchmark");
+        files = corpus.prepare(dir, sizeMegabytes);
+        wordTokenizer = tokenizer.equals("REGEX") ? new RegexWordTokenizer() : new Utf8WordTokenizer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkCorpus.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) throws IOException {
+        for (final Path file : files) {
+            wordTokenizer.tokenize(file, minLength, (chars, length) -> blackhole.consume(length));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.*;
+import lombok.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.*;
+import org.springframework.cache.caffeine.*;
+import org.springframework.cache.interceptor.*;
+import org.springframework.context.annotation.*;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String WORD_FREQUENCY_CACHE = "wordFrequencyCache";
+
+    // Ключ результата частоты слов: метод, нормализованный путь и остальные аргументы вместо
+    // склейки строк, поэтому ("a", 12, 3) и ("a1", 2, 3), как и "dir" и "./dir", не путаются
+    public record WordFrequencyKey(String method, String folder, List<Object> arguments) {
+    }
+
+    // Кэш ограничен суммарным числом слов в закэшированных топах и живёт ttl:
+    // свежесть после изменения файлов обеспечивает индекс по файлам, кэш лишь гасит всплески
+    // одинаковых запросов. Имена кэшей фиксированы, чтобы actuator зарегистрировал метрики
+    // cache.gets/puts/evictions при старте, а recordStats наполняет их
+    @Bean
+    public CaffeineCacheManager cacheManager(@Value("${word-frequency.cache.max-words}") long maxWords,
+                                             @Value("${word-frequency.cache.ttl}") Duration ttl) {
+        val cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(WORD_FREQUENCY_CACHE, Caffeine.newBuilder()
+                .maximumWeight(maxWords)
+                .weigher((Object key, Object value) -> weight(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    private static int weight(Object value) {
+        return value instanceof Collection<?> words ? words.size() + 1 : 1;
+    }
+
+    @Bean
+    public KeyGenerator wordFrequencyKeyGenerator() {
+        return (target, method, params) -> new WordFrequencyKey(
+                method.getName(),
+                Paths.get((String) params[0]).toAbsolutePath().normalize().toString(),
+                Arrays.asList(Arrays.copyOfRange(params, 1, params.length)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.config;
+
+import com.example.demo.model.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.*;
+import io.micrometer.core.instrument.binder.jvm.*;
+import lombok.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.*;
+import org.springframework.scheduling.concurrent.*;
+
+@Configuration
+public class DeletionConfig {
+
+    // Отдельный пул для задач удаления, чтобы не занимать потоки Tomcat.
+    // Задачи сверх max-parallel ждут в очереди в статусе QUEUED
+    @Bean
+    public ThreadPoolTaskExecutor deletionJobExecutor(@Value("${deletion.jobs.max-parallel}") int maxParallel,
+                                                      @Value("${execution.mode}") ExecutionMode mode) {
+        val executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxParallel);
+        executor.setMaxPoolSize(maxParallel);
+        useThreads(executor, mode, "deletion-job-");
+        // При остановке прерываем задачи: прогресс теряется только в текущей порции
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    // VACUUM после удаления выполняются по одному: несколько одновременных VACUUM больших таблиц
+    // нагружали бы диск сильнее, чем само удаление
+    @Bean
+    public ThreadPoolTaskExecutor tableMaintenanceExecutor(@Value("${execution.mode}") ExecutionMode mode) {
+        val executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        useThreads(executor, mode, "table-maintenance-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    // Общий для всех задач пул воркеров параллельного удаления. Размер ограничен пулом соединений Hikari
+    // за вычетом резерва, чтобы удаление не забирало соединения у остального приложения
+    @Bean
+    public ThreadPoolTaskExecutor deletionWorkerExecutor(@Value("${deletion.parallel.workers}") int workers,
+                                                         @Value("${deletion.parallel.reserved-connections}") int reserved,
+                                                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                                         @Value("${execution.mode}") ExecutionMode mode) {
+        val size = Math.max(1, Math.min(workers, poolSize - reserved));
+        val executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        useThreads(executor, mode, "deletion-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    // Метрики пулов удаления, как у пулов подсчёта слов. ThreadPoolTaskExecutor создаёт свой пул
+    // только при инициализации бина, поэтому метрики привязываются к уже готовым исполнителям
+    @Bean
+    public MeterBinder deletionExecutorMetrics(@Qualifier("deletionJobExecutor") ThreadPoolTaskExecutor deletionJobExecutor,
+                                               @Qualifier("tableMaintenanceExecutor") ThreadPoolTaskExecutor tableMaintenanceExecutor,
+                                               @Qualifier("deletionWorkerExecutor") ThreadPoolTaskExecutor deletionWorkerExecutor) {
+        return meterRegistry -> {
+            bind(meterRegistry, deletionJobExecutor, "deletion-job");
+            bind(meterRegistry, tableMaintenanceExecutor, "table-maintenance");
+            bind(meterRegistry, deletionWorkerExecutor, "deletion-worker");
+        };
+    }
+
+    private static void bind(MeterRegistry meterRegistry, ThreadPoolTaskExecutor executor, String name) {
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    // Виртуальные потоки не держат платформенный поток, пока ждут ответа базы
+    private static void useThreads(ThreadPoolTaskExecutor executor, ExecutionMode mode, String prefix) {
+        executor.setThreadNamePrefix(prefix);
+        if (mode == ExecutionMode.VIRTUAL) {
+            executor.setThreadFactory(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.config;
+
+import com.example.demo.model.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.jvm.*;
+import lombok.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.*;
+import org.springframework.core.task.*;
+import org.springframework.web.servlet.config.annotation.*;
+
+import java.util.concurrent.*;
+
+import static java.lang.Math.*;
+
+// Исполнители подсчёта частоты слов и лимиты параллельного доступа к диску и базе.
+// Все пулы — бины Spring: останавливаются вместе с контекстом и публикуют метрики
+@Configuration
+public class ExecutorConfig {
+
+    // Ограниченный пул для разбора файлов и слияния словарей: работа только на CPU,
+    // потоков не больше ядер. Work-stealing, в нём же выполняются подзадачи больших файлов
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool wordFrequencyCpuPool(@Value("${execution.cpu.parallelism}") int parallelism,
+                                             MeterRegistry meterRegistry) {
+        val size = parallelism > 0 ? parallelism : max(Runtime.getRuntime().availableProcessors() - 1, 1);
+        val pool = new ForkJoinPool(size, threadFactory("word-cpu-"), null, true);
+        new ExecutorServiceMetrics(pool, "word-frequency-cpu", Tags.empty()).bindTo(meterRegistry);
+        return pool;
+    }
+
+    // Задачи по файлам: в режиме VIRTUAL — виртуальный поток на файл, блокирующее чтение не занимает
+    // потоки разбора; в режиме PLATFORM — сам пул разбора, как до появления режимов
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService wordFrequencyIoExecutor(@Value("${execution.mode}") ExecutionMode mode,
+                                                   @Qualifier("wordFrequencyCpuPool") ForkJoinPool cpuPool,
+                                                   MeterRegistry meterRegistry) {
+        if (mode == ExecutionMode.PLATFORM) {
+            return cpuPool;
+        }
+        val executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("word-io-", 0).factory());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "word-frequency-io");
+    }
+
+    // Распаковка архивов: поток на каждый поток распаковки, он блокируется на чтении файла и на очереди
+    // буферов разбора. Таких потоков не больше, чем записей в разборе, то есть потоков пула разбора
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService wordFrequencyDecompressExecutor(@Value("${execution.mode}") ExecutionMode mode,
+                                                           MeterRegistry meterRegistry) {
+        return threadPerTask(mode, "word-unpack-", "word-frequency-unpack", meterRegistry);
+    }
+
+    // Наблюдение за папками: поток на папку, большую часть времени он ждёт событий файловой системы
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService wordFrequencyWatchExecutor(@Value("${execution.mode}") ExecutionMode mode,
+                                                      MeterRegistry meterRegistry) {
+        return threadPerTask(mode, "word-watch-", "word-frequency-watch", meterRegistry);
+    }
+
+    // Запросы распределённого подсчёта к узлам: поток на запрос к шарду, он ждёт ответа узла
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService wordFrequencyClusterExecutor(@Value("${execution.mode}") ExecutionMode mode,
+                                                        MeterRegistry meterRegistry) {
+        return threadPerTask(mode, "word-cluster-", "word-frequency-cluster", meterRegistry);
+    }
+
+    // Одновременных чтений файлов с диска: больше виртуальных потоков диск всё равно не обслужит параллельно
+    @Bean
+    public Semaphore diskPermits(@Value("${execution.disk.parallelism}") int parallelism, MeterRegistry meterRegistry) {
+        return permits("word-frequency.disk.permits", parallelism, meterRegistry);
+    }
+
+    // Одновременных запросов удаления к базе: пул Hikari за вычетом резерва для остального приложения
+    @Bean
+    public Semaphore jdbcPermits(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                 @Value("${deletion.parallel.reserved-connections}") int reserved,
+                                 MeterRegistry meterRegistry) {
+        return permits("deletion.jdbc.permits", max(1, poolSize - reserved), meterRegistry);
+    }
+
+    // Потоковые ответы ждут окончания подсчёта: в режиме VIRTUAL ожидание не занимает платформенный поток
+    @Bean
+    public WebMvcConfigurer asyncSupportConfigurer(@Value("${execution.mode}") ExecutionMode mode) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                val executor = new SimpleAsyncTaskExecutor("mvc-async-");
+                executor.setVirtualThreads(mode == ExecutionMode.VIRTUAL);
+                configurer.setTaskExecutor(executor);
+            }
+        };
+    }
+
+    private static Semaphore permits(String name, int permits, MeterRegistry meterRegistry) {
+        val semaphore = new Semaphore(permits, true);
+        Gauge.builder(name + ".available", semaphore, Semaphore::availablePermits).register(meterRegistry);
+        Gauge.builder(name + ".waiting", semaphore, Semaphore::getQueueLength).register(meterRegistry);
+        return semaphore;
+    }
+
+    private static ExecutorService threadPerTask(ExecutionMode mode, String prefix, String name,
+                                                 MeterRegistry meterRegistry) {
+        val factory = mode == ExecutionMode.VIRTUAL
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon().factory();
+        return ExecutorServiceMetrics.monitor(meterRegistry, Executors.newThreadPerTaskExecutor(factory), name);
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory(String prefix) {
+        return pool -> {
+            val thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + thread.getPoolIndex());
+            return thread;
+        };
+    }
+}
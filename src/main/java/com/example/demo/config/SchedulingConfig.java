@@ -0,0 +1,11 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.*;
+import org.springframework.scheduling.annotation.*;
+
+// Фоновые задачи: подтверждение владения задачами удаления и запуск политик хранения
+// (RetentionScheduler, выключается retention.scheduler.enabled=false)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
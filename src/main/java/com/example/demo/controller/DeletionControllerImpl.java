@@ -1,11 +1,13 @@
 package com.example.demo.controller;
 
 import com.example.demo.controller.doc.*;
-import com.example.demo.service.impl.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
 import lombok.*;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.*;
 import java.time.*;
 
 import static org.springframework.http.ResponseEntity.*;
@@ -15,13 +17,16 @@ import static org.springframework.http.ResponseEntity.*;
 @RequestMapping("/api/v1/tables")
 public class DeletionControllerImpl implements DeletionController {
 
-    private final DeletionServiceImpl deletionServiceImpl;
+    private final DeletionService deletionService;
 
     @Override
     @DeleteMapping("/{tableName}")
-    public ResponseEntity<String> deleteOldData(@PathVariable String tableName,
-                                                @RequestParam LocalDateTime olderThan) {
-        val result = deletionServiceImpl.startDeletionProcess(tableName, olderThan);
-        return ok(result);
+    public ResponseEntity<DeletionJobInfo> deleteOldData(@PathVariable String tableName,
+                                                         @RequestParam LocalDateTime olderThan,
+                                                         @RequestParam(required = false) DeletionMode mode) {
+        val job = deletionService.startDeletionProcess(tableName, olderThan, mode);
+        return accepted()
+                .location(URI.create("/api/v1/deletion-jobs/" + job.jobId()))
+                .body(job);
     }
-}
\ No newline at end of file
+}
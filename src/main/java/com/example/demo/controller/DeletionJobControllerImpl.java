@@ -0,0 +1,50 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/deletion-jobs")
+public class DeletionJobControllerImpl implements DeletionJobController {
+
+    private final DeletionService deletionService;
+
+    @Override
+    @GetMapping
+    public ResponseEntity<Collection<DeletionJobInfo>> getJobs() {
+        return ok(deletionService.getJobs());
+    }
+
+    @Override
+    @GetMapping("/{jobId}")
+    public ResponseEntity<DeletionJobInfo> getJob(@PathVariable UUID jobId) {
+        return ok(deletionService.getJob(jobId));
+    }
+
+    @Override
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<DeletionJobInfo> cancelJob(@PathVariable UUID jobId) {
+        return ok(deletionService.cancelJob(jobId));
+    }
+
+    @Override
+    @PostMapping("/{jobId}/pause")
+    public ResponseEntity<DeletionJobInfo> pauseJob(@PathVariable UUID jobId) {
+        return ok(deletionService.pauseJob(jobId));
+    }
+
+    @Override
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<DeletionJobInfo> resumeJob(@PathVariable UUID jobId) {
+        return ok(deletionService.resumeJob(jobId));
+    }
+}
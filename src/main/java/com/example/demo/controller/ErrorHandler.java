@@ -3,8 +3,11 @@ package com.example.demo.controller;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.*;
+
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.ResponseEntity.badRequest;
 import static org.springframework.http.ResponseEntity.status;
 
@@ -24,6 +27,13 @@ public class ErrorHandler {
                 .body(e.getMessage());
     }
 
+    // Ошибка, если задача удаления не найдена
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<?> handleNoSuchElement(NoSuchElementException e) {
+        return status(NOT_FOUND)
+                .body(e.getMessage());
+    }
+
     // Обработка неизвестных ошибок
     @ExceptionHandler
     public ResponseEntity<?> unknownErrorHandler(Throwable t) {
@@ -0,0 +1,34 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/tables/{tableName}/partitions")
+public class PartitionControllerImpl implements PartitionController {
+
+    private final PartitionService partitionService;
+
+    @Override
+    @GetMapping
+    public ResponseEntity<List<PartitionInfo>> getPartitions(@PathVariable String tableName) {
+        return ok(partitionService.getPartitions(tableName));
+    }
+
+    @Override
+    @PostMapping
+    public ResponseEntity<List<PartitionInfo>> partitionTable(@PathVariable String tableName,
+                                                              @RequestParam(defaultValue = "P1D") Duration step) {
+        return ok(partitionService.partitionTable(tableName, step));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/retention-policies")
+public class RetentionPolicyControllerImpl implements RetentionPolicyController {
+
+    private final RetentionPolicyService retentionPolicyService;
+
+    @Override
+    @GetMapping
+    public ResponseEntity<List<RetentionPolicy>> getPolicies() {
+        return ok(retentionPolicyService.getPolicies());
+    }
+
+    @Override
+    @GetMapping("/{tableName}")
+    public ResponseEntity<RetentionPolicy> getPolicy(@PathVariable String tableName) {
+        return ok(retentionPolicyService.getPolicy(tableName));
+    }
+
+    @Override
+    @PutMapping("/{tableName}")
+    public ResponseEntity<RetentionPolicy> savePolicy(@PathVariable String tableName,
+                                                      @RequestBody RetentionPolicyRequest request) {
+        return ok(retentionPolicyService.savePolicy(tableName, request));
+    }
+
+    @Override
+    @DeleteMapping("/{tableName}")
+    public ResponseEntity<Void> deletePolicy(@PathVariable String tableName) {
+        retentionPolicyService.deletePolicy(tableName);
+        return noContent().build();
+    }
+}
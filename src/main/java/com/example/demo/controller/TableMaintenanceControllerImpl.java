@@ -0,0 +1,56 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/tables/{tableName}/maintenance")
+public class TableMaintenanceControllerImpl implements TableMaintenanceController {
+
+    private final TableMaintenanceService maintenanceService;
+
+    @Override
+    @GetMapping
+    public ResponseEntity<TableHealth> getHealth(@PathVariable String tableName) {
+        return ok(maintenanceService.getHealth(tableName));
+    }
+
+    @Override
+    @GetMapping("/index")
+    public ResponseEntity<IndexAdvice> adviseIndex(@PathVariable String tableName,
+                                                   @RequestParam(required = false) LocalDateTime olderThan) {
+        return ok(maintenanceService.adviseIndex(tableName, olderThan));
+    }
+
+    @Override
+    @PostMapping("/index")
+    public ResponseEntity<IndexAdvice> createIndex(@PathVariable String tableName,
+                                                   @RequestParam(required = false) LocalDateTime olderThan) {
+        return ok(maintenanceService.createAdvisedIndex(tableName, olderThan));
+    }
+
+    @Override
+    @PostMapping("/vacuum")
+    public ResponseEntity<Void> vacuum(@PathVariable String tableName) {
+        if (!maintenanceService.scheduleVacuum(tableName)) {
+            throw new IllegalStateException("VACUUM already scheduled for table: " + tableName);
+        }
+        return accepted().build();
+    }
+
+    @Override
+    @GetMapping("/vacuum")
+    public ResponseEntity<List<VacuumReport>> getVacuumReports(@PathVariable String tableName) {
+        return ok(maintenanceService.getVacuumReports(tableName));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/words/frequency")
+public class WordFrequencyClusterControllerImpl implements WordFrequencyClusterController {
+
+    private final WordFrequencyClusterService clusterService;
+
+    @Override
+    @GetMapping("/cluster")
+    public ResponseEntity<Collection<WordFrequency>> getTopWords(@RequestParam String folderPath,
+                                                                 @RequestParam int minLength,
+                                                                 @RequestParam(defaultValue = "10") int topCount) {
+        return ok(clusterService.getTopWords(folderPath, minLength, topCount));
+    }
+
+    @Override
+    @PostMapping(value = "/shards", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> countShard(@RequestBody ShardRequest request) {
+        return ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(clusterService.countShard(request));
+    }
+}
@@ -3,10 +3,13 @@ package com.example.demo.controller;
 import com.example.demo.controller.doc.*;
 import com.example.demo.model.*;
 import com.example.demo.service.*;
+import com.fasterxml.jackson.databind.*;
 import lombok.*;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
+import java.io.*;
 import java.util.*;
 
 import static org.springframework.http.ResponseEntity.*;
@@ -17,12 +20,46 @@ import static org.springframework.http.ResponseEntity.*;
 public class WordFrequencyControllerImpl implements WordFrequencyController {
 
     private final WordFrequencyService wordFrequencyService;
+    private final ObjectMapper objectMapper;
 
     @Override
     @GetMapping("/words/frequency")
     public ResponseEntity<Collection<WordFrequency>> getTopWords(@RequestParam String folderPath,
                                                                  @RequestParam int minLength,
-                                                                 @RequestParam(defaultValue = "10") int topCount) {
-        return ok(wordFrequencyService.getTopWords(folderPath, minLength, topCount));
+                                                                 @RequestParam(defaultValue = "10") int topCount,
+                                                                 @RequestParam(defaultValue = "false") boolean approximate) {
+        return ok(wordFrequencyService.getTopWords(folderPath, minLength, topCount, approximate));
+    }
+
+    @Override
+    @GetMapping("/words/frequency/page")
+    public ResponseEntity<WordFrequencyPage> getTopWordsPage(@RequestParam String folderPath,
+                                                             @RequestParam int minLength,
+                                                             @RequestParam(defaultValue = "100") int limit,
+                                                             @RequestParam(required = false) String cursor) {
+        return ok(wordFrequencyService.getTopWordsPage(folderPath, minLength, limit, cursor));
+    }
+
+    // NDJSON: по строке на снимок, каждая отправляется клиенту сразу
+    @Override
+    @GetMapping(value = "/words/frequency/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTopWords(@RequestParam String folderPath,
+                                                                @RequestParam int minLength,
+                                                                @RequestParam(defaultValue = "10") int topCount,
+                                                                @RequestParam(defaultValue = "false") boolean approximate) {
+        return ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> wordFrequencyService.streamTopWords(folderPath, minLength, topCount, approximate,
+                        snapshot -> write(out, snapshot)));
+    }
+
+    private void write(OutputStream out, WordFrequencySnapshot snapshot) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(snapshot));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
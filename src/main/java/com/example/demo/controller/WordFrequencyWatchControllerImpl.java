@@ -0,0 +1,52 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.doc.*;
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/words/watches")
+public class WordFrequencyWatchControllerImpl implements WordFrequencyWatchController {
+
+    private final WordFrequencyWatchService watchService;
+
+    @Override
+    @PostMapping
+    public ResponseEntity<WatchedFolderInfo> watch(@RequestBody WatchedFolderRequest request) {
+        return status(HttpStatus.CREATED).body(watchService.watch(request.folderPath(), request.minLength()));
+    }
+
+    @Override
+    @GetMapping
+    public ResponseEntity<List<WatchedFolderInfo>> getWatches() {
+        return ok(watchService.getWatches());
+    }
+
+    @Override
+    @GetMapping("/{watchId}")
+    public ResponseEntity<WatchedFolderInfo> getWatch(@PathVariable UUID watchId) {
+        return ok(watchService.getWatch(watchId));
+    }
+
+    @Override
+    @GetMapping("/{watchId}/frequency")
+    public ResponseEntity<Collection<WordFrequency>> getTopWords(@PathVariable UUID watchId,
+                                                                 @RequestParam(defaultValue = "10") int topCount) {
+        return ok(watchService.getTopWords(watchId, topCount));
+    }
+
+    @Override
+    @DeleteMapping("/{watchId}")
+    public ResponseEntity<Void> unwatch(@PathVariable UUID watchId) {
+        watchService.unwatch(watchId);
+        return noContent().build();
+    }
+}
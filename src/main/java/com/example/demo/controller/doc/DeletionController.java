@@ -1,15 +1,13 @@
 package com.example.demo.controller.doc;
 
+import com.example.demo.model.DeletionJobInfo;
+import com.example.demo.model.DeletionMode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDateTime;
 
@@ -17,13 +15,18 @@ import java.time.LocalDateTime;
 public interface DeletionController {
 
     @Operation(summary = "Запуск процесса удаления старых данных",
-               description = "Асинхронно запускает процесс удаления данных старше указанной даты из заданной таблицы")
-    @ApiResponse(responseCode = "200", description = "Процесс удаления успешно запущен")
-    @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса")
+               description = "Асинхронно запускает процесс удаления данных старше указанной даты из заданной таблицы. " +
+                       "Удаление разрешено только для таблиц с политикой хранения, дата сравнивается с её колонкой. " +
+                       "Возвращает задачу, состояние которой доступно по /api/v1/deletion-jobs/{jobId}")
+    @ApiResponse(responseCode = "202", description = "Задача удаления поставлена в очередь")
+    @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса или у таблицы нет политики хранения")
     @ApiResponse(responseCode = "409", description = "Процесс удаления для данной таблицы уже запущен")
-    ResponseEntity<String> deleteOldData(
+    ResponseEntity<DeletionJobInfo> deleteOldData(
         @Parameter(description = "Имя таблицы для удаления данных", required = true) String tableName,
         @Parameter(description = "Дата и время, старше которых нужно удалить данные", required = true)
-        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime olderThan
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime olderThan,
+        @Parameter(description = "Способ удаления: SEQUENTIAL, PARALLEL, PARTITION или REWRITE. " +
+                "По умолчанию выбирается по партиционированию таблицы и статистике колонки времени её политики хранения")
+        DeletionMode mode
     );
-}
\ No newline at end of file
+}
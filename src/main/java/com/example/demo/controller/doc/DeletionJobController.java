@@ -0,0 +1,50 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.DeletionJobInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Tag(name = "Deletion Jobs API", description = "API для контроля задач удаления: прогресс, пауза, отмена")
+public interface DeletionJobController {
+
+    @Operation(summary = "Список задач удаления",
+               description = "Возвращает активные и недавно завершённые задачи удаления")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    ResponseEntity<Collection<DeletionJobInfo>> getJobs();
+
+    @Operation(summary = "Состояние задачи удаления",
+               description = "Количество найденных и удалённых строк, скорость, ETA, текущая порция и ошибки")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+    ResponseEntity<DeletionJobInfo> getJob(
+        @Parameter(description = "Идентификатор задачи", required = true) UUID jobId);
+
+    @Operation(summary = "Отмена задачи удаления",
+               description = "Останавливает задачу после текущей порции, удалённые строки не восстанавливаются")
+    @ApiResponse(responseCode = "200", description = "Отмена принята")
+    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+    @ApiResponse(responseCode = "409", description = "Задача уже завершена")
+    ResponseEntity<DeletionJobInfo> cancelJob(
+        @Parameter(description = "Идентификатор задачи", required = true) UUID jobId);
+
+    @Operation(summary = "Пауза задачи удаления",
+               description = "Приостанавливает задачу после текущей порции")
+    @ApiResponse(responseCode = "200", description = "Задача приостановлена")
+    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+    @ApiResponse(responseCode = "409", description = "Задачу нельзя приостановить")
+    ResponseEntity<DeletionJobInfo> pauseJob(
+        @Parameter(description = "Идентификатор задачи", required = true) UUID jobId);
+
+    @Operation(summary = "Возобновление задачи удаления")
+    @ApiResponse(responseCode = "200", description = "Задача возобновлена")
+    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+    @ApiResponse(responseCode = "409", description = "Задача не на паузе")
+    ResponseEntity<DeletionJobInfo> resumeJob(
+        @Parameter(description = "Идентификатор задачи", required = true) UUID jobId);
+}
@@ -0,0 +1,31 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.PartitionInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+
+@Tag(name = "Partitioning API", description = "API для партиционирования таблиц по колонке времени и быстрого удаления старых партиций")
+public interface PartitionController {
+
+    @Operation(summary = "Список партиций таблицы",
+               description = "Возвращает партиции с границами и оценкой количества строк")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    ResponseEntity<List<PartitionInfo>> getPartitions(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+
+    @Operation(summary = "Партиционирование таблицы по колонке времени",
+               description = "Переносит данные таблицы в партиции по диапазону колонки из её политики хранения. " +
+                       "Таблица заблокирована на время переноса, после него удаление выполняется отсоединением партиций")
+    @ApiResponse(responseCode = "200", description = "Таблица партиционирована")
+    @ApiResponse(responseCode = "400", description = "Некорректный шаг партиционирования или у таблицы нет политики хранения")
+    @ApiResponse(responseCode = "409", description = "Таблица уже партиционирована")
+    ResponseEntity<List<PartitionInfo>> partitionTable(
+        @Parameter(description = "Имя таблицы", required = true) String tableName,
+        @Parameter(description = "Ширина партиции в формате ISO-8601, например P1D") Duration step);
+}
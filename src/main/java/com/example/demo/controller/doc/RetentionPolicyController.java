@@ -0,0 +1,43 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.RetentionPolicy;
+import com.example.demo.model.RetentionPolicyRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+@Tag(name = "Retention Policies API", description = "API для политик хранения: разрешённые таблицы, срок хранения и расписание удаления")
+public interface RetentionPolicyController {
+
+    @Operation(summary = "Список политик хранения",
+               description = "Возвращает политики всех таблиц, из которых разрешено удаление")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    ResponseEntity<List<RetentionPolicy>> getPolicies();
+
+    @Operation(summary = "Политика хранения таблицы")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "404", description = "Политика не найдена")
+    ResponseEntity<RetentionPolicy> getPolicy(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+
+    @Operation(summary = "Создание или изменение политики хранения",
+               description = "Колонка времени по умолчанию col4, срок хранения в формате ISO-8601 (например P90D), " +
+                       "расписание — cron Spring из шести полей (по умолчанию 0 0 3 * * *). " +
+                       "Включённая политика запускает удаление в фоне по расписанию")
+    @ApiResponse(responseCode = "200", description = "Политика сохранена")
+    @ApiResponse(responseCode = "400", description = "Недопустимое имя, колонка не найдена или некорректное расписание")
+    ResponseEntity<RetentionPolicy> savePolicy(
+        @Parameter(description = "Имя таблицы", required = true) String tableName,
+        RetentionPolicyRequest request);
+
+    @Operation(summary = "Удаление политики хранения",
+               description = "Запрещает удаление из таблицы, уже запущенные задачи продолжают работу")
+    @ApiResponse(responseCode = "204", description = "Политика удалена")
+    @ApiResponse(responseCode = "404", description = "Политика не найдена")
+    ResponseEntity<Void> deletePolicy(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+}
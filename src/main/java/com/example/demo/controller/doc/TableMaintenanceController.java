@@ -0,0 +1,58 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.IndexAdvice;
+import com.example.demo.model.TableHealth;
+import com.example.demo.model.VacuumReport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Tag(name = "Table Maintenance API", description = "API для индекса по колонке политики и VACUUM таблиц после удаления")
+public interface TableMaintenanceController {
+
+    @Operation(summary = "Состояние таблицы",
+               description = "Живые и мёртвые строки, размер таблицы и оценка раздутия, время последних VACUUM и ANALYZE")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "У таблицы нет политики хранения")
+    @ApiResponse(responseCode = "404", description = "Таблица не найдена")
+    ResponseEntity<TableHealth> getHealth(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+
+    @Operation(summary = "Рекомендация по индексу для удаления",
+               description = "Оценивает по pg_stats долю удаляемых строк и выбирает поиск по индексу " +
+                       "на колонке политики или сканирование таблицы, для индекса — B-tree или BRIN. " +
+                       "Ожидаемый план — только рекомендация, удаление его не переключает")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "У таблицы нет политики хранения")
+    ResponseEntity<IndexAdvice> adviseIndex(
+        @Parameter(description = "Имя таблицы", required = true) String tableName,
+        @Parameter(description = "Граница удаления, по умолчанию — по сроку хранения из политики") LocalDateTime olderThan);
+
+    @Operation(summary = "Построение рекомендованного индекса",
+               description = "Строит индекс через CREATE INDEX CONCURRENTLY без блокировки записи. " +
+                       "Ничего не делает, если индекс уже есть или выгоднее сканировать таблицу")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "У таблицы нет политики хранения")
+    ResponseEntity<IndexAdvice> createIndex(
+        @Parameter(description = "Имя таблицы", required = true) String tableName,
+        @Parameter(description = "Граница удаления, по умолчанию — по сроку хранения из политики") LocalDateTime olderThan);
+
+    @Operation(summary = "VACUUM (ANALYZE) таблицы",
+               description = "Ставит VACUUM (ANALYZE) в очередь, VACUUM выполняются по одному с ограничением нагрузки на диск")
+    @ApiResponse(responseCode = "202", description = "VACUUM поставлен в очередь")
+    @ApiResponse(responseCode = "400", description = "У таблицы нет политики хранения")
+    @ApiResponse(responseCode = "409", description = "VACUUM таблицы уже в очереди")
+    ResponseEntity<Void> vacuum(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+
+    @Operation(summary = "Отчёты о VACUUM таблицы",
+               description = "Мёртвые строки и раздутие перед удалением, перед VACUUM и после него, новые первыми")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    ResponseEntity<List<VacuumReport>> getVacuumReports(
+        @Parameter(description = "Имя таблицы", required = true) String tableName);
+}
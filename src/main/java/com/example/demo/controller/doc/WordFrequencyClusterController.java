@@ -0,0 +1,33 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.ShardRequest;
+import com.example.demo.model.WordFrequency;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+
+@Tag(name = "Cluster Word Frequency API", description = "API распределённого подсчёта частоты слов несколькими экземплярами приложения")
+public interface WordFrequencyClusterController {
+
+    @Operation(summary = "Получить наиболее часто встречающиеся слова силами всех узлов",
+               description = "Делит файлы папки на шарды по размеру и раздаёт их узлам из word-frequency.cluster.peers " +
+                       "и этому экземпляру. Папка должна быть доступна всем узлам по одному пути")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "Неверный ввод")
+    @ApiResponse(responseCode = "409", description = "Шард не удалось посчитать ни на одном узле")
+    ResponseEntity<Collection<WordFrequency>> getTopWords(
+        @Parameter(description = "Путь к папке на общем томе", required = true) String folderPath,
+        @Parameter(description = "Минимальная длина слов для рассмотрения", required = true) int minLength,
+        @Parameter(description = "Количество наиболее частых слов для возврата", required = false) int topCount);
+
+    @Operation(summary = "Подсчёт шарда на этом узле",
+               description = "Внутренний запрос координатора. Возвращает частоты шарда в двоичном формате. " +
+                       "Файлы шарда — только текстовые файлы и архивы из папки запроса")
+    @ApiResponse(responseCode = "200", description = "Частоты шарда")
+    @ApiResponse(responseCode = "400", description = "Файл вне папки запроса или не текстовый, папка вне word-frequency.cluster.roots")
+    ResponseEntity<byte[]> countShard(ShardRequest request);
+}
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.media.*;
 import io.swagger.v3.oas.annotations.responses.*;
 import io.swagger.v3.oas.annotations.tags.*;
 import org.springframework.http.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
 import java.util.*;
 
@@ -25,5 +26,41 @@ public interface WordFrequencyController {
             @Parameter(description = "Минимальная длина слов для рассмотрения", required = true)
             int minLength,
             @Parameter(description = "Количество наиболее частых слов для возврата", required = false)
-            int topCount);
-}
\ No newline at end of file
+            int topCount,
+            @Parameter(description = "Приближённый подсчёт с ограниченной памятью (Space-Saving): "
+                    + "частота — оценка сверху, поле error — максимальное завышение", required = false)
+            boolean approximate);
+
+    @Operation(summary = "Получить страницу рейтинга слов",
+            description = "Точный рейтинг слов по страницам: курсор из ответа указывает на следующую страницу "
+                    + "того же снимка рейтинга. Снимок живёт word-frequency.page.snapshot-ttl с последней страницы")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "Неверный ввод или курсор, снимок рейтинга истёк")
+    @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    ResponseEntity<WordFrequencyPage> getTopWordsPage(
+            @Parameter(description = "Путь к папке, содержащей текстовые файлы", required = true)
+            String folderPath,
+            @Parameter(description = "Минимальная длина слов для рассмотрения", required = true)
+            int minLength,
+            @Parameter(description = "Количество слов на странице", required = false)
+            int limit,
+            @Parameter(description = "Курсор следующей страницы из предыдущего ответа", required = false)
+            String cursor);
+
+    @Operation(summary = "Потоковый подсчёт наиболее часто встречающихся слов",
+            description = "Возвращает NDJSON: во время сканирования — промежуточный топ по обработанным файлам "
+                    + "и прогресс (файлы, байты, слов в секунду), последней строкой — итоговый рейтинг")
+    @ApiResponse(responseCode = "200", description = "Поток снимков",
+            content = @Content(mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = WordFrequencySnapshot.class)))
+    @ApiResponse(responseCode = "400", description = "Неверный ввод")
+    ResponseEntity<StreamingResponseBody> streamTopWords(
+            @Parameter(description = "Путь к папке, содержащей текстовые файлы", required = true)
+            String folderPath,
+            @Parameter(description = "Минимальная длина слов для рассмотрения", required = true)
+            int minLength,
+            @Parameter(description = "Количество наиболее частых слов для возврата", required = false)
+            int topCount,
+            @Parameter(description = "Приближённый подсчёт с ограниченной памятью (Space-Saving)", required = false)
+            boolean approximate);
+}
@@ -0,0 +1,52 @@
+package com.example.demo.controller.doc;
+
+import com.example.demo.model.WatchedFolderInfo;
+import com.example.demo.model.WatchedFolderRequest;
+import com.example.demo.model.WordFrequency;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Tag(name = "Watched Folders API", description = "API наблюдения за папками: частоты слов поддерживаются без повторного сканирования")
+public interface WordFrequencyWatchController {
+
+    @Operation(summary = "Поставить папку под наблюдение",
+               description = "Считает слова папки один раз в фоне, затем обновляет частоты по событиям файловой системы: " +
+                       "дописанные .txt-файлы дочитываются с сохранённой позиции, удалённые и переписанные вычитаются")
+    @ApiResponse(responseCode = "201", description = "Наблюдение создано или уже существует")
+    @ApiResponse(responseCode = "400", description = "Папка не найдена или неверная минимальная длина")
+    @ApiResponse(responseCode = "409", description = "Достигнут предел числа наблюдаемых папок")
+    ResponseEntity<WatchedFolderInfo> watch(WatchedFolderRequest request);
+
+    @Operation(summary = "Список наблюдаемых папок")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    ResponseEntity<List<WatchedFolderInfo>> getWatches();
+
+    @Operation(summary = "Состояние наблюдения", description = "Готовность первичного подсчёта, число файлов и слов")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "404", description = "Наблюдение не найдено")
+    ResponseEntity<WatchedFolderInfo> getWatch(
+        @Parameter(description = "Идентификатор наблюдения", required = true) UUID watchId);
+
+    @Operation(summary = "Наиболее часто встречающиеся слова наблюдаемой папки",
+               description = "Читает поддерживаемый рейтинг за O(topCount), файлы при этом не читаются")
+    @ApiResponse(responseCode = "200", description = "Операция выполнена успешно")
+    @ApiResponse(responseCode = "400", description = "Неверный ввод")
+    @ApiResponse(responseCode = "404", description = "Наблюдение не найдено")
+    @ApiResponse(responseCode = "409", description = "Наблюдение остановилось с ошибкой, частоты устарели")
+    ResponseEntity<Collection<WordFrequency>> getTopWords(
+        @Parameter(description = "Идентификатор наблюдения", required = true) UUID watchId,
+        @Parameter(description = "Количество наиболее частых слов для возврата", required = false) int topCount);
+
+    @Operation(summary = "Снять папку с наблюдения")
+    @ApiResponse(responseCode = "204", description = "Наблюдение остановлено")
+    @ApiResponse(responseCode = "404", description = "Наблюдение не найдено")
+    ResponseEntity<Void> unwatch(
+        @Parameter(description = "Идентификатор наблюдения", required = true) UUID watchId);
+}
@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+// Результат удаления одной порции: найдено строк, удалено строк, последний id порции (null — данных больше нет)
+public record DeletionChunk(long matched, long deleted, Long lastId) {
+
+    public boolean isEmpty() {
+        return lastId == null;
+    }
+}
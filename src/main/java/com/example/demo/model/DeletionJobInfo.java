@@ -0,0 +1,25 @@
+package com.example.demo.model;
+
+import java.time.*;
+import java.util.*;
+
+// Снимок состояния задачи удаления: прогресс, скорость, оценка оставшегося времени и ошибки
+public record DeletionJobInfo(UUID jobId,
+                              String tableName,
+                              String column,
+                              LocalDateTime olderThan,
+                              DeletionMode mode,
+                              DeletionJobStatus status,
+                              Instant createdAt,
+                              Instant startedAt,
+                              Instant finishedAt,
+                              long rowsScanned,
+                              long rowsDeleted,
+                              int chunks,
+                              Long lastId,
+                              double progress,
+                              double rowsPerSecond,
+                              Long etaSeconds,
+                              List<String> failures,
+                              String error) {
+}
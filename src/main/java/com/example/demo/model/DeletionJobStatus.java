@@ -0,0 +1,15 @@
+package com.example.demo.model;
+
+// Состояние задачи удаления
+public enum DeletionJobStatus {
+    QUEUED,
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
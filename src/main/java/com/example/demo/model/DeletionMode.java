@@ -0,0 +1,15 @@
+package com.example.demo.model;
+
+// Способ удаления строк
+public enum DeletionMode {
+    // Один поток, keyset-порции по первичному ключу
+    SEQUENTIAL,
+    // Пространство id делится на непересекающиеся диапазоны, которые удаляются пулом воркеров
+    PARALLEL,
+    // Для партиционированных таблиц: старые партиции отсоединяются и удаляются целиком,
+    // построчно чистятся только граничная партиция и партиция по умолчанию
+    PARTITION,
+    // Выжившие строки копируются в новую таблицу, которая затем подменяет исходную.
+    // Выгоднее построчного удаления, когда удаляется большая часть таблицы
+    REWRITE
+}
@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+// Потоки для блокирующих операций: чтения файлов и запросов к базе
+public enum ExecutionMode {
+    // Пулы платформенных потоков, файлы читаются в потоках пула разбора
+    PLATFORM,
+    // Виртуальные потоки для ввода-вывода, разбор — в ограниченном пуле платформенных потоков
+    VIRTUAL
+}
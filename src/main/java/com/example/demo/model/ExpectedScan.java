@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+// Каким планом PostgreSQL, по оценке, найдёт удаляемые строки: по индексу на колонке политики или
+// сканированием таблицы. Только рекомендация: движки удаления всегда идут по id, а план порции
+// выбирает планировщик — от оценки зависит лишь, стоит ли строить индекс
+public enum ExpectedScan {
+    INDEX,
+    SEQUENTIAL
+}
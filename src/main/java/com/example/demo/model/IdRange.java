@@ -0,0 +1,13 @@
+package com.example.demo.model;
+
+// Минимальный и максимальный id таблицы (оба null для пустой таблицы)
+public record IdRange(Long minId, Long maxId) {
+
+    public boolean isEmpty() {
+        return minId == null || maxId == null;
+    }
+
+    public long size() {
+        return isEmpty() ? 0 : maxId - minId + 1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+import java.time.*;
+
+// Рекомендация по индексу для удаления строк старше olderThan: оценка доли удаляемых строк и корреляции
+// колонки с физическим порядком строк по pg_stats (null — статистики нет), ожидаемый план поиска строк
+// (только рекомендация, см. ExpectedScan), существующий индекс по колонке (DDL) и тип индекса, который стоит построить (btree, brin или null)
+public record IndexAdvice(String tableName,
+                          String column,
+                          LocalDateTime olderThan,
+                          Double deleteShare,
+                          Double correlation,
+                          ExpectedScan expectedScan,
+                          String existingIndex,
+                          String recommendedIndexType,
+                          boolean created) {
+
+    public IndexAdvice withCreated(String definition) {
+        return new IndexAdvice(tableName, column, olderThan, deleteShare, correlation, expectedScan, definition,
+                recommendedIndexType, true);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+// Индекс таблицы: имя, DDL из pg_get_indexdef и тип ограничения, которое он обеспечивает (p, u, x или null)
+public record IndexDefinition(String name, String definition, String constraintType) {
+
+    public boolean isConstraint() {
+        return constraintType != null;
+    }
+}
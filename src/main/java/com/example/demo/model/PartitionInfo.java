@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import java.time.*;
+
+// Партиция таблицы: имя, границы [from, to) по колонке партиционирования (null — MINVALUE/MAXVALUE),
+// признак партиции по умолчанию и оценка количества строк по статистике
+public record PartitionInfo(String name, LocalDateTime from, LocalDateTime to, boolean isDefault, long estimatedRows) {
+
+    // Вся партиция старше cutoff — её можно удалить целиком
+    public boolean isOlderThan(LocalDateTime cutoff) {
+        return !isDefault && to != null && !to.isAfter(cutoff);
+    }
+
+    // Партиция может содержать строки старше cutoff
+    public boolean overlaps(LocalDateTime cutoff) {
+        return isDefault || from == null || from.isBefore(cutoff);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.model;
+
+import java.time.*;
+import java.util.*;
+
+// Политика хранения таблицы: строки, у которых column старше maxAge, удаляются по расписанию schedule (cron).
+// Политика одновременно разрешает удаление из таблицы, в том числе ручное через API
+public record RetentionPolicy(String tableName,
+                              String column,
+                              Duration maxAge,
+                              String schedule,
+                              DeletionMode mode,
+                              boolean enabled,
+                              Instant lastRunAt,
+                              Instant nextRunAt,
+                              UUID lastJobId) {
+}
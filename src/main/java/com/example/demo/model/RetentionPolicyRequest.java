@@ -0,0 +1,11 @@
+package com.example.demo.model;
+
+import java.time.*;
+
+// Новая политика хранения или изменение существующей; mode null — выбор способа удаления автоматически
+public record RetentionPolicyRequest(String column,
+                                     Duration maxAge,
+                                     String schedule,
+                                     DeletionMode mode,
+                                     boolean enabled) {
+}
@@ -0,0 +1,11 @@
+package com.example.demo.model;
+
+// Что узел-исполнитель возвращает из частот шарда
+public enum ShardQuery {
+    // limit слов с наибольшей частотой
+    TOP,
+    // Все слова с частотой не меньше limit
+    ABOVE,
+    // Частоты слов из списка words
+    WORDS
+}
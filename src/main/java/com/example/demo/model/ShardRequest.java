@@ -0,0 +1,17 @@
+package com.example.demo.model;
+
+import java.util.*;
+
+// Запрос к узлу-исполнителю распределённого подсчёта. Файлы шарда лежат на общем томе по тем же путям.
+// Узел держит частоты шарда в кэше между запросами с тем же shardId, а при промахе считает их заново,
+// поэтому любой запрос можно повторить на другом узле. last — последний запрос по шарду, кэш освобождается.
+// folder — папка запроса координатора: узел считает только файлы из неё, которые вернул бы её обход
+public record ShardRequest(UUID shardId,
+                           String folder,
+                           List<String> files,
+                           int minLength,
+                           ShardQuery query,
+                           long limit,
+                           List<String> words,
+                           boolean last) {
+}
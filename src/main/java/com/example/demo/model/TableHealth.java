@@ -0,0 +1,17 @@
+package com.example.demo.model;
+
+import java.time.*;
+
+// Состояние таблицы по pg_stat_user_tables: живые и мёртвые строки, размер и оценка раздутия.
+// estimatedBloatBytes — размер таблицы сверх нужного живым строкам при средней ширине строки из pg_stats,
+// null — по таблице ещё нет статистики
+public record TableHealth(String tableName,
+                          long liveTuples,
+                          long deadTuples,
+                          double deadTupleRatio,
+                          long tableBytes,
+                          long totalBytes,
+                          Long estimatedBloatBytes,
+                          Instant lastVacuum,
+                          Instant lastAnalyze) {
+}
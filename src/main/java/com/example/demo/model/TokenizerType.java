@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+// Реализация разбора файлов на слова
+public enum TokenizerType {
+    // Отображение файла в память и разбор UTF-8 без промежуточных строк
+    UTF8,
+    // Построчное чтение и регулярное выражение \p{L}{n,} с границами слова по правилам \b из Java 17
+    REGEX
+}
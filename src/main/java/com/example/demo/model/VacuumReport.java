@@ -0,0 +1,17 @@
+package com.example.demo.model;
+
+import java.time.*;
+import java.util.*;
+
+// Выполненный VACUUM (ANALYZE) таблицы: задача удаления, после которой он запущен (null — запуск вручную),
+// состояние таблицы перед удалением, перед VACUUM и после него, ошибка (null — успешно)
+public record VacuumReport(String tableName,
+                           UUID jobId,
+                           long rowsDeleted,
+                           Instant startedAt,
+                           Instant finishedAt,
+                           TableHealth beforePurge,
+                           TableHealth beforeVacuum,
+                           TableHealth afterVacuum,
+                           String error) {
+}
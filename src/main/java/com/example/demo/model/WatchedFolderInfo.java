@@ -0,0 +1,19 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.*;
+
+import java.time.*;
+import java.util.*;
+
+// Папка под наблюдением: ready — первичный подсчёт завершён, до этого топ строится по уже посчитанным файлам.
+// error — причина, по которой наблюдение остановилось
+public record WatchedFolderInfo(UUID watchId,
+                                String folderPath,
+                                int minLength,
+                                boolean ready,
+                                int files,
+                                long words,
+                                long distinctWords,
+                                Instant updatedAt,
+                                @JsonInclude(JsonInclude.Include.NON_NULL) String error) {
+}
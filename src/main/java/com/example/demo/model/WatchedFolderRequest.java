@@ -0,0 +1,5 @@
+package com.example.demo.model;
+
+// Новая папка под наблюдением: частоты слов длиннее minLength поддерживаются по событиям файловой системы
+public record WatchedFolderRequest(String folderPath, int minLength) {
+}
@@ -1,5 +1,13 @@
 package com.example.demo.model;
 
-// Слово, частота использования, позиция в рейтинге
-public record WordFrequency(String word, long frequency, int position) {
+import com.fasterxml.jackson.annotation.*;
+
+// Слово, частота использования, позиция в рейтинге.
+// В приближённом режиме частота — оценка сверху, error — на сколько она может быть завышена
+public record WordFrequency(String word, long frequency, int position,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Long error) {
+
+    public WordFrequency(String word, long frequency, int position) {
+        this(word, frequency, position, null);
+    }
 }
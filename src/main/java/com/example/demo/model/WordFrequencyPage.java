@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+import java.util.*;
+
+// Страница рейтинга слов и курсор следующей страницы, null — страниц больше нет
+public record WordFrequencyPage(List<WordFrequency> words, String nextCursor) {
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.*;
+
+// Промежуточный или итоговый результат потокового подсчёта частоты слов:
+// прогресс сканирования и топ по уже обработанным файлам
+public record WordFrequencySnapshot(boolean completed,
+                                    int filesTotal,
+                                    int filesDone,
+                                    long bytesRead,
+                                    long wordsCounted,
+                                    long wordsPerSecond,
+                                    long elapsedMillis,
+                                    @JsonInclude(JsonInclude.Include.NON_NULL) Long maxError,
+                                    List<WordFrequency> words) {
+}
@@ -1,17 +1,69 @@
 package com.example.demo.service;
 
+import com.example.demo.model.*;
+
 import java.time.*;
+import java.util.*;
 
 public interface DeletionService {
 
     /**
-     * Запускает процесс удаления данных из указанной таблицы.
+     * Ставит в очередь задачу удаления данных из указанной таблицы и сразу возвращает её состояние.
+     * Возраст строки определяется колонкой времени из политики хранения таблицы.
      *
      * @param tableName имя таблицы, из которой нужно удалить данные
      * @param olderThan дата и время, старше которых нужно удалить данные
-     * @return строка с сообщением о начале процесса удаления
+     * @param mode      способ удаления, null — значение deletion.mode из конфигурации
+     * @return снимок состояния созданной задачи
+     * @throws IllegalArgumentException если у таблицы нет политики хранения
      * @throws IllegalStateException если процесс удаления для данной таблицы уже запущен
+     *                               или в базе осталась его незавершённая задача
+     */
+    DeletionJobInfo startDeletionProcess(String tableName, LocalDateTime olderThan, DeletionMode mode);
+
+    /**
+     * Возвращает текущее состояние задачи удаления.
+     *
+     * @throws NoSuchElementException если задача не найдена
+     */
+    DeletionJobInfo getJob(UUID jobId);
+
+    /**
+     * Возвращает состояние всех известных задач удаления, включая недавно завершённые.
+     */
+    Collection<DeletionJobInfo> getJobs();
+
+    /**
+     * Отменяет задачу. Уже закоммиченные порции не откатываются. Запрос сохраняется в базе,
+     * задачу другого экземпляра приложения он остановит при её следующем подтверждении.
+     *
+     * @throws NoSuchElementException если задача не найдена
+     * @throws IllegalStateException если задача уже завершена
+     */
+    DeletionJobInfo cancelJob(UUID jobId);
+
+    /**
+     * Приостанавливает задачу после текущей порции.
+     *
+     * @throws NoSuchElementException если задача не найдена
+     * @throws IllegalStateException если задачу нельзя приостановить
+     */
+    DeletionJobInfo pauseJob(UUID jobId);
+
+    /**
+     * Возобновляет приостановленную задачу.
+     *
+     * @throws NoSuchElementException если задача не найдена
+     * @throws IllegalStateException если задача не на паузе
+     */
+    DeletionJobInfo resumeJob(UUID jobId);
+
+    /**
+     * Продолжает задачи, прерванные остановкой или падением приложения, с последней закоммиченной порции.
+     * Забираются только задачи, которые владелец не подтверждал дольше deletion.jobs.lease.
+     *
+     * @return снимки поставленных в очередь задач
      */
-    String startDeletionProcess(String tableName, LocalDateTime olderThan);
+    List<DeletionJobInfo> resumeInterruptedJobs();
 
-}
\ No newline at end of file
+}
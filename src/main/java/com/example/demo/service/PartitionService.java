@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+
+import java.time.*;
+import java.util.*;
+
+public interface PartitionService {
+
+    /**
+     * Возвращает партиции таблицы, отсортированные по нижней границе.
+     *
+     * @param tableName имя таблицы
+     * @return список партиций, пустой для непартиционированной таблицы
+     */
+    List<PartitionInfo> getPartitions(String tableName);
+
+    /**
+     * Переводит таблицу в партиционирование по диапазону колонки времени её политики хранения
+     * и создаёт партиции наперёд.
+     * Операция блокирует таблицу на время переноса данных.
+     *
+     * @param tableName имя таблицы
+     * @param step      ширина одной партиции
+     * @return список партиций после преобразования
+     * @throws IllegalArgumentException если для таблицы нет политики хранения
+     */
+    List<PartitionInfo> partitionTable(String tableName, Duration step);
+
+    /**
+     * Создаёт партиции наперёд, чтобы новые строки не попадали в партицию по умолчанию.
+     * Шаг определяется по последней партиции.
+     *
+     * @param tableName имя партиционированной таблицы
+     */
+    void createFuturePartitions(String tableName);
+}
@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+
+public interface RetentionPolicyService {
+
+    /**
+     * Возвращает политики хранения всех разрешённых для удаления таблиц.
+     */
+    List<RetentionPolicy> getPolicies();
+
+    /**
+     * Возвращает политику хранения таблицы.
+     *
+     * @throws NoSuchElementException если для таблицы нет политики
+     */
+    RetentionPolicy getPolicy(String tableName);
+
+    /**
+     * Создаёт или изменяет политику хранения и пересчитывает время следующего запуска.
+     *
+     * @param tableName имя таблицы
+     * @param request   колонка, срок хранения, расписание, способ удаления и признак включения
+     * @return сохранённая политика
+     * @throws IllegalArgumentException если имя таблицы или колонки недопустимо, колонка не найдена
+     *                                  или расписание некорректно
+     */
+    RetentionPolicy savePolicy(String tableName, RetentionPolicyRequest request);
+
+    /**
+     * Удаляет политику, после чего удаление из таблицы запрещено.
+     *
+     * @throws NoSuchElementException если для таблицы нет политики
+     */
+    void deletePolicy(String tableName);
+}
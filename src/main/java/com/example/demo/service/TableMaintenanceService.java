@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+
+import java.time.*;
+import java.util.*;
+
+public interface TableMaintenanceService {
+
+    /**
+     * Возвращает состояние таблицы: живые и мёртвые строки, размер и оценку раздутия.
+     *
+     * @throws IllegalArgumentException если у таблицы нет политики хранения
+     * @throws NoSuchElementException если таблицы нет
+     */
+    TableHealth getHealth(String tableName);
+
+    /**
+     * Оценивает по pg_stats, какую долю таблицы затронет удаление строк старше olderThan,
+     * и выбирает между поиском строк по индексу на колонке политики и сканированием таблицы.
+     * Выбор — только рекомендация: он решает, стоит ли строить индекс, а план порций удаления
+     * по-прежнему выбирает планировщик.
+     *
+     * @param olderThan граница удаления, null — по сроку хранения из политики
+     * @throws IllegalArgumentException если у таблицы нет политики хранения
+     */
+    IndexAdvice adviseIndex(String tableName, LocalDateTime olderThan);
+
+    /**
+     * Строит рекомендованный индекс через CREATE INDEX CONCURRENTLY, если по колонке политики
+     * ещё нет индекса, а стратегия — поиск по индексу.
+     *
+     * @param olderThan граница удаления, null — по сроку хранения из политики
+     * @throws IllegalArgumentException если у таблицы нет политики хранения
+     */
+    IndexAdvice createAdvisedIndex(String tableName, LocalDateTime olderThan);
+
+    /**
+     * Подготовка таблицы перед удалением: запоминает её состояние для отчёта и при
+     * deletion.maintenance.index.auto-create строит индекс, если удаляется небольшая доля строк.
+     * Режимы PARTITION и REWRITE не ищут строки по колонке, для них только запоминается состояние.
+     */
+    void preparePurge(DeletionJobInfo job);
+
+    /**
+     * Ставит VACUUM (ANALYZE) таблицы в очередь после удаления, если удалено не меньше
+     * deletion.maintenance.vacuum.min-deleted-share строк.
+     */
+    void onPurgeFinished(DeletionJobInfo job);
+
+    /**
+     * Ставит VACUUM (ANALYZE) таблицы в очередь. VACUUM выполняются по одному с ограничением нагрузки на диск.
+     *
+     * @return false — VACUUM этой таблицы уже в очереди
+     * @throws IllegalArgumentException если у таблицы нет политики хранения
+     */
+    boolean scheduleVacuum(String tableName);
+
+    /**
+     * Возвращает отчёты о недавних VACUUM таблицы, новые первыми.
+     */
+    List<VacuumReport> getVacuumReports(String tableName);
+}
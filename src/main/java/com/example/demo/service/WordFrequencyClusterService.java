@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+
+public interface WordFrequencyClusterService {
+
+    /**
+     * Топ-N слов папки на общем томе, посчитанный всеми узлами: файлы делятся на шарды по размеру,
+     * шарды считают узлы из word-frequency.cluster.peers и этот экземпляр. Результат точный:
+     * узлы передают не все частоты, а только те, что могут повлиять на топ.
+     *
+     * @param folderPath путь к директории, одинаковый на всех узлах
+     * @param minLength  минимальная длина слова
+     * @param topCount   количество слов в топе
+     * @throws IllegalStateException если шард не удалось посчитать ни на одном узле
+     */
+    Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount);
+
+    /**
+     * Выполняет запрос координатора к шарду на этом узле.
+     *
+     * @return частоты шарда в двоичном формате распределённого подсчёта
+     * @throws IllegalArgumentException если файл шарда не текстовый или вне папки запроса,
+     *                                  или папка вне word-frequency.cluster.roots
+     */
+    byte[] countShard(ShardRequest request);
+}
@@ -3,6 +3,7 @@ package com.example.demo.service;
 import com.example.demo.model.*;
 
 import java.util.*;
+import java.util.function.*;
 
 
 public interface WordFrequencyService {
@@ -13,7 +14,29 @@ public interface WordFrequencyService {
      * @param folderPath путь к директории с файлами для анализа
      * @param minLength минимальная длина слова
      * @param topCount количество слов в топе
-     * @return список из объектов вида {слово, частота, место в рейтинге}
+     * @param approximate приближённый подсчёт с ограниченной памятью: частота — оценка сверху,
+     *                    завышенная не больше чем на погрешность error
+     * @return список из объектов вида {слово, частота, место в рейтинге, погрешность}
      */
-    Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount);
+    Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount, boolean approximate);
+
+    /**
+     * Страница точного рейтинга слов для больших топов. Рейтинг считается один раз для первой страницы,
+     * следующие страницы — продолжение того же снимка, даже если файлы папки изменились.
+     *
+     * @param limit количество слов на странице
+     * @param cursor курсор из предыдущей страницы, null — первая страница
+     * @return слова страницы и курсор следующей страницы
+     * @throws IllegalArgumentException если курсор неверный или снимок рейтинга уже истёк
+     */
+    WordFrequencyPage getTopWordsPage(String folderPath, int minLength, int limit, String cursor);
+
+    /**
+     * Потоковый подсчёт: пока файлы обрабатываются, периодически передаёт промежуточный топ
+     * по завершённым файлам и прогресс, последним — итоговый рейтинг
+     *
+     * @param listener получатель снимков, вызывается из потока запроса
+     */
+    void streamTopWords(String folderPath, int minLength, int topCount, boolean approximate,
+                        Consumer<WordFrequencySnapshot> listener);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+
+public interface WordFrequencyWatchService {
+
+    /**
+     * Ставит папку под наблюдение: частоты слов её файлов считаются один раз и дальше
+     * поддерживаются по событиям файловой системы. Повторная регистрация той же папки
+     * с тем же minLength возвращает существующее наблюдение.
+     *
+     * @param folderPath путь к директории с файлами для анализа
+     * @param minLength  минимальная длина слова
+     * @throws IllegalArgumentException если директория не существует или minLength отрицательный
+     * @throws IllegalStateException    если достигнут предел числа наблюдаемых папок
+     */
+    WatchedFolderInfo watch(String folderPath, int minLength);
+
+    List<WatchedFolderInfo> getWatches();
+
+    /**
+     * @throws NoSuchElementException если наблюдение не найдено
+     */
+    WatchedFolderInfo getWatch(UUID watchId);
+
+    /**
+     * Топ-N слов наблюдаемой папки из поддерживаемого рейтинга, без чтения файлов.
+     *
+     * @throws NoSuchElementException если наблюдение не найдено
+     * @throws IllegalStateException  если наблюдение остановилось с ошибкой и частоты устарели
+     */
+    Collection<WordFrequency> getTopWords(UUID watchId, int topCount);
+
+    /**
+     * Снимает папку с наблюдения и освобождает её частоты.
+     *
+     * @throws NoSuchElementException если наблюдение не найдено
+     */
+    void unwatch(UUID watchId);
+}
@@ -0,0 +1,52 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+import lombok.experimental.*;
+
+import static java.lang.Math.*;
+
+// Подбирает размер порции под целевое время её выполнения.
+// Экземпляр принадлежит одному воркеру и не потокобезопасен
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AdaptiveChunkSizer {
+
+    // Шаг изменения за одну порцию ограничен, чтобы единичный выброс не обрушил размер
+    private static final double MAX_GROWTH = 1.5;
+    private static final double MAX_SHRINK = 0.5;
+
+    final int minSize;
+    final int maxSize;
+    final long targetLatency;
+
+    int size;
+    @Getter
+    int issued;
+
+    public AdaptiveChunkSizer(int initialSize, int minSize, int maxSize, long targetLatency) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatency = targetLatency;
+        this.size = clamp(initialSize);
+    }
+
+    // Размер следующей порции
+    public int next() {
+        issued = size;
+        return size;
+    }
+
+    // Пропорционально приближаем время порции к целевому
+    public void onChunk(long latencyMillis) {
+        val ratio = (double) targetLatency / max(latencyMillis, 1);
+        size = clamp((long) (size * min(MAX_GROWTH, max(MAX_SHRINK, ratio))));
+    }
+
+    // База перегружена (долгий коммит, ожидание блокировок) — резко уменьшаем порцию
+    public void onBackpressure() {
+        size = clamp(size / 2);
+    }
+
+    private int clamp(long value) {
+        return (int) min(maxSize, max(minSize, value));
+    }
+}
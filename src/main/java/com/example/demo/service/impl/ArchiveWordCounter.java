@@ -0,0 +1,211 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.impl.WordTokenizer.*;
+import com.github.luben.zstd.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+import org.springframework.util.unit.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.zip.*;
+
+// Подсчёт слов в архивах без распаковки на диск: .txt-записи .zip, файлы .txt.gz и .txt.zst
+// разбираются прямо из потока распаковки. Распаковка идёт в отдельном потоке и отдаёт буферы
+// разбору через короткую очередь, поэтому распаковка и разбор перекрываются. Записи zip
+// независимы и считаются fork/join-подзадачами в словари потоков, которые их выполняют
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ArchiveWordCounter {
+
+    private static final String TEXT_POSTFIX = ".txt";
+    private static final String ZIP_POSTFIX = ".zip";
+    private static final String GZIP_POSTFIX = ".txt.gz";
+    private static final String ZSTD_POSTFIX = ".txt.zst";
+    // Метаданные архивов macOS: записи с теми же именами .txt, но без текста
+    private static final String MAC_METADATA = "__MACOSX/";
+    private static final String APPLE_DOUBLE_PREFIX = "._";
+
+    // Буферов на один поток распаковки: пока один разбирается, остальные заполняются
+    private static final int PIPELINE_BUFFERS = 4;
+    // Конец потока распаковки в очереди заполненных буферов
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    ExecutorService decompressExecutor;
+    int bufferSize;
+
+    public ArchiveWordCounter(@Qualifier("wordFrequencyDecompressExecutor") ExecutorService decompressExecutor,
+                              @Value("${word-frequency.archive.buffer-size}") DataSize bufferSize) {
+        this.decompressExecutor = decompressExecutor;
+        this.bufferSize = Math.toIntExact(Math.max(1, bufferSize.toBytes()));
+    }
+
+    public boolean isArchive(Path file) {
+        val name = file.getFileName().toString();
+        return name.endsWith(ZIP_POSTFIX) || name.endsWith(GZIP_POSTFIX) || name.endsWith(ZSTD_POSTFIX);
+    }
+
+    /**
+     * Считает слова текстовых файлов архива. Вызывается из потока ForkJoinPool: записи zip
+     * разбираются свободными потоками того же пула, каждый считает в свой частичный словарь.
+     *
+     * @param consumers получатель слов потока, запрашивается один раз на запись архива
+     */
+    public void count(Path file, int minLength, Supplier<WordConsumer> consumers) throws IOException {
+        val name = file.getFileName().toString();
+        try {
+            if (name.endsWith(ZIP_POSTFIX)) {
+                countZip(file, minLength, consumers);
+            } else if (name.endsWith(GZIP_POSTFIX)) {
+                count(() -> decompress(file, in -> new GZIPInputStream(in, bufferSize)), minLength, consumers.get());
+            } else if (name.endsWith(ZSTD_POSTFIX)) {
+                count(() -> decompress(file, ZstdInputStream::new), minLength, consumers.get());
+            } else {
+                throw new IllegalArgumentException("Unsupported archive: " + file);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Записи zip независимы: ZipFile читает их параллельно, каждая распаковывается своим Inflater
+    private void countZip(Path file, int minLength, Supplier<WordConsumer> consumers) throws IOException {
+        try (val zip = new ZipFile(file.toFile())) {
+            val tasks = zip.stream()
+                    .filter(ArchiveWordCounter::isTextEntry)
+                    .map(entry -> ForkJoinTask.adapt(() -> {
+                        try {
+                            count(() -> zip.getInputStream(entry), minLength, consumers.get());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }))
+                    .toList();
+            log.debug("Start processing {} text entries of archive {}", tasks.size(), file);
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+    private static boolean isTextEntry(ZipEntry entry) {
+        val name = entry.getName();
+        val fileName = name.substring(name.lastIndexOf('/') + 1);
+        return !entry.isDirectory()
+                && name.endsWith(TEXT_POSTFIX)
+                && !name.startsWith(MAC_METADATA)
+                && !fileName.startsWith(APPLE_DOUBLE_PREFIX);
+    }
+
+    @FunctionalInterface
+    private interface StreamOpener {
+
+        InputStream open() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Decompressor {
+
+        InputStream wrap(InputStream in) throws IOException;
+    }
+
+    private static InputStream decompress(Path file, Decompressor decompressor) throws IOException {
+        val in = Files.newInputStream(file);
+        try {
+            return decompressor.wrap(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Текущий поток разбирает буферы, которые заполняет поток распаковки. Поток распаковки
+    // сам открывает и закрывает поток данных, поэтому при ошибке разбора его достаточно прервать
+    private void count(StreamOpener opener, int minLength, WordConsumer consumer) throws IOException {
+        val free = new ArrayBlockingQueue<ByteBuffer>(PIPELINE_BUFFERS);
+        val filled = new ArrayBlockingQueue<ByteBuffer>(PIPELINE_BUFFERS + 1);
+        for (int i = 0; i < PIPELINE_BUFFERS; i++) {
+            free.add(ByteBuffer.allocate(bufferSize));
+        }
+
+        val decompression = decompressExecutor.submit(() -> {
+            decompress(opener, free, filled);
+            return null;
+        });
+        try {
+            val scanner = new Utf8WordScanner(minLength, consumer);
+            val taker = new BufferTaker(filled);
+            ByteBuffer buffer;
+            while ((buffer = taker.take()) != END) {
+                scanner.feed(buffer);
+                free.add(buffer);
+            }
+            decompression.get();
+            scanner.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for decompression");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            decompression.cancel(true);
+        }
+    }
+
+    // Ожидание распаковки в потоке ForkJoinPool: на время ожидания пул может запустить
+    // дополнительный поток, и остальные записи архива и файлы не простаивают
+    @RequiredArgsConstructor
+    private static final class BufferTaker implements ForkJoinPool.ManagedBlocker {
+
+        private final BlockingQueue<ByteBuffer> queue;
+        private ByteBuffer buffer;
+
+        ByteBuffer take() throws InterruptedException {
+            buffer = null;
+            ForkJoinPool.managedBlock(this);
+            return buffer;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (buffer == null) {
+                buffer = queue.take();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return buffer != null || (buffer = queue.poll()) != null;
+        }
+    }
+
+    private static void decompress(StreamOpener opener, BlockingQueue<ByteBuffer> free,
+                                   BlockingQueue<ByteBuffer> filled) throws IOException, InterruptedException {
+        try (val in = opener.open()) {
+            while (true) {
+                val buffer = free.take();
+                val read = in.readNBytes(buffer.array(), 0, buffer.capacity());
+                if (read == 0) {
+                    break;
+                }
+                filled.add(buffer.clear().limit(read));
+            }
+        } finally {
+            // Очередь вмещает все буферы и маркер, добавление не блокируется
+            filled.add(END);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+
+import static org.springframework.transaction.annotation.Propagation.*;
+
+// Удаление порции и контрольная точка задачи в одной транзакции: после падения процесса задача
+// продолжается ровно с последней закоммиченной порции, без повторного прохода по таблице
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CheckpointedChunkDeleter {
+
+    JdbcConnector jdbcConnector;
+    DeletionCheckpointConnector checkpointConnector;
+
+
+    // Keyset-порция после afterId в диапазоне задачи с верхней границей rangeTo
+    @Transactional(propagation = REQUIRES_NEW)
+    public DeletionChunk deleteChunk(DeletionJob job, long rangeTo, long afterId, int chunkSize) {
+        val chunk = jdbcConnector.deleteChunk(job.getTableName(), job.getColumn(), job.getOlderThan(), afterId, rangeTo,
+                chunkSize);
+        if (!chunk.isEmpty()) {
+            checkpointConnector.saveProgress(job.getId(), rangeTo, chunk.lastId() + 1, chunk);
+        }
+        return chunk;
+    }
+
+    // Порция [fromId, toId) в диапазоне задачи с верхней границей rangeTo
+    @Transactional(propagation = REQUIRES_NEW)
+    public DeletionChunk deleteRange(DeletionJob job, long rangeTo, long fromId, long toId) {
+        val chunk = jdbcConnector.deleteRange(job.getTableName(), job.getColumn(), job.getOlderThan(), fromId, toId);
+        checkpointConnector.saveProgress(job.getId(), rangeTo, toId, chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service.impl;
+
+import com.google.common.util.concurrent.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.lang.Math.*;
+
+// Общий бюджет всех задач удаления. Соединения: общий справедливый семафор, которые таблицы делят
+// поровну — таблица с восемью воркерами не вытесняет таблицу с одним. Строки: один RateLimiter
+// на все таблицы, скорость удаления не растёт с числом одновременно очищаемых таблиц
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DeletionBudget {
+
+    Semaphore jdbcPermits;
+    int connections;
+    // null — скорость не ограничена
+    RateLimiter rowLimiter;
+
+    // Порции в работе и в ожидании по таблицам: доля таблицы — connections / число таблиц
+    Map<String, Integer> demand = new HashMap<>();
+    Map<String, Integer> inFlight = new HashMap<>();
+
+    public DeletionBudget(@Qualifier("jdbcPermits") Semaphore jdbcPermits,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                          @Value("${deletion.parallel.reserved-connections}") int reserved,
+                          @Value("${deletion.budget.rows-per-second}") double rowsPerSecond) {
+        this.jdbcPermits = jdbcPermits;
+        this.connections = max(1, poolSize - reserved);
+        this.rowLimiter = rowsPerSecond > 0 ? RateLimiter.create(rowsPerSecond) : null;
+    }
+
+    /**
+     * Ждёт своей доли соединений для таблицы и затем общего разрешения.
+     * После порции разрешение возвращается через release.
+     */
+    public void acquire(String tableName) throws InterruptedException {
+        synchronized (this) {
+            demand.merge(tableName, 1, Integer::sum);
+            try {
+                while (inFlight.getOrDefault(tableName, 0) >= share()) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                decrement(demand, tableName);
+                notifyAll();
+                throw e;
+            }
+            inFlight.merge(tableName, 1, Integer::sum);
+        }
+        try {
+            jdbcPermits.acquire();
+        } catch (InterruptedException e) {
+            releaseShare(tableName);
+            throw e;
+        }
+    }
+
+    public void release(String tableName) {
+        jdbcPermits.release();
+        releaseShare(tableName);
+    }
+
+    /**
+     * Списывает строки порции из бюджета скорости. RateLimiter выдаёт разрешения в долг,
+     * поэтому за большую порцию ждёт следующая порция любой таблицы.
+     */
+    public void onRows(long rows) {
+        if (rowLimiter != null && rows > 0) {
+            rowLimiter.acquire((int) min(rows, Integer.MAX_VALUE));
+        }
+    }
+
+    private synchronized void releaseShare(String tableName) {
+        decrement(inFlight, tableName);
+        decrement(demand, tableName);
+        notifyAll();
+    }
+
+    private int share() {
+        return max(1, connections / max(1, demand.size()));
+    }
+
+    private static void decrement(Map<String, Integer> counts, String tableName) {
+        counts.computeIfPresent(tableName, (table, count) -> count > 1 ? count - 1 : null);
+    }
+}
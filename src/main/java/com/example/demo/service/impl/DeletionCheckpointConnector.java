@@ -0,0 +1,248 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+import static org.springframework.transaction.annotation.Propagation.*;
+
+// Контрольные точки задач удаления в таблицах deletion_job и deletion_job_range
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DeletionCheckpointConnector {
+
+    private static final String INSERT_JOB_COMMAND =
+            """
+                    INSERT INTO deletion_job (job_id, table_name, column_name, older_than, mode, status, owner_id)
+                    VALUES (?, ?, ?, ?, ?, 'QUEUED', ?)
+                    """;
+    private static final String SELECT_JOBS_COMMAND =
+            """
+                    SELECT j.job_id, j.table_name, j.column_name, j.older_than, j.mode, j.min_id, j.max_id,
+                           j.rows_scanned, j.rows_deleted, j.chunks, j.requested_state, j.request_seq,
+                           (SELECT coalesce(sum(r.next_id - r.range_from), 0)
+                            FROM deletion_job_range r WHERE r.job_id = j.job_id) AS ids_covered
+                    FROM deletion_job j
+                    """;
+    // Владелец задачи не подтверждал её дольше lease: экземпляр упал или потерял связь с базой
+    private static final String SELECT_STALE_JOBS_COMMAND = SELECT_JOBS_COMMAND +
+            """
+                    WHERE j.status IN ('QUEUED', 'RUNNING') AND j.owner_id <> ?
+                      AND j.heartbeat_at < now() - make_interval(secs => ?)
+                    ORDER BY j.created_at
+                    """;
+    private static final String SELECT_UNFINISHED_JOB_COMMAND = SELECT_JOBS_COMMAND +
+            """
+                    WHERE j.job_id = ? AND j.status IN ('QUEUED', 'RUNNING')
+                    """;
+    // Условие на heartbeat_at перепроверяется после блокировки строки: из нескольких экземпляров задачу забирает один
+    private static final String TAKE_OVER_JOB_COMMAND =
+            """
+                    UPDATE deletion_job SET owner_id = ?, heartbeat_at = now()
+                    WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING')
+                      AND heartbeat_at < now() - make_interval(secs => ?)
+                    """;
+    private static final String HEARTBEAT_COMMAND =
+            """
+                    UPDATE deletion_job SET heartbeat_at = now()
+                    WHERE job_id = ? AND owner_id = ? AND status IN ('QUEUED', 'RUNNING')
+                    RETURNING requested_state, request_seq
+                    """;
+    private static final String SAVE_REQUEST_COMMAND =
+            """
+                    UPDATE deletion_job SET requested_state = ?, request_seq = request_seq + 1
+                    WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING')
+                    RETURNING request_seq
+                    """;
+    private static final String HAS_UNFINISHED_JOB_COMMAND =
+            """
+                    SELECT EXISTS(SELECT 1 FROM deletion_job WHERE table_name = ? AND status IN ('QUEUED', 'RUNNING'))
+                    """;
+    // Задачу запускает её владелец, когда держит блокировку таблицы, и только пока она не завершена
+    private static final String CLAIM_JOB_COMMAND =
+            """
+                    UPDATE deletion_job SET status = 'RUNNING', heartbeat_at = now(), updated_at = now()
+                    WHERE job_id = ? AND owner_id = ? AND status IN ('QUEUED', 'RUNNING')
+                    """;
+    private static final String SET_ID_RANGE_COMMAND =
+            """
+                    UPDATE deletion_job SET min_id = ?, max_id = ?, updated_at = now() WHERE job_id = ?
+                    """;
+    private static final String FINISH_JOB_COMMAND =
+            """
+                    UPDATE deletion_job SET status = ?, updated_at = now()
+                    WHERE job_id = ? AND owner_id = ? AND status IN ('QUEUED', 'RUNNING')
+                    """;
+    private static final String FINISH_QUEUED_JOB_COMMAND =
+            """
+                    UPDATE deletion_job SET status = ?, updated_at = now()
+                    WHERE job_id = ? AND owner_id = ? AND status = 'QUEUED'
+                    """;
+    private static final String DELETE_OLD_JOBS_COMMAND =
+            """
+                    DELETE FROM deletion_job
+                    WHERE status NOT IN ('QUEUED', 'RUNNING') AND updated_at < now() - make_interval(days => ?)
+                    """;
+    private static final String SELECT_RANGES_COMMAND =
+            """
+                    SELECT range_from, range_to, next_id FROM deletion_job_range WHERE job_id = ? ORDER BY range_from
+                    """;
+    private static final String INSERT_RANGE_COMMAND =
+            """
+                    INSERT INTO deletion_job_range (job_id, range_from, range_to, next_id) VALUES (?, ?, ?, ?)
+                    """;
+    private static final String UPDATE_RANGE_COMMAND =
+            """
+                    UPDATE deletion_job_range SET next_id = ? WHERE job_id = ? AND range_to = ?
+                    """;
+    private static final String UPDATE_PROGRESS_COMMAND =
+            """
+                    UPDATE deletion_job
+                    SET rows_scanned = rows_scanned + ?, rows_deleted = rows_deleted + ?, chunks = chunks + 1,
+                        heartbeat_at = now(), updated_at = now()
+                    WHERE job_id = ?
+                    """;
+
+    // Завершённые задачи хранятся для истории столько дней
+    private static final int HISTORY_DAYS = 30;
+
+    JdbcTemplate jdbcTemplate;
+
+    // Идентификатор этого экземпляра приложения: владелец его задач в deletion_job
+    UUID instanceId = UUID.randomUUID();
+
+
+    public void createJob(DeletionJob job) {
+        jdbcTemplate.update(INSERT_JOB_COMMAND, job.getId(), job.getTableName(), job.getColumn(),
+                job.getOlderThan(), job.getMode().name(), instanceId);
+    }
+
+    public boolean hasUnfinishedJob(String tableName) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_UNFINISHED_JOB_COMMAND, Boolean.class, tableName));
+    }
+
+    /**
+     * Незавершённые задачи других экземпляров приложения, не подтверждённые владельцем дольше lease,
+     * вместе с прогрессом на момент последней закоммиченной порции. Продолжить задачу можно только
+     * после {@link #takeOverJob}.
+     */
+    public List<DeletionJob> findStaleJobs(Duration lease) {
+        return jdbcTemplate.query(SELECT_STALE_JOBS_COMMAND, (rs, rowNum) -> job(rs), instanceId, seconds(lease));
+    }
+
+    // Незавершённая задача любого экземпляра: через неё пауза и отмена доходят до владельца
+    public Optional<DeletionJob> findUnfinishedJob(UUID jobId) {
+        return jdbcTemplate.query(SELECT_UNFINISHED_JOB_COMMAND, (rs, rowNum) -> job(rs), jobId).stream().findFirst();
+    }
+
+    // Делает этот экземпляр владельцем задачи; false — владелец успел подтвердить задачу или её забрал другой
+    public boolean takeOverJob(UUID jobId, Duration lease) {
+        return jdbcTemplate.update(TAKE_OVER_JOB_COMMAND, instanceId, jobId, seconds(lease)) > 0;
+    }
+
+    /**
+     * Подтверждает владение задачей и применяет к ней паузу или отмену, запрошенную через другой экземпляр.
+     *
+     * @return false — задача завершена или её забрал другой экземпляр
+     */
+    public boolean heartbeat(DeletionJob job) {
+        val requests = jdbcTemplate.queryForList(HEARTBEAT_COMMAND, job.getId(), instanceId);
+        for (val request : requests) {
+            job.applyRequest(requestedState((String) request.get("requested_state")),
+                    ((Number) request.get("request_seq")).longValue());
+        }
+        return !requests.isEmpty();
+    }
+
+    /**
+     * Сохраняет в строке задачи паузу (PAUSED), отмену (CANCELLED) или возобновление (null).
+     *
+     * @return номер запроса; пусто — задача уже завершена
+     */
+    public OptionalLong saveRequest(UUID jobId, DeletionJobStatus requested) {
+        val seq = jdbcTemplate.queryForList(SAVE_REQUEST_COMMAND, Long.class,
+                requested != null ? requested.name() : null, jobId);
+        return seq.isEmpty() ? OptionalLong.empty() : OptionalLong.of(seq.get(0));
+    }
+
+    public boolean claimJob(UUID jobId) {
+        return jdbcTemplate.update(CLAIM_JOB_COMMAND, jobId, instanceId) > 0;
+    }
+
+    public void setIdRange(UUID jobId, IdRange range) {
+        jdbcTemplate.update(SET_ID_RANGE_COMMAND, range.minId(), range.maxId(), jobId);
+    }
+
+    public void finishJob(UUID jobId, DeletionJobStatus status) {
+        jdbcTemplate.update(FINISH_JOB_COMMAND, status.name(), jobId, instanceId);
+        jdbcTemplate.update(DELETE_OLD_JOBS_COMMAND, HISTORY_DAYS);
+    }
+
+    // Завершает задачу в очереди, только если её ещё не забрал другой экземпляр приложения
+    public boolean finishQueuedJob(UUID jobId, DeletionJobStatus status) {
+        return jdbcTemplate.update(FINISH_QUEUED_JOB_COMMAND, status.name(), jobId, instanceId) > 0;
+    }
+
+    /**
+     * Возвращает непройденные части диапазонов задачи. При первом запуске сохраняет ranges
+     * и возвращает их же. Ключ контрольной точки диапазона — его верхняя граница maxId,
+     * она не меняется при продолжении.
+     */
+    @Transactional
+    public List<IdRange> startRanges(UUID jobId, Collection<IdRange> ranges) {
+        val saved = jdbcTemplate.query(SELECT_RANGES_COMMAND,
+                (rs, rowNum) -> new IdRange(rs.getLong("next_id"), rs.getLong("range_to")), jobId);
+        if (!saved.isEmpty()) {
+            return saved.stream()
+                    .filter(range -> range.minId() <= range.maxId())
+                    .toList();
+        }
+        jdbcTemplate.batchUpdate(INSERT_RANGE_COMMAND, ranges.stream()
+                .map(range -> new Object[]{jobId, range.minId(), range.maxId(), range.minId()})
+                .toList());
+        return List.copyOf(ranges);
+    }
+
+    /**
+     * Сдвигает контрольную точку диапазона rangeTo на nextId и добавляет порцию к счётчикам задачи.
+     * Вызывается только в транзакции удаления порции.
+     */
+    @Transactional(propagation = MANDATORY)
+    public void saveProgress(UUID jobId, long rangeTo, long nextId, DeletionChunk chunk) {
+        jdbcTemplate.update(UPDATE_RANGE_COMMAND, nextId, jobId, rangeTo);
+        jdbcTemplate.update(UPDATE_PROGRESS_COMMAND, chunk.matched(), chunk.deleted(), jobId);
+    }
+
+    private static DeletionJob job(ResultSet rs) throws SQLException {
+        val job = new DeletionJob(
+                rs.getObject("job_id", UUID.class),
+                rs.getString("table_name"),
+                rs.getString("column_name"),
+                rs.getTimestamp("older_than").toLocalDateTime(),
+                DeletionMode.valueOf(rs.getString("mode")));
+        job.restore(idRange(rs), rs.getLong("rows_scanned"), rs.getLong("rows_deleted"), rs.getInt("chunks"),
+                rs.getLong("ids_covered"));
+        job.applyRequest(requestedState(rs.getString("requested_state")), rs.getLong("request_seq"));
+        return job;
+    }
+
+    private static DeletionJobStatus requestedState(String requested) {
+        return requested != null ? DeletionJobStatus.valueOf(requested) : null;
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static IdRange idRange(ResultSet rs) throws SQLException {
+        return new IdRange(rs.getObject("min_id", Long.class), rs.getObject("max_id", Long.class));
+    }
+}
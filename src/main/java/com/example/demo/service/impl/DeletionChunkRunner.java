@@ -0,0 +1,120 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.*;
+import org.springframework.stereotype.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+// Выполняет одну порцию удаления: замеряет время, подстраивает размер,
+// притормаживает при перегрузке базы и повторяет упавшие порции
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DeletionChunkRunner {
+
+    // Общий для всех задач лимит одновременных запросов и строк в секунду: задачи и воркеры вместе
+    // не забирают больше соединений, чем выделено удалению из пула Hikari, и делят их между таблицами
+    DeletionBudget budget;
+    DeletionMetrics metrics;
+
+    int batchSize;
+    int minSize;
+    int maxSize;
+    long targetLatency;
+    long backpressureLatency;
+    int maxRetries;
+    long retryBackoff;
+
+    public DeletionChunkRunner(DeletionBudget budget,
+                               DeletionMetrics metrics,
+                               @Value("${deletion.batch-size}") int batchSize,
+                               @Value("${deletion.chunk.min-size}") int minSize,
+                               @Value("${deletion.chunk.max-size}") int maxSize,
+                               @Value("${deletion.chunk.target-latency}") long targetLatency,
+                               @Value("${deletion.chunk.backpressure-latency}") long backpressureLatency,
+                               @Value("${deletion.max-retries}") int maxRetries,
+                               @Value("${deletion.retry-backoff}") long retryBackoff) {
+        this.budget = budget;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatency = targetLatency;
+        this.backpressureLatency = backpressureLatency;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public AdaptiveChunkSizer newSizer() {
+        return new AdaptiveChunkSizer(batchSize, minSize, maxSize, targetLatency);
+    }
+
+    public DeletionChunk run(DeletionJob job, AdaptiveChunkSizer sizer, ChunkAction action) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            val size = sizer.next();
+            val waitStart = System.nanoTime();
+            budget.acquire(job.getTableName());
+            val start = System.nanoTime();
+            metrics.onPermitWait(start - waitStart);
+            try {
+                val chunk = delete(job, action, size);
+                val nanos = System.nanoTime() - start;
+                metrics.onChunk(job.getTableName(), chunk, nanos);
+                val latency = NANOSECONDS.toMillis(nanos);
+                sizer.onChunk(latency);
+
+                // Порция выполнялась слишком долго — даём базе столько же времени на остальную нагрузку
+                if (latency > backpressureLatency) {
+                    sizer.onBackpressure();
+                    log.info("Chunk of {} on {} table took {} ms, backing off", size, job.getTableName(), latency);
+                    Thread.sleep(latency);
+                }
+                // Порции без lastId (отсоединение партиции, подмена таблицы) не построчные
+                // и бюджет строк не расходуют
+                if (chunk.lastId() != null) {
+                    budget.onRows(chunk.matched());
+                }
+                return chunk;
+            } catch (PessimisticLockingFailureException e) {
+                metrics.onChunkFailure(job.getTableName(), e, System.nanoTime() - start);
+                // lock_timeout или deadlock: порцию уменьшаем сильнее, чем по времени
+                sizer.onBackpressure();
+                retryOrThrow(job, size, attempt, e);
+            } catch (DataAccessException e) {
+                metrics.onChunkFailure(job.getTableName(), e, System.nanoTime() - start);
+                retryOrThrow(job, size, attempt, e);
+            }
+        }
+    }
+
+    private DeletionChunk delete(DeletionJob job, ChunkAction action, int size) {
+        metrics.onChunkStart();
+        try {
+            return action.delete(size);
+        } finally {
+            metrics.onChunkEnd();
+            budget.release(job.getTableName());
+        }
+    }
+
+    private void retryOrThrow(DeletionJob job, int size, int attempt, DataAccessException e) throws InterruptedException {
+        job.recordFailure("Chunk of %d, attempt %d: %s"
+                .formatted(size, attempt, e.getMostSpecificCause().getMessage()));
+        if (attempt >= maxRetries) {
+            throw e;
+        }
+        log.warn("Chunk of {} on {} table failed, retrying", size, job.getTableName(), e);
+        Thread.sleep(retryBackoff * attempt);
+    }
+
+    // Удаление порции заданного размера (количество строк или ширина диапазона id)
+    @FunctionalInterface
+    public interface ChunkAction {
+        DeletionChunk delete(int size);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+
+// Стратегия удаления строк задачи в пределах диапазона id
+public interface DeletionEngine {
+
+    /**
+     * Удаляет строки задачи в диапазоне range, обновляя её прогресс после каждой порции.
+     * Возвращает управление, когда диапазон пройден или задача остановлена.
+     */
+    void delete(DeletionJob job, IdRange range) throws InterruptedException;
+}
@@ -0,0 +1,253 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static com.example.demo.model.DeletionJobStatus.*;
+
+// Изменяемое состояние задачи удаления. Счётчики обновляются потоком задачи,
+// снимок и управление (пауза, отмена) доступны из HTTP-потоков
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DeletionJob {
+
+    private static final int MAX_FAILURES = 20;
+
+    @Getter
+    final UUID id;
+    @Getter
+    final String tableName;
+    // Колонка времени, по которой строка считается устаревшей
+    @Getter
+    final String column;
+    @Getter
+    final LocalDateTime olderThan;
+    @Getter
+    final DeletionMode mode;
+    @Getter
+    final Instant createdAt = Instant.now();
+
+    final AtomicLong rowsScanned = new AtomicLong();
+    final AtomicLong rowsDeleted = new AtomicLong();
+    final AtomicLong idsCovered = new AtomicLong();
+    final AtomicInteger chunks = new AtomicInteger();
+    final List<String> failures = new ArrayList<>();
+
+    volatile DeletionJobStatus status = QUEUED;
+    volatile Instant startedAt;
+    volatile Instant finishedAt;
+    volatile String error;
+    volatile Long lastId;
+    volatile long idsTotal;
+    // Один из воркеров упал — остальные прекращают работу после текущей порции
+    volatile boolean aborted;
+    // Диапазон id из контрольной точки задачи, продолженной после перезапуска; null — новая задача
+    @Getter
+    volatile IdRange restoredRange;
+    // Номер последнего запроса паузы или отмены из строки задачи, который уже учтён
+    long requestSeq;
+
+    // Учёт времени без пауз для расчёта скорости и ETA
+    long startNanos;
+    long pausedNanos;
+    long pausedAt;
+    long finishNanos;
+
+    public DeletionJob(String tableName, String column, LocalDateTime olderThan, DeletionMode mode) {
+        this(UUID.randomUUID(), tableName, column, olderThan, mode);
+    }
+
+    public DeletionJob(UUID id, String tableName, String column, LocalDateTime olderThan, DeletionMode mode) {
+        this.id = id;
+        this.tableName = tableName;
+        this.column = column;
+        this.olderThan = olderThan;
+        this.mode = mode;
+    }
+
+    // Прогресс из контрольной точки: задача продолжается, а не начинается заново
+    public void restore(IdRange range, long scanned, long deleted, int chunkCount, long covered) {
+        restoredRange = range.isEmpty() ? null : range;
+        rowsScanned.set(scanned);
+        rowsDeleted.set(deleted);
+        chunks.set(chunkCount);
+        idsCovered.set(covered);
+    }
+
+    public boolean isFinished() {
+        return status.isFinished();
+    }
+
+    // Ждёт возобновления задачи, приостановленной в очереди; false — задачу отменили в очереди
+    public synchronized boolean awaitStart() throws InterruptedException {
+        while (status == PAUSED && startedAt == null) {
+            wait();
+        }
+        return status == QUEUED;
+    }
+
+    // Переводит задачу в работу; false — если задачу успели отменить в очереди.
+    // Пауза, поставленная после awaitStart, тоже дожидается возобновления
+    public synchronized boolean start(IdRange range) throws InterruptedException {
+        if (!awaitStart()) {
+            return false;
+        }
+        idsTotal = range.size();
+        startNanos = System.nanoTime();
+        startedAt = Instant.now();
+        status = RUNNING;
+        return true;
+    }
+
+    // Учитывает закоммиченную порцию; covered — сколько значений id пройдено этой порцией
+    public void onChunk(DeletionChunk chunk, long covered) {
+        rowsScanned.addAndGet(chunk.matched());
+        rowsDeleted.addAndGet(chunk.deleted());
+        idsCovered.addAndGet(covered);
+        chunks.incrementAndGet();
+        if (chunk.lastId() != null) {
+            lastId = chunk.lastId();
+        }
+    }
+
+    public synchronized void recordFailure(String failure) {
+        if (failures.size() == MAX_FAILURES) {
+            failures.remove(0);
+        }
+        failures.add(failure);
+    }
+
+    public synchronized void pause() {
+        if (status != RUNNING && status != QUEUED) {
+            throw new IllegalStateException("Deletion job %s can't be paused in status %s".formatted(id, status));
+        }
+        if (status == RUNNING) {
+            pausedAt = System.nanoTime();
+        }
+        status = PAUSED;
+    }
+
+    public synchronized void resume() {
+        if (status != PAUSED) {
+            throw new IllegalStateException("Deletion job %s is not paused".formatted(id));
+        }
+        if (startedAt == null) {
+            status = QUEUED;
+        } else {
+            pausedNanos += System.nanoTime() - pausedAt;
+            status = RUNNING;
+        }
+        notifyAll();
+    }
+
+    public synchronized void cancel() {
+        if (status.isFinished()) {
+            throw new IllegalStateException("Deletion job %s is already %s".formatted(id, status));
+        }
+        if (startedAt == null) {
+            finish(CANCELLED);
+        } else {
+            // Поток задачи увидит флаг перед следующей порцией
+            status = CANCELLED;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Применяет паузу (PAUSED), отмену (CANCELLED) или возобновление (null), сохранённые в строке задачи.
+     * Запрос с номером не больше уже учтённого пропускается: он устарел или уже применён.
+     */
+    public synchronized void applyRequest(DeletionJobStatus requested, long seq) {
+        if (seq <= requestSeq) {
+            return;
+        }
+        requestSeq = seq;
+        if (status.isFinished()) {
+            return;
+        }
+        if (requested == CANCELLED) {
+            cancel();
+        } else if (requested == PAUSED && status != PAUSED) {
+            pause();
+        } else if (requested == null && status == PAUSED) {
+            resume();
+        }
+    }
+
+    // Запрос с номером seq применён к задаче напрямую
+    public synchronized void acceptRequest(long seq) {
+        requestSeq = Math.max(requestSeq, seq);
+    }
+
+    // Блокирует поток задачи на время паузы; false — задачу отменили или прервали
+    public synchronized boolean awaitRunnable() throws InterruptedException {
+        while (status == PAUSED && !aborted) {
+            wait();
+        }
+        return status == RUNNING && !aborted;
+    }
+
+    public synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    public synchronized void complete() {
+        finish(status == CANCELLED || aborted ? CANCELLED : COMPLETED);
+    }
+
+    public synchronized void markCancelled() {
+        finish(CANCELLED);
+    }
+
+    public synchronized void fail(Throwable t) {
+        error = t.getMessage();
+        finish(FAILED);
+    }
+
+    private void finish(DeletionJobStatus finalStatus) {
+        if (status == PAUSED && startedAt != null) {
+            pausedNanos += System.nanoTime() - pausedAt;
+        }
+        status = finalStatus;
+        finishNanos = System.nanoTime();
+        finishedAt = Instant.now();
+    }
+
+    public synchronized DeletionJobInfo snapshot() {
+        val deleted = rowsDeleted.get();
+        val progress = progress();
+        val activeSeconds = activeNanos() / 1e9;
+        val rowsPerSecond = activeSeconds > 0 ? deleted / activeSeconds : 0;
+
+        Long eta = null;
+        if (status == RUNNING && progress > 0) {
+            eta = (long) (activeSeconds * (1 - progress) / progress);
+        }
+
+        return new DeletionJobInfo(id, tableName, column, olderThan, mode, status, createdAt, startedAt, finishedAt,
+                rowsScanned.get(), deleted, chunks.get(), lastId,
+                progress, rowsPerSecond, eta, List.copyOf(failures), error);
+    }
+
+    private double progress() {
+        if (status == COMPLETED) {
+            return 1;
+        }
+        return idsTotal > 0 ? Math.min(1, (double) idsCovered.get() / idsTotal) : 0;
+    }
+
+    private long activeNanos() {
+        if (startedAt == null) {
+            return 0;
+        }
+        val end = finishedAt != null ? finishNanos
+                : status == PAUSED ? pausedAt
+                : System.nanoTime();
+        return end - startNanos - pausedNanos;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.boot.autoconfigure.jdbc.*;
+import org.springframework.dao.*;
+import org.springframework.jdbc.datasource.*;
+import org.springframework.stereotype.*;
+
+import javax.sql.*;
+import java.sql.*;
+import java.util.*;
+
+// Блокировка таблицы на время задачи удаления: сессионная advisory-блокировка PostgreSQL, видимая
+// всем экземплярам приложения. Соединение отдельное, вне пула Hikari: закрытие завершает сессию,
+// и блокировка снимается вместе с ней, в том числе при падении процесса
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DeletionLocks {
+
+    private static final String TRY_LOCK_COMMAND =
+            """
+                    SELECT pg_try_advisory_lock(?, hashtext(?))
+                    """;
+
+    // Пространство ключей advisory-блокировок удаления, чтобы не пересекаться с другими пользователями
+    private static final int LOCK_CLASS = 0x44454c;
+
+    DataSource dataSource;
+
+    public DeletionLocks(DataSourceProperties properties) {
+        this.dataSource = properties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+    }
+
+    /**
+     * Пытается заблокировать таблицу без ожидания. Пустой результат — таблицу чистит другая задача,
+     * возможно в другом экземпляре приложения. Блокировка снимается закрытием TableLock.
+     */
+    public Optional<TableLock> tryLock(String tableName) {
+        try {
+            val connection = dataSource.getConnection();
+            try (val statement = connection.prepareStatement(TRY_LOCK_COMMAND)) {
+                statement.setInt(1, LOCK_CLASS);
+                statement.setString(2, tableName);
+                try (val rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return Optional.of(new TableLock(connection));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+            connection.close();
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Failed to lock table " + tableName, e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    public static class TableLock implements AutoCloseable {
+
+        private final Connection connection;
+
+        @Override
+        public void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("Failed to release table lock", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import io.micrometer.core.instrument.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.stereotype.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Метрики удаления по таблицам. Время ожидания соединения из пула публикует сам Hikari
+// (hikaricp.connections.acquire), здесь — ожидание лимита удаления и сами порции
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DeletionMetrics {
+
+    MeterRegistry meterRegistry;
+    AtomicInteger activeChunks = new AtomicInteger();
+    Timer permitWait;
+
+    public DeletionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("deletion.chunks.active", activeChunks, AtomicInteger::get)
+                .description("Deletion chunks running right now")
+                .register(meterRegistry);
+        this.permitWait = Timer.builder("deletion.jdbc.permits.wait")
+                .description("Time waiting for a deletion connection permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void onPermitWait(long nanos) {
+        permitWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onChunkStart() {
+        activeChunks.incrementAndGet();
+    }
+
+    public void onChunkEnd() {
+        activeChunks.decrementAndGet();
+    }
+
+    // Скорость удаления по таблице: rate(deletion_rows_total{table="..."}[1m])
+    public void onChunk(String tableName, DeletionChunk chunk, long nanos) {
+        chunkTimer(tableName, "success").record(nanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("deletion.rows", "table", tableName).increment(chunk.deleted());
+    }
+
+    public void onChunkFailure(String tableName, Exception e, long nanos) {
+        chunkTimer(tableName, "failure").record(nanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("deletion.chunk.failures", "table", tableName, "exception", e.getClass().getSimpleName())
+                .increment();
+    }
+
+    public void onJob(DeletionJobInfo job) {
+        meterRegistry.counter("deletion.jobs", "mode", job.mode().name(), "status", job.status().name()).increment();
+    }
+
+    public void onVacuum(String tableName, String outcome, long nanos) {
+        Timer.builder("deletion.vacuum")
+                .description("VACUUM (ANALYZE) duration after deletion")
+                .tags("table", tableName, "outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer chunkTimer(String tableName, String outcome) {
+        return Timer.builder("deletion.chunk")
+                .description("Deletion chunk latency")
+                .tags("table", tableName, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
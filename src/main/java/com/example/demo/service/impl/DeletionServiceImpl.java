@@ -1,65 +1,388 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.model.*;
 import com.example.demo.service.*;
 import lombok.*;
 import lombok.experimental.*;
 import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.*;
+import org.springframework.scheduling.annotation.*;
 import org.springframework.stereotype.*;
-import org.springframework.transaction.annotation.*;
 
 import java.time.*;
+import java.util.*;
 import java.util.concurrent.*;
 
-import static java.lang.Math.*;
-import static java.lang.Runtime.*;
-import static java.util.concurrent.Executors.*;
+import static java.util.Comparator.*;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class DeletionServiceImpl implements DeletionService {
 
-    // Отслеживает, есть ли уже запущенный процесс удаления для конкретной таблицы
-    ConcurrentHashMap<String, Boolean> activeDeleteTasks = new ConcurrentHashMap<>();
+    // Отслеживает, есть ли уже запущенный процесс удаления для конкретной таблицы.
+    // Запись удаляется только после коммита последней порции задачи
+    ConcurrentHashMap<String, UUID> activeDeleteTasks = new ConcurrentHashMap<>();
+
+    // Активные и недавно завершённые задачи
+    ConcurrentHashMap<UUID, DeletionJob> jobs = new ConcurrentHashMap<>();
 
     JdbcConnector jdbcConnector;
+    KeysetDeletionEngine keysetDeletionEngine;
+    ParallelDeletionEngine parallelDeletionEngine;
+    PartitionDeletionEngine partitionDeletionEngine;
+    RewriteDeletionEngine rewriteDeletionEngine;
+    PartitionConnector partitionConnector;
+    StatisticsConnector statisticsConnector;
+    RetentionPolicyConnector retentionPolicyConnector;
+    DeletionCheckpointConnector checkpointConnector;
+    DeletionLocks deletionLocks;
+    TableMaintenanceService maintenanceService;
+    TaskExecutor deletionJobExecutor;
+    DeletionMetrics metrics;
+
+    @NonFinal
+    @Value("${deletion.mode}")
+    DeletionMode defaultMode;
 
+    // Доля удаляемых строк, начиная с которой таблица перезаписывается вместо построчного удаления
     @NonFinal
-    @Value("${deletion.batch-size}")
-    int batchSize;
+    @Value("${deletion.rewrite.threshold}")
+    double rewriteThreshold;
 
+    @NonFinal
+    @Value("${deletion.jobs.history-size}")
+    int historySize;
+
+    // Задачу, которую владелец не подтверждал дольше этого времени, забирает другой экземпляр приложения
+    @NonFinal
+    @Value("${deletion.jobs.lease}")
+    Duration lease;
 
-    @Transactional
-    public String startDeletionProcess(String tableName, LocalDateTime olderThan) {
-        log.info("Start cleaning for {} table by date {}", tableName, olderThan);
-        if (activeDeleteTasks.putIfAbsent(tableName, true) == null) {
-            performOptimizedDeletion(tableName, olderThan);
-            return "Deletion process started for table: " + tableName;
-        } else {
+    public DeletionServiceImpl(JdbcConnector jdbcConnector,
+                               KeysetDeletionEngine keysetDeletionEngine,
+                               ParallelDeletionEngine parallelDeletionEngine,
+                               PartitionDeletionEngine partitionDeletionEngine,
+                               RewriteDeletionEngine rewriteDeletionEngine,
+                               PartitionConnector partitionConnector,
+                               StatisticsConnector statisticsConnector,
+                               RetentionPolicyConnector retentionPolicyConnector,
+                               DeletionCheckpointConnector checkpointConnector,
+                               DeletionLocks deletionLocks,
+                               TableMaintenanceService maintenanceService,
+                               @Qualifier("deletionJobExecutor") TaskExecutor deletionJobExecutor,
+                               DeletionMetrics metrics) {
+        this.jdbcConnector = jdbcConnector;
+        this.keysetDeletionEngine = keysetDeletionEngine;
+        this.parallelDeletionEngine = parallelDeletionEngine;
+        this.partitionDeletionEngine = partitionDeletionEngine;
+        this.rewriteDeletionEngine = rewriteDeletionEngine;
+        this.partitionConnector = partitionConnector;
+        this.statisticsConnector = statisticsConnector;
+        this.retentionPolicyConnector = retentionPolicyConnector;
+        this.checkpointConnector = checkpointConnector;
+        this.deletionLocks = deletionLocks;
+        this.maintenanceService = maintenanceService;
+        this.deletionJobExecutor = deletionJobExecutor;
+        this.metrics = metrics;
+    }
+
+
+    // Не блокирует HTTP-поток: задача выполняется в отдельном пуле.
+    // Имя таблицы попадает в текст SQL, поэтому удаление разрешено только из таблиц с политикой хранения
+    @Override
+    public DeletionJobInfo startDeletionProcess(String tableName, LocalDateTime olderThan, DeletionMode mode) {
+        val column = retentionPolicyConnector.find(SqlIdentifiers.requireValid(tableName))
+                .orElseThrow(() -> new IllegalArgumentException("Table has no retention policy: " + tableName))
+                .column();
+        val partitionColumn = partitionConnector.getPartitionColumn(tableName);
+        val jobMode = mode != null ? mode : chooseMode(tableName, column, partitionColumn, olderThan);
+        // Партиции отсоединяются по своим границам, поэтому колонка партиционирования должна совпадать с колонкой политики
+        if (jobMode == DeletionMode.PARTITION && !partitionColumn.equals(Optional.of(column))) {
+            throw new IllegalArgumentException("Table is not partitioned by %s: %s".formatted(column, tableName));
+        }
+        log.info("Start cleaning for {} table by {} older than {} in {} mode", tableName, column, olderThan, jobMode);
+        val job = new DeletionJob(tableName, column, olderThan, jobMode);
+        if (activeDeleteTasks.putIfAbsent(tableName, job.getId()) != null) {
             throw new IllegalStateException("Deletion process already running for table: " + tableName);
         }
+        // Незавершённая задача в базе — прерванная задача этого или другого экземпляра приложения
+        try {
+            if (checkpointConnector.hasUnfinishedJob(tableName)) {
+                throw new IllegalStateException("Unfinished deletion job exists for table: " + tableName);
+            }
+            checkpointConnector.createJob(job);
+        } catch (RuntimeException e) {
+            activeDeleteTasks.remove(tableName, job.getId());
+            throw e;
+        }
+
+        if (!submitJob(job, false)) {
+            checkpointConnector.finishQueuedJob(job.getId(), DeletionJobStatus.FAILED);
+            throw new IllegalStateException("Deletion job queue is full");
+        }
+        return job.snapshot();
     }
 
-    // Получаем список ID для удаления из таблицы,
-    // делим его на доступное количество потоков
-    // и пачками чистим таблицу в разных потоках
-    public void performOptimizedDeletion(String tableName, LocalDateTime olderThan) {
-        val idsToDelete = jdbcConnector.getIds(tableName, olderThan, batchSize);
-        try {
-            log.info("Load {} ids for deletion, batch size {}", idsToDelete.size(), batchSize);
+    // Ставит в очередь задачи упавших экземпляров приложения: они продолжаются с контрольной точки.
+    // Задачи живых экземпляров, в том числе стоящие у них в очереди или на паузе, не трогаются
+    @Override
+    public List<DeletionJobInfo> resumeInterruptedJobs() {
+        val resumed = new ArrayList<DeletionJobInfo>();
+        for (val job : checkpointConnector.findStaleJobs(lease)) {
+            if (jobs.containsKey(job.getId())
+                    || activeDeleteTasks.putIfAbsent(job.getTableName(), job.getId()) != null) {
+                continue;
+            }
+            if (!checkpointConnector.takeOverJob(job.getId(), lease)) {
+                activeDeleteTasks.remove(job.getTableName(), job.getId());
+                continue;
+            }
+            if (!submitJob(job, true)) {
+                break;
+            }
+            log.info("Resuming deletion job {} on {} table in {} mode", job.getId(), job.getTableName(), job.getMode());
+            resumed.add(job.snapshot());
+        }
+        return resumed;
+    }
 
-            for (int i = 0; i < idsToDelete.size(); i += batchSize) {
-                val ids = idsToDelete.subList(i, min(i + batchSize, idsToDelete.size()));
-                if (ids.isEmpty()) {
-                    continue;
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        resumeInterruptedJobs();
+    }
+
+    // Продлевает владение задачами этого экземпляра и применяет паузу и отмену, запрошенные через другие.
+    // Задачу, которую забрал другой экземпляр, этот прекращает после текущей порции
+    @Scheduled(fixedDelayString = "${deletion.jobs.heartbeat-interval}")
+    public void heartbeat() {
+        for (val job : jobs.values()) {
+            if (job.isFinished()) {
+                continue;
+            }
+            try {
+                if (!checkpointConnector.heartbeat(job) && !job.isFinished()) {
+                    job.abort();
+                    log.warn("Deletion job {} on {} table is taken over by another instance", job.getId(),
+                            job.getTableName());
                 }
-                jdbcConnector.batchDelete(tableName, ids);
+            } catch (RuntimeException e) {
+                log.warn("Failed to renew deletion job {} on {} table", job.getId(), job.getTableName(), e);
             }
+        }
+    }
+
+    @Override
+    public DeletionJobInfo getJob(UUID jobId) {
+        return findJob(jobId).snapshot();
+    }
+
+    @Override
+    public Collection<DeletionJobInfo> getJobs() {
+        return jobs.values().stream()
+                .map(DeletionJob::snapshot)
+                .sorted(comparing(DeletionJobInfo::createdAt).reversed())
+                .toList();
+    }
+
+    @Override
+    public DeletionJobInfo cancelJob(UUID jobId) {
+        val job = findControlledJob(jobId);
+        job.cancel();
+        saveRequest(job, DeletionJobStatus.CANCELLED);
+        log.info("Cancel requested for deletion job {} on {} table", jobId, job.getTableName());
+        return job.snapshot();
+    }
+
+    @Override
+    public DeletionJobInfo pauseJob(UUID jobId) {
+        val job = findControlledJob(jobId);
+        job.pause();
+        saveRequest(job, DeletionJobStatus.PAUSED);
+        log.info("Pause requested for deletion job {} on {} table", jobId, job.getTableName());
+        return job.snapshot();
+    }
+
+    @Override
+    public DeletionJobInfo resumeJob(UUID jobId) {
+        val job = findControlledJob(jobId);
+        job.resume();
+        saveRequest(job, null);
+        log.info("Resumed deletion job {} on {} table", jobId, job.getTableName());
+        return job.snapshot();
+    }
+
+    // Задачу другого экземпляра приложения представляет её копия из базы с уже запрошенной паузой или отменой
+    private DeletionJob findControlledJob(UUID jobId) {
+        val job = jobs.get(jobId);
+        if (job != null) {
+            return job;
+        }
+        return checkpointConnector.findUnfinishedJob(jobId)
+                .orElseThrow(() -> new NoSuchElementException("Deletion job not found: " + jobId));
+    }
+
+    // Запрос сохраняется в строке задачи: экземпляр, который её выполняет, применит его при подтверждении владения
+    private void saveRequest(DeletionJob job, DeletionJobStatus requested) {
+        checkpointConnector.saveRequest(job.getId(), requested).ifPresent(job::acceptRequest);
+    }
 
+    private DeletionJob findJob(UUID jobId) {
+        val job = jobs.get(jobId);
+        if (job == null) {
+            throw new NoSuchElementException("Deletion job not found: " + jobId);
+        }
+        return job;
+    }
+
+    // false — очередь задач заполнена
+    private boolean submitJob(DeletionJob job, boolean resumed) {
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        try {
+            deletionJobExecutor.execute(() -> runJob(job, resumed));
+            return true;
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            activeDeleteTasks.remove(job.getTableName(), job.getId());
+            return false;
+        }
+    }
+
+    // Задача выполняется под блокировкой таблицы, общей для всех экземпляров приложения
+    private void runJob(DeletionJob job, boolean resumed) {
+        try (val lock = deletionLocks.tryLock(job.getTableName()).orElse(null)) {
+            if (lock == null || !checkpointConnector.claimJob(job.getId())) {
+                skipJob(job, resumed);
+                return;
+            }
+            executeJob(job);
+        } catch (RuntimeException e) {
+            job.fail(e);
+            log.error("Deletion job {} on {} table failed", job.getId(), job.getTableName(), e);
         } finally {
-            activeDeleteTasks.remove(tableName);
+            activeDeleteTasks.remove(job.getTableName(), job.getId());
+            metrics.onJob(job.snapshot());
+            maintenanceService.onPurgeFinished(job.snapshot());
+        }
+    }
+
+    // Итоговый статус сохраняется до снятия блокировки, чтобы другой экземпляр не забрал завершённую задачу
+    private void executeJob(DeletionJob job) {
+        prepareMaintenance(job);
+        try {
+            performOptimizedDeletion(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markCancelled();
+            // Контрольная точка остаётся незавершённой: после перезапуска задача продолжится с неё
+            log.warn("Deletion job {} on {} table interrupted", job.getId(), job.getTableName());
+            return;
+        } catch (Exception e) {
+            job.fail(e);
+            log.error("Deletion job {} on {} table failed", job.getId(), job.getTableName(), e);
+        }
+        val status = job.snapshot().status();
+        // Незавершённая задача остаётся в RUNNING и будет продолжена после перезапуска
+        if (!status.isFinished()) {
+            log.warn("Deletion job {} on {} table stopped in status {}", job.getId(), job.getTableName(), status);
+            return;
+        }
+        try {
+            checkpointConnector.finishJob(job.getId(), status);
+        } catch (RuntimeException e) {
+            log.warn("Failed to save status of deletion job {} on {} table", job.getId(), job.getTableName(), e);
+        }
+    }
+
+    // Индекс и статистика только ускоряют удаление, поэтому их ошибка не останавливает задачу
+    private void prepareMaintenance(DeletionJob job) {
+        try {
+            maintenanceService.preparePurge(job.snapshot());
+        } catch (RuntimeException e) {
+            log.warn("Failed to prepare {} table for deletion job {}", job.getTableName(), job.getId(), e);
+        }
+    }
+
+    // Таблицу уже чистит другой экземпляр приложения, либо задачу забрал или завершил другой экземпляр
+    private void skipJob(DeletionJob job, boolean resumed) {
+        if (resumed || !checkpointConnector.finishQueuedJob(job.getId(), DeletionJobStatus.FAILED)) {
+            jobs.remove(job.getId());
+            log.info("Deletion job {} on {} table is handled by another instance", job.getId(), job.getTableName());
+            return;
+        }
+        job.fail(new IllegalStateException("Deletion process already running for table: " + job.getTableName()));
+        log.warn("Deletion job {} on {} table skipped: table is locked by another instance", job.getId(), job.getTableName());
+    }
+
+    // Стратегию удаления выбирает режим задачи, сама задача только отслеживает прогресс
+    public void performOptimizedDeletion(DeletionJob job) throws InterruptedException {
+        val tableName = job.getTableName();
+        // Задача, приостановленная в очереди, берёт диапазон id только после возобновления
+        if (!job.awaitStart()) {
+            return;
+        }
+        // Продолженная задача проходит диапазон id первого запуска: контрольные точки привязаны к нему.
+        // Контрольные точки есть только у порционного удаления, остальные режимы начинают заново
+        val range = job.getRestoredRange() != null && hasCheckpoints(job.getMode())
+                ? job.getRestoredRange()
+                : jdbcConnector.getIdRange(tableName);
+        if (!job.start(range)) {
+            return;
+        }
+        if (!range.isEmpty()) {
+            checkpointConnector.setIdRange(job.getId(), range);
+        }
+
+        if (!range.isEmpty()) {
+            engineFor(job.getMode()).delete(job, range);
+        }
+
+        job.complete();
+        log.info("Finished cleaning for {} table: {}", tableName, job.snapshot());
+    }
+
+    private static boolean hasCheckpoints(DeletionMode mode) {
+        return mode == DeletionMode.SEQUENTIAL || mode == DeletionMode.PARALLEL;
+    }
+
+    // Партиционированные таблицы чистятся удалением партиций, а если по статистике удаляется
+    // большая часть таблицы — выгоднее её перезаписать
+    private DeletionMode chooseMode(String tableName, String column, Optional<String> partitionColumn,
+                                    LocalDateTime olderThan) {
+        if (partitionColumn.isPresent()) {
+            return partitionColumn.get().equals(column) ? DeletionMode.PARTITION : defaultMode;
+        }
+        val share = statisticsConnector.estimateShareOlderThan(tableName, column, olderThan);
+        if (share.isPresent() && share.getAsDouble() >= rewriteThreshold) {
+            log.info("About {}% of {} table is older than {}, rewriting it",
+                    Math.round(share.getAsDouble() * 100), tableName, olderThan);
+            return DeletionMode.REWRITE;
+        }
+        return defaultMode;
+    }
+
+    private DeletionEngine engineFor(DeletionMode mode) {
+        return switch (mode) {
+            case SEQUENTIAL -> keysetDeletionEngine;
+            case PARALLEL -> parallelDeletionEngine;
+            case PARTITION -> partitionDeletionEngine;
+            case REWRITE -> rewriteDeletionEngine;
+        };
+    }
+
+    // Храним не больше historySize завершённых задач
+    private void evictFinishedJobs() {
+        val finished = jobs.values().stream()
+                .filter(DeletionJob::isFinished)
+                .sorted(comparing(DeletionJob::getCreatedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - historySize; i++) {
+            jobs.remove(finished.get(i).getId());
         }
     }
-}
\ No newline at end of file
+}
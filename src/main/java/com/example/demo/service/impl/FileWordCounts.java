@@ -0,0 +1,112 @@
+package com.example.demo.service.impl;
+
+import java.io.*;
+import java.nio.charset.*;
+
+// Сводка слов одного файла для индекса: все слова (minLength = 0) с количеством
+// и числом букв исходного слова, поэтому из одной сводки отвечаем на любой minLength.
+// Слова хранятся в компактных массивах, экземпляр неизменяемый
+public final class FileWordCounts {
+
+    private final long size;
+    private final long modified;
+    private final String[] words;
+    private final int[] letters;
+    private final long[] counts;
+
+    private FileWordCounts(long size, long modified, String[] words, int[] letters, long[] counts) {
+        this.size = size;
+        this.modified = modified;
+        this.words = words;
+        this.letters = letters;
+        this.counts = counts;
+    }
+
+    /**
+     * @param size     размер файла на момент подсчёта
+     * @param modified время изменения файла на момент подсчёта, нс
+     * @param counts   слова файла, посчитанные с minLength = 0
+     */
+    public static FileWordCounts of(long size, long modified, WordCounts counts) {
+        final int distinct = Math.toIntExact(counts.distinct());
+        final String[] words = new String[distinct];
+        final int[] letters = new int[distinct];
+        final long[] values = new long[distinct];
+        final int[] next = new int[1];
+        counts.forEach((word, count) -> {
+            words[next[0]] = word;
+            letters[next[0]] = letterCount(word);
+            values[next[0]++] = count;
+        });
+        return new FileWordCounts(size, modified, words, letters, values);
+    }
+
+    // Длина исходного слова в буквах. Строчная форма может быть длиннее в char
+    // (буквы вне BMP) или в кодовых точках (İ -> i + U+0307), поэтому length() не подходит
+    static int letterCount(String word) {
+        int letters = 0;
+        for (int i = 0; i < word.length(); ) {
+            final int codePoint = word.codePointAt(i);
+            if (Character.getType(codePoint) != Character.NON_SPACING_MARK) {
+                letters++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return letters;
+    }
+
+    public boolean matches(long size, long modified) {
+        return this.size == size && this.modified == modified;
+    }
+
+    public int distinct() {
+        return words.length;
+    }
+
+    /**
+     * Добавляет в словарь слова длиннее minLength букв, как и токенизаторы.
+     *
+     * @return число добавленных слов с учётом повторов
+     */
+    public long addTo(WordCountMap target, int minLength) {
+        long added = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (letters[i] > minLength) {
+                target.add(words[i], counts[i]);
+                added += counts[i];
+            }
+        }
+        return added;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(size);
+        out.writeLong(modified);
+        out.writeInt(words.length);
+        for (int i = 0; i < words.length; i++) {
+            // writeUTF ограничен 64 КБ, а слово может быть длиннее
+            final byte[] bytes = words[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt(letters[i]);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    static FileWordCounts readFrom(DataInput in) throws IOException {
+        final long size = in.readLong();
+        final long modified = in.readLong();
+        final int distinct = in.readInt();
+        final String[] words = new String[distinct];
+        final int[] letters = new int[distinct];
+        final long[] counts = new long[distinct];
+        for (int i = 0; i < distinct; i++) {
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            words[i] = new String(bytes, StandardCharsets.UTF_8);
+            letters[i] = in.readInt();
+            counts[i] = in.readLong();
+        }
+        return new FileWordCounts(size, modified, words, letters, counts);
+    }
+}
@@ -1,23 +1,15 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.model.*;
 import lombok.*;
 import lombok.experimental.*;
 import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.*;
 import org.springframework.stereotype.*;
 import org.springframework.transaction.annotation.*;
 
 import java.time.*;
-import java.util.*;
-import java.util.concurrent.*;
-import java.util.stream.*;
-
-import static java.lang.Math.max;
-import static java.lang.Runtime.getRuntime;
-import static java.util.concurrent.CompletableFuture.allOf;
-import static java.util.concurrent.CompletableFuture.runAsync;
-import static java.util.concurrent.Executors.newWorkStealingPool;
-import static org.springframework.transaction.annotation.Propagation.*;
 
 @Slf4j
 @Service
@@ -25,76 +17,103 @@ import static org.springframework.transaction.annotation.Propagation.*;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class JdbcConnector {
 
-    private static final int DEFAULT_THREAD_POOL_SIZE = max(getRuntime().availableProcessors() - 1, 1);
+    // Keyset-порция: идём по первичному ключу от последнего обработанного id до верхней границы диапазона,
+    // выбираем не более ? подходящих строк и сразу удаляем их в той же команде.
+    // Стоимость порции не зависит от того, сколько строк уже пройдено (в отличие от OFFSET).
+    // id в таблицах SERIAL (int4), драйвер не читает int4 как Long — отсюда ::bigint
+    private static final String DELETE_CHUNK_COMMAND =
+            """
+                    WITH batch AS (
+                        SELECT id FROM %1$s
+                        WHERE id > ? AND id <= ? AND %2$s < ?
+                        ORDER BY id
+                        LIMIT ?
+                    ), deleted AS (
+                        DELETE FROM %1$s t
+                        USING batch
+                        WHERE t.id = batch.id
+                        RETURNING t.id
+                    )
+                    SELECT (SELECT count(*) FROM batch)         AS matched,
+                           (SELECT count(*) FROM deleted)       AS deleted,
+                           (SELECT max(id)::bigint FROM batch)  AS last_id
+                    """;
 
-    private static final String DELETE_COMMAND =
+    // Порция по диапазону id: план не зависит от числа удаляемых строк, текст запроса постоянный
+    private static final String DELETE_RANGE_COMMAND =
             """
                     DELETE FROM %s
-                    WHERE id IN (%s)
+                    WHERE id >= ? AND id < ? AND %s < ?
                     """;
-    private static final String SELECT_COUNT_COMMAND =
+
+    // Ограничиваем ожидание блокировок порцией, чтобы удаление уступало основной нагрузке
+    private static final String SET_LOCK_TIMEOUT_COMMAND =
             """
-                    SELECT COUNT(*) FROM %s
+                    SET LOCAL lock_timeout = '%dms'
                     """;
-    private static final String SELECT_COMMAND =
+
+    private static final String SELECT_ID_RANGE_COMMAND =
             """
-                    SELECT id FROM %s
-                    WHERE col4 < ?
-                    LIMIT %d %s
+                    SELECT min(id)::bigint AS min_id, max(id)::bigint AS max_id FROM %s
                     """;
 
     JdbcTemplate jdbcTemplate;
-    ExecutorService executorService = newWorkStealingPool(DEFAULT_THREAD_POOL_SIZE);
 
+    @NonFinal
+    @Value("${deletion.chunk.lock-timeout}")
+    long lockTimeout;
 
-    @Transactional(propagation = REQUIRES_NEW)
-    public List<Long> getIds(String tableName, LocalDateTime olderThan, int batchSize) {
-        List<Long> allIds = new ArrayList<>();
 
-        // Получим общее количество строк в таблице
-        int totalRows = jdbcTemplate.queryForObject(
-                SELECT_COUNT_COMMAND.formatted(tableName),
-                Integer.class
+    // Границы первичного ключа — берутся из индекса, без полного сканирования
+    public IdRange getIdRange(String tableName) {
+        return jdbcTemplate.queryForObject(
+                SELECT_ID_RANGE_COMMAND.formatted(tableName),
+                (rs, rowNum) -> new IdRange(
+                        rs.getObject("min_id", Long.class),
+                        rs.getObject("max_id", Long.class))
         );
+    }
 
-        val futures = IntStream.iterate(0, i -> i < totalRows - batchSize, i -> i + batchSize)
-                .peek(offset -> log.info("Start loading ids from {} to {}", offset, offset + batchSize))
-                .mapToObj(offset -> runAsync(() ->
-                        allIds.addAll(fetchBatchIds(tableName, olderThan, batchSize, offset + batchSize))))
-                .toList();
 
+    /**
+     * Удаляет следующую порцию строк, у которых column старше olderThan, с id в полуинтервале (afterId, toId].
+     * Порция коммитится в собственной транзакции или вместе с транзакцией вызывающего,
+     * например с контрольной точкой задачи.
+     */
+    @Transactional
+    public DeletionChunk deleteChunk(String tableName, String column, LocalDateTime olderThan, long afterId, long toId,
+                                     int chunkSize) {
+        val command = DELETE_CHUNK_COMMAND.formatted(tableName, column);
+        setLockTimeout();
 
-        allOf(futures.toArray(new CompletableFuture[0]))
-                .join();
+        val chunk = jdbcTemplate.queryForObject(
+                command,
+                (rs, rowNum) -> new DeletionChunk(
+                        rs.getLong("matched"),
+                        rs.getLong("deleted"),
+                        rs.getObject("last_id", Long.class)),
+                afterId, toId, olderThan, chunkSize
+        );
 
-        return allIds;
+        log.debug("Deleted {} of {} matched rows from {} after id {}", chunk.deleted(), chunk.matched(), tableName, afterId);
+        return chunk;
     }
 
-    @Transactional(propagation = REQUIRES_NEW)
-    public void batchDelete(String tableName, List<Long> ids) {
-        val strIds = ids.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(", "));
-        val command = DELETE_COMMAND.formatted(tableName, strIds);
-        log.info("Start cleaning for {} ids", ids.size());
-        executorService.submit(() -> jdbcTemplate.batchUpdate(command));
+    /**
+     * Удаляет строки, у которых column старше olderThan, с id в полуинтервале [fromId, toId).
+     * Порция коммитится в собственной транзакции или вместе с транзакцией вызывающего.
+     */
+    @Transactional
+    public DeletionChunk deleteRange(String tableName, String column, LocalDateTime olderThan, long fromId, long toId) {
+        setLockTimeout();
+        val deleted = jdbcTemplate.update(DELETE_RANGE_COMMAND.formatted(tableName, column), fromId, toId, olderThan);
+
+        log.debug("Deleted {} rows from {} in id range [{}, {})", deleted, tableName, fromId, toId);
+        return new DeletionChunk(deleted, deleted, toId - 1);
     }
 
-    private List<Long> fetchBatchIds(String tableName, LocalDateTime olderThan, int batchSize, int offset) {
-        val offsetStr =  offset > 0 ? "OFFSET %d".formatted(offset) : "";
-        val command = String.format(SELECT_COMMAND, tableName, batchSize, offsetStr);
-        val result = new ArrayList<Long>();
-        log.info("Command {}", command);
-
-        jdbcTemplate.query(
-                command,
-                rs -> {
-                    result.add(rs.getLong("id"));
-                }, olderThan
-        );
-
-        log.info("Resulted load {} ids", result.size());
-        return result;
+    private void setLockTimeout() {
+        jdbcTemplate.execute(SET_LOCK_TIMEOUT_COMMAND.formatted(lockTimeout));
     }
 
 }
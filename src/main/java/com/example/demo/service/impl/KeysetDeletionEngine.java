@@ -0,0 +1,61 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+
+// Последовательное удаление: потоково идём по первичному ключу keyset-порциями (id > последний id)
+// и удаляем каждую порцию сразу после чтения — в памяти не держим ничего, кроме последнего id,
+// а стоимость порции не растёт к концу таблицы
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class KeysetDeletionEngine implements DeletionEngine {
+
+    JdbcConnector jdbcConnector;
+    CheckpointedChunkDeleter chunkDeleter;
+    DeletionCheckpointConnector checkpointConnector;
+    DeletionChunkRunner chunkRunner;
+
+    // Диапазон задачи с контрольной точкой: после перезапуска удаление продолжается с последней порции
+    @Override
+    public void delete(DeletionJob job, IdRange range) throws InterruptedException {
+        for (val remaining : checkpointConnector.startRanges(job.getId(), List.of(range))) {
+            delete(job, remaining, (afterId, size) -> chunkDeleter.deleteChunk(job, remaining.maxId(), afterId, size));
+        }
+    }
+
+    // Удаление из конкретной таблицы задачи, например из одной партиции, без контрольных точек
+    public void delete(DeletionJob job, String tableName, IdRange range) throws InterruptedException {
+        delete(job, range, (afterId, size) ->
+                jdbcConnector.deleteChunk(tableName, job.getColumn(), job.getOlderThan(), afterId, range.maxId(), size));
+    }
+
+    private void delete(DeletionJob job, IdRange range, KeysetChunk keysetChunk) throws InterruptedException {
+        val sizer = chunkRunner.newSizer();
+        long lastId = range.minId() - 1;
+
+        while (job.awaitRunnable()) {
+            val afterId = lastId;
+            val chunk = chunkRunner.run(job, sizer, size -> keysetChunk.delete(afterId, size));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            job.onChunk(chunk, chunk.lastId() - lastId);
+            lastId = chunk.lastId();
+
+            // Порция неполная — после lastId подходящих строк больше нет
+            if (chunk.matched() < sizer.getIssued()) {
+                break;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface KeysetChunk {
+        DeletionChunk delete(long afterId, int size);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.*;
+import org.springframework.stereotype.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import static java.lang.Math.*;
+import static java.util.concurrent.CompletableFuture.*;
+
+// Параллельное удаление: пространство id делится на непересекающиеся диапазоны,
+// воркеры разбирают их из общей очереди и удаляют порциями по условию на диапазон id
+// (без списков id в тексте запроса). Ширина порции подбирается под целевое время
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ParallelDeletionEngine implements DeletionEngine {
+
+    CheckpointedChunkDeleter chunkDeleter;
+    DeletionCheckpointConnector checkpointConnector;
+    DeletionChunkRunner chunkRunner;
+    ThreadPoolTaskExecutor deletionWorkerExecutor;
+
+    // Диапазонов больше, чем воркеров, чтобы неравномерные по плотности куски не простаивали пул
+    @NonFinal
+    @Value("${deletion.parallel.ranges-per-worker}")
+    int rangesPerWorker;
+
+    public ParallelDeletionEngine(CheckpointedChunkDeleter chunkDeleter,
+                                  DeletionCheckpointConnector checkpointConnector,
+                                  DeletionChunkRunner chunkRunner,
+                                  @Qualifier("deletionWorkerExecutor") ThreadPoolTaskExecutor deletionWorkerExecutor) {
+        this.chunkDeleter = chunkDeleter;
+        this.checkpointConnector = checkpointConnector;
+        this.chunkRunner = chunkRunner;
+        this.deletionWorkerExecutor = deletionWorkerExecutor;
+    }
+
+    @Override
+    public void delete(DeletionJob job, IdRange range) throws InterruptedException {
+        val workers = deletionWorkerExecutor.getMaxPoolSize();
+        // Продолженная задача получает только непройденные части диапазонов первого запуска
+        val ranges = new ConcurrentLinkedQueue<>(
+                checkpointConnector.startRanges(job.getId(), splitRange(range, workers * rangesPerWorker)));
+        log.info("Split {} table into {} id ranges for {} workers", job.getTableName(), ranges.size(), workers);
+
+        val futures = IntStream.range(0, min(workers, ranges.size()))
+                .mapToObj(i -> runAsync(() -> runWorker(job, ranges), deletionWorkerExecutor))
+                .toList();
+
+        try {
+            // allOf завершается только после всех воркеров, поэтому таблица остаётся занятой до последнего коммита
+            allOf(futures.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            job.abort();
+            throw e;
+        }
+    }
+
+    private void runWorker(DeletionJob job, Queue<IdRange> ranges) {
+        val sizer = chunkRunner.newSizer();
+        try {
+            IdRange range;
+            while ((range = ranges.poll()) != null) {
+                if (!deleteRange(job, range, sizer)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.abort();
+        } catch (RuntimeException e) {
+            // Останавливаем остальных воркеров, ошибку отдаём задаче
+            job.abort();
+            throw e;
+        }
+    }
+
+    // false — задачу остановили
+    private boolean deleteRange(DeletionJob job, IdRange range, AdaptiveChunkSizer sizer) throws InterruptedException {
+        long from = range.minId();
+        while (from <= range.maxId()) {
+            if (!job.awaitRunnable()) {
+                return false;
+            }
+            val chunkFrom = from;
+            val chunk = chunkRunner.run(job, sizer, span ->
+                    chunkDeleter.deleteRange(job, range.maxId(), chunkFrom, min(range.maxId() + 1, chunkFrom + span)));
+            job.onChunk(chunk, chunk.lastId() + 1 - from);
+            from = chunk.lastId() + 1;
+        }
+        return true;
+    }
+
+    private static List<IdRange> splitRange(IdRange range, int parts) {
+        val ranges = new ArrayList<IdRange>();
+        val step = max(1, (range.size() + parts - 1) / parts);
+        for (long from = range.minId(); from <= range.maxId(); from += step) {
+            ranges.add(new IdRange(from, min(range.maxId(), from + step - 1)));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.service.impl;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+// Частичные сводки Space-Saving одного приближённого подсчёта: по сводке на поток,
+// память ограничена capacity счётчиков на поток независимо от числа различных слов
+public class PartialTopWords {
+
+    private final int capacity;
+    private final ConcurrentHashMap<Thread, SpaceSavingCounter> partials = new ConcurrentHashMap<>();
+
+    public PartialTopWords(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Сводка текущего потока. Берётся один раз на файл или диапазон, а не на слово
+    public SpaceSavingCounter local() {
+        return partials.computeIfAbsent(Thread.currentThread(), thread -> new SpaceSavingCounter(capacity));
+    }
+
+    // Изменение сводки потока под её блокировкой, см. PartialWordCounts.update
+    public void update(Consumer<SpaceSavingCounter> action) {
+        final SpaceSavingCounter local = local();
+        synchronized (local) {
+            action.accept(local);
+        }
+    }
+
+    // Промежуточный итог по частичным сводкам, изменяемым только через update
+    public SpaceSavingCounter snapshot() {
+        final SpaceSavingCounter merged = new SpaceSavingCounter(capacity);
+        for (final SpaceSavingCounter partial : partials.values()) {
+            synchronized (partial) {
+                merged.addAll(partial);
+            }
+        }
+        return merged;
+    }
+
+    // Сливает частичные сводки. Вызывается после завершения всех задач подсчёта
+    public SpaceSavingCounter merge() {
+        final SpaceSavingCounter merged = new SpaceSavingCounter(capacity);
+        partials.values().forEach(merged::addAll);
+        partials.clear();
+        return merged;
+    }
+}
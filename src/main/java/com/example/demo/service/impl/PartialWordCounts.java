@@ -0,0 +1,78 @@
+package com.example.demo.service.impl;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+// Частичные словари одного подсчёта: каждый поток считает в собственный WordCountMap
+// без синхронизации, после завершения всех задач словари сливаются параллельно:
+// каждая подзадача собирает свою часть слов (по хэшу) из всех частичных словарей
+public class PartialWordCounts {
+
+    private final ConcurrentHashMap<Thread, WordCountMap> partials = new ConcurrentHashMap<>();
+
+    // Словарь текущего потока. Берётся один раз на файл или диапазон, а не на слово
+    public WordCountMap local() {
+        return partials.computeIfAbsent(Thread.currentThread(), thread -> new WordCountMap());
+    }
+
+    // Изменение словаря потока под его блокировкой: при потоковом подсчёте снимок
+    // читает частичные словари, пока остальные файлы ещё считаются
+    public void update(Consumer<WordCountMap> action) {
+        final WordCountMap local = local();
+        synchronized (local) {
+            action.accept(local);
+        }
+    }
+
+    // Промежуточный итог по частичным словарям, изменяемым только через update
+    public WordCounts snapshot() {
+        final WordCountMap merged = new WordCountMap();
+        for (final WordCountMap map : partials.values()) {
+            synchronized (map) {
+                merged.addAll(map);
+            }
+        }
+        return new WordCounts(merged);
+    }
+
+    /**
+     * Сливает частичные словари. Вызывается после завершения всех задач подсчёта.
+     *
+     * @param pool пул, в котором выполняется слияние частей
+     */
+    public WordCounts merge(ForkJoinPool pool) {
+        final List<WordCountMap> maps = List.copyOf(partials.values());
+        partials.clear();
+        if (maps.isEmpty()) {
+            return new WordCounts(new WordCountMap());
+        }
+        if (maps.size() == 1) {
+            return new WordCounts(maps.get(0));
+        }
+
+        final int parts = Integer.highestOneBit(Math.max(1, pool.getParallelism())) << 1;
+        final int largest = maps.stream().mapToInt(WordCountMap::size).max().orElse(0);
+        final List<ForkJoinTask<WordCountMap>> tasks = IntStream.range(0, parts)
+                .mapToObj(part -> pool.submit(() -> mergePart(maps, part, parts, largest / parts)))
+                .toList();
+
+        return new WordCounts(tasks.stream()
+                .map(ForkJoinTask::join)
+                .toArray(WordCountMap[]::new));
+    }
+
+    private static WordCountMap mergePart(List<WordCountMap> maps, int part, int parts, int expectedSize) {
+        final WordCountMap merged = new WordCountMap(expectedSize);
+        for (final WordCountMap map : maps) {
+            for (int slot = 0; slot < map.capacity(); slot++) {
+                final String key = map.keyAt(slot);
+                if (key != null && WordCounts.partitionOf(map.hashAt(slot), parts) == part) {
+                    merged.add(key, map.hashAt(slot), map.countAt(slot));
+                }
+            }
+        }
+        return merged;
+    }
+}
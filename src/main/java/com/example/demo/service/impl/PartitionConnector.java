@@ -0,0 +1,142 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.regex.*;
+
+import static java.time.format.DateTimeFormatter.*;
+import static org.springframework.transaction.annotation.Propagation.*;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PartitionConnector {
+
+    private static final String IS_PARTITIONED_COMMAND =
+            """
+                    SELECT EXISTS(SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))
+                    """;
+    // Колонка партиционирования: для RANGE-партиционирования по одной колонке это первый элемент partattrs
+    private static final String SELECT_PARTITION_COLUMN_COMMAND =
+            """
+                    SELECT a.attname
+                    FROM pg_partitioned_table p
+                    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+                    WHERE p.partrelid = to_regclass(?)
+                    """;
+    private static final String SELECT_PARTITIONS_COMMAND =
+            """
+                    SELECT c.relname                            AS name,
+                           pg_get_expr(c.relpartbound, c.oid)   AS bound,
+                           greatest(c.reltuples, 0)::bigint     AS estimated_rows
+                    FROM pg_inherits i
+                    JOIN pg_class c ON c.oid = i.inhrelid
+                    WHERE i.inhparent = ?::regclass
+                    """;
+    private static final String PARTITION_TABLE_COMMAND =
+            """
+                    SELECT partition_by_range(?, ?, make_interval(secs => ?))
+                    """;
+    private static final String CREATE_PARTITIONS_COMMAND =
+            """
+                    SELECT create_range_partitions(?, make_interval(secs => ?), ?, ?)
+                    """;
+    private static final String SET_LOCK_TIMEOUT_COMMAND =
+            """
+                    SET LOCAL lock_timeout = '%dms'
+                    """;
+    private static final String DETACH_PARTITION_COMMAND =
+            """
+                    ALTER TABLE %s DETACH PARTITION %s
+                    """;
+    private static final String DROP_TABLE_COMMAND =
+            """
+                    DROP TABLE %s
+                    """;
+
+    // FOR VALUES FROM ('2024-01-01 00:00:00') TO ('2024-01-02 00:00:00'), границы могут быть MINVALUE/MAXVALUE
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\((.+)\\) TO \\((.+)\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = new DateTimeFormatterBuilder()
+            .append(ISO_LOCAL_DATE)
+            .appendLiteral(' ')
+            .append(ISO_LOCAL_TIME)
+            .toFormatter();
+
+    JdbcTemplate jdbcTemplate;
+
+    @NonFinal
+    @Value("${deletion.chunk.lock-timeout}")
+    long lockTimeout;
+
+
+    public boolean isPartitioned(String tableName) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_COMMAND, Boolean.class, tableName));
+    }
+
+    // Пустой результат — таблица не партиционирована
+    public Optional<String> getPartitionColumn(String tableName) {
+        return jdbcTemplate.queryForList(SELECT_PARTITION_COLUMN_COMMAND, String.class, tableName).stream().findFirst();
+    }
+
+    public List<PartitionInfo> getPartitions(String tableName) {
+        return jdbcTemplate.query(
+                SELECT_PARTITIONS_COMMAND,
+                (rs, rowNum) -> toPartition(rs.getString("name"), rs.getString("bound"), rs.getLong("estimated_rows")),
+                tableName
+        );
+    }
+
+    public int partitionTable(String tableName, String column, Duration step) {
+        log.info("Converting {} table into range partitions on {} with step {}", tableName, column, step);
+        return jdbcTemplate.queryForObject(PARTITION_TABLE_COMMAND, Integer.class,
+                tableName, column, step.toSeconds());
+    }
+
+    public int createPartitions(String tableName, Duration step, LocalDateTime since, LocalDateTime until) {
+        return jdbcTemplate.queryForObject(CREATE_PARTITIONS_COMMAND, Integer.class,
+                tableName, step.toSeconds(), since, until);
+    }
+
+    /**
+     * Отсоединяет партицию от таблицы и, если drop, удаляет её. Блокировка родительской таблицы
+     * короткая и ограничена lock_timeout; построчной записи в WAL нет.
+     */
+    @Transactional(propagation = REQUIRES_NEW)
+    public void detachPartition(String tableName, String partitionName, boolean drop) {
+        jdbcTemplate.execute(SET_LOCK_TIMEOUT_COMMAND.formatted(lockTimeout));
+        jdbcTemplate.execute(DETACH_PARTITION_COMMAND.formatted(tableName, partitionName));
+        if (drop) {
+            jdbcTemplate.execute(DROP_TABLE_COMMAND.formatted(partitionName));
+        }
+        log.info("Partition {} {} from {} table", partitionName, drop ? "dropped" : "detached", tableName);
+    }
+
+    private static PartitionInfo toPartition(String name, String bound, long estimatedRows) {
+        if ("DEFAULT".equals(bound)) {
+            return new PartitionInfo(name, null, null, true, estimatedRows);
+        }
+        val matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unsupported partition bound of %s: %s".formatted(name, bound));
+        }
+        return new PartitionInfo(name, parseBound(matcher.group(1)), parseBound(matcher.group(2)), false, estimatedRows);
+    }
+
+    private static LocalDateTime parseBound(String value) {
+        if ("MINVALUE".equals(value) || "MAXVALUE".equals(value)) {
+            return null;
+        }
+        return LocalDateTime.parse(value.replace("'", ""), BOUND_FORMAT);
+    }
+}
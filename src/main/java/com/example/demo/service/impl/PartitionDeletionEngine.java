@@ -0,0 +1,59 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+// Удаление в партиционированной таблице: партиции целиком старше границы отсоединяются и удаляются
+// за O(1) без построчного WAL и мёртвых строк. Граничная партиция и партиция по умолчанию
+// чистятся обычными keyset-порциями
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PartitionDeletionEngine implements DeletionEngine {
+
+    JdbcConnector jdbcConnector;
+    PartitionConnector partitionConnector;
+    PartitionService partitionService;
+    KeysetDeletionEngine keysetDeletionEngine;
+    DeletionChunkRunner chunkRunner;
+
+    // false — партиции только отсоединяются и остаются отдельными таблицами (например, для архива)
+    @NonFinal
+    @Value("${deletion.partitions.drop}")
+    boolean drop;
+
+    @Override
+    public void delete(DeletionJob job, IdRange range) throws InterruptedException {
+        val tableName = job.getTableName();
+        val cutoff = job.getOlderThan();
+        partitionService.createFuturePartitions(tableName);
+
+        for (val partition : partitionService.getPartitions(tableName)) {
+            if (!job.awaitRunnable()) {
+                return;
+            }
+            if (partition.isOlderThan(cutoff)) {
+                // Точное число строк не считаем — это потребовало бы полного сканирования партиции.
+                // Повторы и паузы при ожидании блокировки родительской таблицы — как у обычной порции
+                val rows = partition.estimatedRows();
+                val chunk = chunkRunner.run(job, chunkRunner.newSizer(), size -> {
+                    partitionConnector.detachPartition(tableName, partition.name(), drop);
+                    return new DeletionChunk(rows, rows, null);
+                });
+                job.onChunk(chunk, 0);
+            } else if (partition.overlaps(cutoff)) {
+                val partitionRange = jdbcConnector.getIdRange(partition.name());
+                if (!partitionRange.isEmpty()) {
+                    log.info("Boundary partition {} of {} table is cleaned by chunks", partition.name(), tableName);
+                    keysetDeletionEngine.delete(job, partition.name(), partitionRange);
+                }
+            }
+        }
+    }
+}
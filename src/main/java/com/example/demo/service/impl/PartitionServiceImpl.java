@@ -0,0 +1,74 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+
+import static java.util.Comparator.*;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PartitionServiceImpl implements PartitionService {
+
+    PartitionConnector partitionConnector;
+    RetentionPolicyConnector retentionPolicyConnector;
+
+    // Сколько партиций держать наперёд от текущего момента
+    @NonFinal
+    @Value("${deletion.partitions.premake}")
+    int premake;
+
+
+    @Override
+    public List<PartitionInfo> getPartitions(String tableName) {
+        SqlIdentifiers.requireValid(tableName);
+        return partitionConnector.getPartitions(tableName).stream()
+                .sorted(comparing(PartitionInfo::from, nullsFirst(naturalOrder())))
+                .toList();
+    }
+
+    @Override
+    public List<PartitionInfo> partitionTable(String tableName, Duration step) {
+        if (step.isNegative() || step.toSeconds() < 1) {
+            throw new IllegalArgumentException("Partition step must be at least one second: " + step);
+        }
+        // Партиционировать можно только таблицу с политикой хранения — по её колонке времени
+        val column = retentionPolicyConnector.find(SqlIdentifiers.requireValid(tableName))
+                .orElseThrow(() -> new IllegalArgumentException("Table has no retention policy: " + tableName))
+                .column();
+        if (partitionConnector.isPartitioned(tableName)) {
+            throw new IllegalStateException("Table is already partitioned: " + tableName);
+        }
+
+        val created = partitionConnector.partitionTable(tableName, column, step);
+        log.info("Table {} converted into {} partitions", tableName, created);
+        createFuturePartitions(tableName);
+        return getPartitions(tableName);
+    }
+
+    @Override
+    public void createFuturePartitions(String tableName) {
+        val last = getPartitions(tableName).stream()
+                .filter(p -> !p.isDefault() && p.from() != null && p.to() != null)
+                .reduce((first, second) -> second);
+        if (last.isEmpty()) {
+            return;
+        }
+
+        val step = Duration.between(last.get().from(), last.get().to());
+        val until = LocalDateTime.now().plus(step.multipliedBy(premake));
+        if (last.get().to().isBefore(until)) {
+            val created = partitionConnector.createPartitions(tableName, step, last.get().to(), until);
+            log.info("Created {} future partitions for {} table", created, tableName);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+
+import java.nio.charset.*;
+import java.util.*;
+
+// Курсор страницы рейтинга: снимок рейтинга, место и слово последней выданной строки.
+// Следующая страница — продолжение того же снимка с места после курсора,
+// поэтому страницы не пересекаются, даже если файлы папки изменились между запросами
+record RankCursor(UUID snapshot, int position, String word) {
+
+    static RankCursor after(UUID snapshot, WordFrequency last) {
+        return new RankCursor(snapshot, last.position(), last.word());
+    }
+
+    static RankCursor decode(String cursor) {
+        try {
+            val parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            return new RankCursor(UUID.fromString(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((snapshot + ":" + position + ":" + word).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+
+import java.util.*;
+
+// Частоты слов с рейтингом, который поддерживается при каждом изменении: изменение частоты
+// слова — O(log n), топ-N — первые N элементов упорядоченного множества без перебора словаря.
+// Частоты могут уменьшаться, слово с нулевой частотой удаляется. Экземпляр не потокобезопасен
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class RankedWordCounts {
+
+    Map<String, Long> counts = new HashMap<>();
+    // По убыванию частоты, при равной — по алфавиту, как в WordCounts.top
+    NavigableSet<Rank> ranking = new TreeSet<>();
+    @NonFinal
+    long total;
+
+    void addAll(WordCountMap delta) {
+        delta.forEach(this::add);
+    }
+
+    void add(String word, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        val previous = counts.getOrDefault(word, 0L);
+        val updated = previous + delta;
+        if (previous > 0) {
+            ranking.remove(new Rank(word, previous));
+        }
+        if (updated > 0) {
+            counts.put(word, updated);
+            ranking.add(new Rank(word, updated));
+        } else {
+            counts.remove(word);
+        }
+        total += delta;
+    }
+
+    long total() {
+        return total;
+    }
+
+    int distinct() {
+        return counts.size();
+    }
+
+    List<WordFrequency> top(int topCount) {
+        val top = new ArrayList<WordFrequency>(Math.min(topCount, counts.size()));
+        val ranks = ranking.iterator();
+        while (top.size() < topCount && ranks.hasNext()) {
+            val rank = ranks.next();
+            top.add(new WordFrequency(rank.word(), rank.count(), top.size() + 1));
+        }
+        return top;
+    }
+
+    private record Rank(String word, long count) implements Comparable<Rank> {
+
+        @Override
+        public int compareTo(Rank other) {
+            return count != other.count ? Long.compare(other.count, count) : word.compareTo(other.word);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+
+import java.util.*;
+
+// Точный рейтинг папки, посчитанный один раз для постраничной выдачи: страницы — срезы
+// списка по месту из курсора, без повторного обхода папки и слияния словарей
+record RankingSnapshot(UUID id, List<WordFrequency> words) {
+
+    static RankingSnapshot of(WordCounts counts) {
+        return new RankingSnapshot(UUID.randomUUID(), counts.top((int) Math.min(Integer.MAX_VALUE, counts.distinct())));
+    }
+
+    // limit слов после курсора, null — с начала рейтинга
+    List<WordFrequency> page(int limit, RankCursor after) {
+        val from = after == null ? 0 : after.position();
+        if (after != null && (!after.snapshot().equals(id) || from < 1 || from > words.size()
+                || !words.get(from - 1).word().equals(after.word()))) {
+            throw new IllegalArgumentException("Cursor does not belong to the ranking: " + after.encode());
+        }
+        return words.subList(from, (int) Math.min(words.size(), (long) from + limit));
+    }
+
+    // Курсор следующей страницы, null — страница последняя
+    String nextCursor(List<WordFrequency> page) {
+        if (page.isEmpty() || page.get(page.size() - 1).position() >= words.size()) {
+            return null;
+        }
+        return RankCursor.after(id, page.get(page.size() - 1)).encode();
+    }
+
+    int weight() {
+        return words.size() + 1;
+    }
+}
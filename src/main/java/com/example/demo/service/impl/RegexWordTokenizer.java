@@ -0,0 +1,83 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+
+// Исходный токенизатор: построчное чтение и регулярное выражение.
+// Оставлен как эталон поведения и для сравнения производительности
+@Component
+public class RegexWordTokenizer implements WordTokenizer {
+
+    // \\p{L}{%d,} - последовательность букв, где %d длина слова. Границы слова (\\b) проверяются
+    // отдельно: начиная с Java 19 \\b считает словесными только ASCII-символы и не видит
+    // границ кириллических слов, поэтому правила \\b из Java 17 повторены в isWordBefore/isWordAt
+    private static final String PATTERN_BASE = "\\p{L}{%d,}";
+
+    private final ConcurrentHashMap<Integer, Pattern> patterns = new ConcurrentHashMap<>();
+
+    @Override
+    public void tokenize(Path file, int minLength, WordConsumer consumer) throws IOException {
+        val pattern = patterns.computeIfAbsent(minLength, length -> Pattern.compile(PATTERN_BASE.formatted(length + 1)));
+        try (val lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> extractWords(line, pattern, consumer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static void extractWords(String input, Pattern pattern, WordConsumer consumer) {
+        val matcher = pattern.matcher(input);
+
+        // Внутри серии букв границы нет, поэтому совпадение — вся серия, и оно либо окружено
+        // границами целиком, либо не подходит ни в каком своём начале или конце
+        while (matcher.find()) {
+            if (isWordBefore(input, matcher.start()) || isWordAt(input, matcher.end())) {
+                continue;
+            }
+            val word = matcher.group().toLowerCase();
+            consumer.accept(word.toCharArray(), word.length());
+        }
+    }
+
+    // Символ слова для \\b: буква, цифра или '_'. Диакритика (NON_SPACING_MARK) словесная,
+    // если перед ней через другую диакритику стоит буква или цифра
+    private static boolean isWord(int ch) {
+        return ch == '_' || Character.isLetterOrDigit(ch);
+    }
+
+    private static boolean isWordBefore(String input, int index) {
+        if (index == 0) {
+            return false;
+        }
+        val ch = input.codePointBefore(index);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(input, index - 1));
+    }
+
+    private static boolean isWordAt(String input, int index) {
+        if (index >= input.length()) {
+            return false;
+        }
+        val ch = input.codePointAt(index);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(input, index));
+    }
+
+    // Как в java.util.regex: идём назад по char, поэтому буква вне BMP основой не считается
+    private static boolean hasBaseCharacter(String input, int index) {
+        for (int i = index; i >= 0; i--) {
+            val ch = input.codePointAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                return true;
+            }
+            if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RetentionPolicyConnector {
+
+    private static final String SELECT_POLICIES_COMMAND =
+            """
+                    SELECT table_name, column_name, extract(epoch FROM max_age)::bigint AS max_age_seconds,
+                           schedule, mode, enabled, last_run_at, next_run_at, last_job_id
+                    FROM retention_policy
+                    """;
+    private static final String SELECT_POLICY_COMMAND = SELECT_POLICIES_COMMAND + " WHERE table_name = ?";
+    private static final String SELECT_DUE_POLICIES_COMMAND = SELECT_POLICIES_COMMAND +
+            " WHERE enabled AND (next_run_at IS NULL OR next_run_at <= ?) ORDER BY next_run_at NULLS FIRST";
+    private static final String UPSERT_POLICY_COMMAND =
+            """
+                    INSERT INTO retention_policy (table_name, column_name, max_age, schedule, mode, enabled, next_run_at)
+                    VALUES (?, ?, make_interval(secs => ?), ?, ?, ?, ?)
+                    ON CONFLICT (table_name) DO UPDATE
+                    SET column_name = excluded.column_name,
+                        max_age     = excluded.max_age,
+                        schedule    = excluded.schedule,
+                        mode        = excluded.mode,
+                        enabled     = excluded.enabled,
+                        next_run_at = excluded.next_run_at
+                    """;
+    private static final String DELETE_POLICY_COMMAND =
+            """
+                    DELETE FROM retention_policy WHERE table_name = ?
+                    """;
+    // Запуск забирает тот, кто первым сдвинул next_run_at: несколько экземпляров приложения
+    // не запускают одну политику дважды
+    private static final String CLAIM_POLICY_COMMAND =
+            """
+                    UPDATE retention_policy
+                    SET next_run_at = ?, last_run_at = ?
+                    WHERE table_name = ? AND enabled AND next_run_at IS NOT DISTINCT FROM ?
+                    """;
+    private static final String SET_LAST_JOB_COMMAND =
+            """
+                    UPDATE retention_policy SET last_job_id = ? WHERE table_name = ?
+                    """;
+    private static final String SELECT_COLUMN_TYPE_COMMAND =
+            """
+                    SELECT data_type FROM information_schema.columns
+                    WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?
+                    """;
+
+    JdbcTemplate jdbcTemplate;
+
+
+    public List<RetentionPolicy> findAll() {
+        return jdbcTemplate.query(SELECT_POLICIES_COMMAND + " ORDER BY table_name", this::toPolicy);
+    }
+
+    public Optional<RetentionPolicy> find(String tableName) {
+        return jdbcTemplate.query(SELECT_POLICY_COMMAND, this::toPolicy, tableName).stream().findFirst();
+    }
+
+    public List<RetentionPolicy> findDue(Instant now) {
+        return jdbcTemplate.query(SELECT_DUE_POLICIES_COMMAND, this::toPolicy, toTimestamp(now));
+    }
+
+    public void save(RetentionPolicy policy) {
+        jdbcTemplate.update(UPSERT_POLICY_COMMAND,
+                policy.tableName(), policy.column(), policy.maxAge().toSeconds(), policy.schedule(),
+                policy.mode() == null ? null : policy.mode().name(), policy.enabled(), toTimestamp(policy.nextRunAt()));
+    }
+
+    public boolean delete(String tableName) {
+        return jdbcTemplate.update(DELETE_POLICY_COMMAND, tableName) > 0;
+    }
+
+    // true — запуск политики достался этому вызову
+    public boolean claim(RetentionPolicy policy, Instant now, Instant nextRunAt) {
+        return jdbcTemplate.update(CLAIM_POLICY_COMMAND,
+                toTimestamp(nextRunAt), toTimestamp(now), policy.tableName(), toTimestamp(policy.nextRunAt())) > 0;
+    }
+
+    public void setLastJob(String tableName, UUID jobId) {
+        jdbcTemplate.update(SET_LAST_JOB_COMMAND, jobId, tableName);
+    }
+
+    // Тип колонки из information_schema, пустой результат — таблицы или колонки нет
+    public Optional<String> getColumnType(String tableName, String column) {
+        return jdbcTemplate.queryForList(SELECT_COLUMN_TYPE_COMMAND, String.class, tableName, column).stream().findFirst();
+    }
+
+    private RetentionPolicy toPolicy(ResultSet rs, int rowNum) throws SQLException {
+        val mode = rs.getString("mode");
+        return new RetentionPolicy(
+                rs.getString("table_name"),
+                rs.getString("column_name"),
+                Duration.ofSeconds(rs.getLong("max_age_seconds")),
+                rs.getString("schedule"),
+                mode == null ? null : DeletionMode.valueOf(mode),
+                rs.getBoolean("enabled"),
+                toInstant(rs.getTimestamp("last_run_at")),
+                toInstant(rs.getTimestamp("next_run_at")),
+                rs.getObject("last_job_id", UUID.class));
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
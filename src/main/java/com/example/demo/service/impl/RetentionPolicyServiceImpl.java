@@ -0,0 +1,79 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.scheduling.support.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RetentionPolicyServiceImpl implements RetentionPolicyService {
+
+    private static final String DEFAULT_COLUMN = "col4";
+    private static final String DEFAULT_SCHEDULE = "0 0 3 * * *";
+    // Удаление сравнивает колонку с моментом времени, поэтому подходят только даты и время
+    private static final Set<String> TIME_TYPES = Set.of(
+            "timestamp without time zone", "timestamp with time zone", "date");
+
+    RetentionPolicyConnector retentionPolicyConnector;
+
+
+    @Override
+    public List<RetentionPolicy> getPolicies() {
+        return retentionPolicyConnector.findAll();
+    }
+
+    @Override
+    public RetentionPolicy getPolicy(String tableName) {
+        return retentionPolicyConnector.find(tableName)
+                .orElseThrow(() -> new NoSuchElementException("Retention policy not found: " + tableName));
+    }
+
+    @Override
+    public RetentionPolicy savePolicy(String tableName, RetentionPolicyRequest request) {
+        SqlIdentifiers.requireValid(tableName);
+        val column = SqlIdentifiers.requireValid(request.column() != null ? request.column() : DEFAULT_COLUMN);
+        val type = retentionPolicyConnector.getColumnType(tableName, column)
+                .orElseThrow(() -> new IllegalArgumentException("Column %s not found in table %s".formatted(column, tableName)));
+        if (!TIME_TYPES.contains(type)) {
+            throw new IllegalArgumentException("Column %s of table %s has type %s, expected a date or timestamp"
+                    .formatted(column, tableName, type));
+        }
+        if (request.maxAge() == null || request.maxAge().isNegative() || request.maxAge().toSeconds() < 1) {
+            throw new IllegalArgumentException("maxAge must be at least one second: " + request.maxAge());
+        }
+
+        val schedule = request.schedule() != null ? request.schedule() : DEFAULT_SCHEDULE;
+        // CronExpression.parse бросает IllegalArgumentException для некорректного расписания
+        val nextRunAt = nextRun(schedule, Instant.now());
+        val policy = new RetentionPolicy(tableName, column, request.maxAge(), schedule, request.mode(),
+                request.enabled(), null, request.enabled() ? nextRunAt : null, null);
+        retentionPolicyConnector.save(policy);
+        log.info("Saved retention policy for {} table: {}", tableName, policy);
+        return getPolicy(tableName);
+    }
+
+    @Override
+    public void deletePolicy(String tableName) {
+        if (!retentionPolicyConnector.delete(tableName)) {
+            throw new NoSuchElementException("Retention policy not found: " + tableName);
+        }
+        log.info("Deleted retention policy for {} table", tableName);
+    }
+
+    static Instant nextRun(String schedule, Instant after) {
+        val next = CronExpression.parse(schedule).next(after.atZone(ZoneId.systemDefault()));
+        if (next == null) {
+            throw new IllegalArgumentException("Schedule never fires: " + schedule);
+        }
+        return next.toInstant();
+    }
+}
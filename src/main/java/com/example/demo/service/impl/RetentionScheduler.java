@@ -0,0 +1,55 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+
+// Запускает задачи удаления по наступившим политикам хранения. Задачи выполняются в общем
+// пуле удаления (deletion.jobs.max-parallel), соединения и строки в секунду они делят через DeletionBudget
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "retention.scheduler.enabled", matchIfMissing = true)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RetentionScheduler {
+
+    RetentionPolicyConnector retentionPolicyConnector;
+    DeletionService deletionService;
+
+
+    @Scheduled(fixedDelayString = "${retention.scheduler.poll-interval}")
+    public void runDuePolicies() {
+        // Задачи упавших экземпляров приложения продолжаются раньше новых запусков по тем же таблицам
+        try {
+            deletionService.resumeInterruptedJobs();
+        } catch (RuntimeException e) {
+            log.error("Failed to resume interrupted deletion jobs", e);
+        }
+        val now = Instant.now();
+        for (val policy : retentionPolicyConnector.findDue(now)) {
+            // Следующий запуск фиксируется до старта задачи: таблица, которая занята или падает,
+            // не запускается заново на каждом опросе
+            val nextRunAt = RetentionPolicyServiceImpl.nextRun(policy.schedule(), now);
+            if (!retentionPolicyConnector.claim(policy, now, nextRunAt)) {
+                continue;
+            }
+            try {
+                val olderThan = LocalDateTime.now().minus(policy.maxAge());
+                val job = deletionService.startDeletionProcess(policy.tableName(), olderThan, policy.mode());
+                retentionPolicyConnector.setLastJob(policy.tableName(), job.jobId());
+                log.info("Retention policy of {} table started job {}, next run at {}",
+                        policy.tableName(), job.jobId(), nextRunAt);
+            } catch (IllegalStateException e) {
+                log.info("Retention policy of {} table skipped: {}", policy.tableName(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Retention policy of {} table failed to start", policy.tableName(), e);
+            }
+        }
+    }
+}
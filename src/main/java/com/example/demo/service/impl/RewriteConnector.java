@@ -0,0 +1,269 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+
+import static org.springframework.transaction.annotation.Propagation.*;
+
+// SQL режима REWRITE: копирование выживших строк в <таблица>__rewrite,
+// перестроение индексов и подмена таблицы одной короткой транзакцией
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RewriteConnector {
+
+    private static final String TARGET_SUFFIX = "__rewrite";
+    private static final String LOG_SUFFIX = "__rewrite_log";
+    private static final String OLD_SUFFIX = "__old";
+
+    // Новая таблица получает только колонки, значения по умолчанию, CHECK-ограничения, индексы,
+    // владельца, права и комментарии. Подмену нельзя выполнить прозрачно при внешних ключах в обе стороны,
+    // exclusion-ограничениях, зависимых представлениях, наследниках, пользовательских триггерах,
+    // политиках RLS, identity- и генерируемых колонках и правах на колонки — тогда используется обычное удаление
+    private static final String IS_REWRITABLE_COMMAND =
+            """
+                    WITH t AS (SELECT ?::regclass AS oid)
+                    SELECT NOT EXISTS(SELECT 1 FROM pg_constraint, t
+                                      WHERE confrelid = t.oid OR (conrelid = t.oid AND contype IN ('f', 'x')))
+                       AND NOT EXISTS(SELECT 1 FROM pg_depend d JOIN pg_rewrite r ON r.oid = d.objid, t
+                                      WHERE d.refobjid = t.oid AND r.ev_class <> t.oid)
+                       AND NOT EXISTS(SELECT 1 FROM pg_inherits, t WHERE inhparent = t.oid OR inhrelid = t.oid)
+                       AND NOT EXISTS(SELECT 1 FROM pg_trigger, t
+                                      WHERE tgrelid = t.oid AND NOT tgisinternal AND tgfoid <> 'rewrite_capture'::regproc)
+                       AND NOT EXISTS(SELECT 1 FROM pg_policy, t WHERE polrelid = t.oid)
+                       AND NOT EXISTS(SELECT 1 FROM pg_class c, t WHERE c.oid = t.oid AND c.relrowsecurity)
+                       AND NOT EXISTS(SELECT 1 FROM pg_attribute a, t
+                                      WHERE a.attrelid = t.oid AND a.attnum > 0 AND NOT a.attisdropped
+                                        AND (a.attidentity <> '' OR a.attgenerated <> '' OR a.attacl IS NOT NULL))
+                    """;
+    private static final String SELECT_INDEXES_COMMAND =
+            """
+                    SELECT i.relname                       AS name,
+                           pg_get_indexdef(x.indexrelid)   AS definition,
+                           c.contype                       AS constraint_type
+                    FROM pg_index x
+                    JOIN pg_class i ON i.oid = x.indexrelid
+                    LEFT JOIN pg_constraint c ON c.conindid = x.indexrelid AND c.conrelid = x.indrelid
+                    WHERE x.indrelid = ?::regclass
+                    """;
+    private static final String CREATE_TARGET_COMMAND =
+            """
+                    CREATE %s TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE)
+                    """;
+    private static final String CREATE_LOG_COMMAND =
+            """
+                    CREATE TABLE %s (id bigint NOT NULL)
+                    """;
+    private static final String CREATE_TRIGGER_COMMAND =
+            """
+                    CREATE TRIGGER %1$s AFTER INSERT OR UPDATE OR DELETE ON %2$s
+                    FOR EACH ROW EXECUTE FUNCTION rewrite_capture('%1$s')
+                    """;
+    private static final String COPY_RANGE_COMMAND =
+            """
+                    WITH source AS (
+                        SELECT * FROM %1$s
+                        WHERE id >= ? AND id < ?
+                    ), copied AS (
+                        INSERT INTO %2$s
+                        SELECT * FROM source
+                        WHERE %3$s >= ? OR %3$s IS NULL
+                        RETURNING 1
+                    )
+                    SELECT (SELECT count(*) FROM source) AS scanned,
+                           (SELECT count(*) FROM copied) AS copied
+                    """;
+    private static final String SET_LOGGED_COMMAND =
+            """
+                    ALTER TABLE %s SET LOGGED
+                    """;
+    private static final String ADD_CONSTRAINT_COMMAND =
+            """
+                    ALTER TABLE %s ADD CONSTRAINT %s %s USING INDEX %s
+                    """;
+    private static final String SET_LOCK_TIMEOUT_COMMAND =
+            """
+                    SET LOCAL lock_timeout = '%dms'
+                    """;
+    private static final String LOCK_TABLE_COMMAND =
+            """
+                    LOCK TABLE %s IN ACCESS EXCLUSIVE MODE
+                    """;
+    private static final String DELETE_CHANGED_COMMAND =
+            """
+                    DELETE FROM %s WHERE id IN (SELECT id FROM %s)
+                    """;
+    private static final String COPY_CHANGED_COMMAND =
+            """
+                    INSERT INTO %1$s
+                    SELECT * FROM %2$s
+                    WHERE id IN (SELECT id FROM %3$s) AND (%4$s >= ? OR %4$s IS NULL)
+                    """;
+    private static final String COPY_PROPERTIES_COMMAND =
+            """
+                    SELECT rewrite_copy_properties(?::regclass, ?::regclass)
+                    """;
+    private static final String RENAME_TABLE_COMMAND =
+            """
+                    ALTER TABLE %s RENAME TO %s
+                    """;
+    private static final String RENAME_INDEX_COMMAND =
+            """
+                    ALTER INDEX %s RENAME TO %s
+                    """;
+    private static final String SELECT_SEQUENCE_COMMAND =
+            """
+                    SELECT pg_get_serial_sequence(?, 'id')
+                    """;
+    private static final String MOVE_SEQUENCE_COMMAND =
+            """
+                    ALTER SEQUENCE %s OWNED BY %s.id
+                    """;
+    private static final String DROP_TABLE_COMMAND =
+            """
+                    DROP TABLE IF EXISTS %s
+                    """;
+    private static final String DROP_TRIGGER_COMMAND =
+            """
+                    DROP TRIGGER IF EXISTS %s ON %s
+                    """;
+    private static final String ANALYZE_COMMAND =
+            """
+                    ANALYZE %s
+                    """;
+
+    // CREATE [UNIQUE] INDEX <имя> ON <таблица> USING ...
+    private static final Pattern INDEX_TARGET = Pattern.compile("INDEX \\S+ ON \\S+ ");
+
+    JdbcTemplate jdbcTemplate;
+
+    @NonFinal
+    @Value("${deletion.chunk.lock-timeout}")
+    long lockTimeout;
+
+
+    public boolean isRewritable(String tableName) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_REWRITABLE_COMMAND, Boolean.class, tableName));
+    }
+
+    public List<IndexDefinition> getIndexes(String tableName) {
+        return jdbcTemplate.query(
+                SELECT_INDEXES_COMMAND,
+                (rs, rowNum) -> new IndexDefinition(rs.getString("name"), rs.getString("definition"),
+                        rs.getString("constraint_type")),
+                tableName
+        );
+    }
+
+    // Новая таблица (без индексов — они строятся после загрузки), журнал изменённых id и триггер на исходной таблице
+    public void prepare(String tableName, boolean unlogged) {
+        jdbcTemplate.execute(CREATE_TARGET_COMMAND.formatted(unlogged ? "UNLOGGED" : "", target(tableName), tableName));
+        jdbcTemplate.execute(CREATE_LOG_COMMAND.formatted(changeLog(tableName)));
+        jdbcTemplate.execute(CREATE_TRIGGER_COMMAND.formatted(changeLog(tableName), tableName));
+        log.info("Prepared {} for rewrite of {} table", target(tableName), tableName);
+    }
+
+    /**
+     * Копирует выжившие строки с id в полуинтервале [fromId, toId).
+     * В результате matched — просмотренные строки, deleted — не скопированные (удаляемые).
+     */
+    public DeletionChunk copyRange(String tableName, String column, LocalDateTime olderThan, long fromId, long toId) {
+        return jdbcTemplate.queryForObject(
+                COPY_RANGE_COMMAND.formatted(tableName, target(tableName), column),
+                (rs, rowNum) -> {
+                    val scanned = rs.getLong("scanned");
+                    return new DeletionChunk(scanned, scanned - rs.getLong("copied"), toId - 1);
+                },
+                fromId, toId, olderThan
+        );
+    }
+
+    public void setLogged(String tableName) {
+        jdbcTemplate.execute(SET_LOGGED_COMMAND.formatted(target(tableName)));
+    }
+
+    // Индексы строятся один раз по уже загруженным данным — быстрее, чем поддерживать их при вставке
+    public void createIndexes(String tableName, List<IndexDefinition> indexes) {
+        val target = target(tableName);
+        for (val index : indexes) {
+            val name = index.name() + TARGET_SUFFIX;
+            val definition = INDEX_TARGET.matcher(index.definition())
+                    .replaceFirst(Matcher.quoteReplacement("INDEX %s ON %s ".formatted(name, target)));
+            jdbcTemplate.execute(definition);
+
+            if (index.isConstraint()) {
+                val constraint = "p".equals(index.constraintType()) ? "PRIMARY KEY" : "UNIQUE";
+                jdbcTemplate.execute(ADD_CONSTRAINT_COMMAND.formatted(target, name, constraint, name));
+            }
+        }
+        log.info("Rebuilt {} indexes on {}", indexes.size(), target);
+    }
+
+    /**
+     * Под короткой эксклюзивной блокировкой переносит строки, изменённые во время копирования,
+     * переносит владельца, права и комментарии и меняет таблицы местами. Старая таблица удаляется в той же транзакции.
+     */
+    @Transactional(propagation = REQUIRES_NEW)
+    public void swap(String tableName, String column, LocalDateTime olderThan, List<IndexDefinition> indexes) {
+        val target = target(tableName);
+        val changeLog = changeLog(tableName);
+        val old = tableName + OLD_SUFFIX;
+
+        jdbcTemplate.execute(SET_LOCK_TIMEOUT_COMMAND.formatted(lockTimeout));
+        jdbcTemplate.execute(LOCK_TABLE_COMMAND.formatted(tableName));
+
+        jdbcTemplate.update(DELETE_CHANGED_COMMAND.formatted(target, changeLog));
+        val changed = jdbcTemplate.update(COPY_CHANGED_COMMAND.formatted(target, tableName, changeLog, column), olderThan);
+
+        // Под блокировкой: права и комментарии не изменятся до подмены
+        jdbcTemplate.queryForList(COPY_PROPERTIES_COMMAND, tableName, target);
+        for (val index : indexes) {
+            jdbcTemplate.execute(RENAME_INDEX_COMMAND.formatted(index.name(), index.name() + OLD_SUFFIX));
+        }
+        jdbcTemplate.execute(RENAME_TABLE_COMMAND.formatted(tableName, old));
+        jdbcTemplate.execute(RENAME_TABLE_COMMAND.formatted(target, tableName));
+        for (val index : indexes) {
+            jdbcTemplate.execute(RENAME_INDEX_COMMAND.formatted(index.name() + TARGET_SUFFIX, index.name()));
+        }
+
+        // Иначе последовательность id удалится вместе со старой таблицей
+        val sequence = jdbcTemplate.queryForObject(SELECT_SEQUENCE_COMMAND, String.class, old);
+        if (sequence != null) {
+            jdbcTemplate.execute(MOVE_SEQUENCE_COMMAND.formatted(sequence, tableName));
+        }
+
+        jdbcTemplate.execute(DROP_TABLE_COMMAND.formatted(old));
+        jdbcTemplate.execute(DROP_TABLE_COMMAND.formatted(changeLog));
+        log.info("Swapped rewritten {} table, {} rows changed during copy", tableName, changed);
+    }
+
+    public void analyze(String tableName) {
+        jdbcTemplate.execute(ANALYZE_COMMAND.formatted(tableName));
+    }
+
+    // Удаляет остатки незавершённой перезаписи вместе с триггером на исходной таблице
+    public void cleanup(String tableName) {
+        jdbcTemplate.execute(DROP_TRIGGER_COMMAND.formatted(changeLog(tableName), tableName));
+        jdbcTemplate.execute(DROP_TABLE_COMMAND.formatted(target(tableName)));
+        jdbcTemplate.execute(DROP_TABLE_COMMAND.formatted(changeLog(tableName)));
+    }
+
+    private static String target(String tableName) {
+        return tableName + TARGET_SUFFIX;
+    }
+
+    private static String changeLog(String tableName) {
+        return tableName + LOG_SUFFIX;
+    }
+}
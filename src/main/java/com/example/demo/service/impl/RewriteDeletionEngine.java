@@ -0,0 +1,93 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+import static java.lang.Math.*;
+
+// Удаление большей части таблицы перезаписью: выжившие строки копируются в новую таблицу
+// (по желанию UNLOGGED на время загрузки), индексы строятся заново, затем таблицы меняются
+// местами в одной короткой транзакции. Мёртвых строк и долга по VACUUM не остаётся.
+// Изменения исходной таблицы во время копирования фиксирует триггер и переносит переключение
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RewriteDeletionEngine implements DeletionEngine {
+
+    RewriteConnector rewriteConnector;
+    JdbcConnector jdbcConnector;
+    DeletionChunkRunner chunkRunner;
+    ParallelDeletionEngine parallelDeletionEngine;
+
+    @NonFinal
+    @Value("${deletion.rewrite.unlogged}")
+    boolean unlogged;
+
+    @Override
+    public void delete(DeletionJob job, IdRange range) throws InterruptedException {
+        val tableName = job.getTableName();
+        if (!rewriteConnector.isRewritable(tableName)) {
+            log.warn("Table {} has dependent objects and can't be rewritten, falling back to chunked deletion", tableName);
+            parallelDeletionEngine.delete(job, range);
+            return;
+        }
+
+        // Остатки прошлой прерванной перезаписи
+        rewriteConnector.cleanup(tableName);
+        val indexes = rewriteConnector.getIndexes(tableName);
+        rewriteConnector.prepare(tableName, unlogged);
+
+        boolean swapped = false;
+        try {
+            // Создание триггера ждёт начатые вставки, поэтому строки, добавленные после чтения диапазона,
+            // уже видны и копируются, а добавленные позже попадут в журнал
+            val current = jdbcConnector.getIdRange(tableName);
+            val copyRange = current.isEmpty() ? range : new IdRange(range.minId(), max(range.maxId(), current.maxId()));
+            if (!copy(job, copyRange)) {
+                return;
+            }
+            if (unlogged) {
+                rewriteConnector.setLogged(tableName);
+            }
+            rewriteConnector.createIndexes(tableName, indexes);
+            if (!job.awaitRunnable()) {
+                return;
+            }
+
+            // Переключение ждёт эксклюзивную блокировку не дольше lock_timeout и повторяется с паузой
+            chunkRunner.run(job, chunkRunner.newSizer(), size -> {
+                rewriteConnector.swap(tableName, job.getColumn(), job.getOlderThan(), indexes);
+                return new DeletionChunk(0, 0, null);
+            });
+            swapped = true;
+            rewriteConnector.analyze(tableName);
+        } finally {
+            if (!swapped) {
+                rewriteConnector.cleanup(tableName);
+            }
+        }
+    }
+
+    // false — задачу остановили до окончания копирования
+    private boolean copy(DeletionJob job, IdRange range) throws InterruptedException {
+        val sizer = chunkRunner.newSizer();
+        long from = range.minId();
+        while (from <= range.maxId()) {
+            if (!job.awaitRunnable()) {
+                return false;
+            }
+            val chunkFrom = from;
+            val chunk = chunkRunner.run(job, sizer, span ->
+                    rewriteConnector.copyRange(job.getTableName(), job.getColumn(), job.getOlderThan(),
+                            chunkFrom, min(range.maxId() + 1, chunkFrom + span)));
+            job.onChunk(chunk, chunk.lastId() + 1 - from);
+            from = chunk.lastId() + 1;
+        }
+        return true;
+    }
+}
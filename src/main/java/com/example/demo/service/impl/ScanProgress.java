@@ -0,0 +1,34 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Прогресс потокового подсчёта частоты слов: обработанные файлы, их байты и слова
+class ScanProgress {
+
+    private final int filesTotal;
+    private final long startedAt = System.nanoTime();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong wordsCounted = new AtomicLong();
+
+    ScanProgress(int filesTotal) {
+        this.filesTotal = filesTotal;
+    }
+
+    void onFile(long bytes, long words) {
+        bytesRead.addAndGet(bytes);
+        wordsCounted.addAndGet(words);
+        filesDone.incrementAndGet();
+    }
+
+    WordFrequencySnapshot snapshot(boolean completed, Long maxError, List<WordFrequency> words) {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        final long counted = wordsCounted.get();
+        return new WordFrequencySnapshot(completed, filesTotal, filesDone.get(), bytesRead.get(), counted,
+                elapsedMillis == 0 ? 0 : counted * 1000 / elapsedMillis, elapsedMillis, maxError, words);
+    }
+}
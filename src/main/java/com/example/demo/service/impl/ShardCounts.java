@@ -0,0 +1,75 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Частичный результат шарда: слова с частотами в шарде и граница floor — у слов шарда,
+ * которых нет в ответе, частота не больше floor.
+ * <p>
+ * Двоичный формат ответа узла: заголовок, floor и пары {слово UTF-8, частота}, длины и частоты
+ * в varint. Частоты в основном малы, поэтому пара занимает длину слова и ещё два-три байта.
+ */
+record ShardCounts(long floor, Map<String, Long> counts) {
+
+    private static final int MAGIC = 0x57435031;
+    private static final int VERSION = 1;
+
+    byte[] encode() {
+        val bytes = new ByteArrayOutputStream();
+        try (val out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, floor);
+            writeVarLong(out, counts.size());
+            for (val entry : counts.entrySet()) {
+                val word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, word.length);
+                out.write(word);
+                writeVarLong(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ShardCounts decode(byte[] bytes) throws IOException {
+        val in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Unsupported shard counts format");
+        }
+        val floor = readVarLong(in);
+        val size = Math.toIntExact(readVarLong(in));
+        val counts = new HashMap<String, Long>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            val word = new byte[Math.toIntExact(readVarLong(in))];
+            in.readFully(word);
+            counts.put(new String(word, StandardCharsets.UTF_8), readVarLong(in));
+        }
+        return new ShardCounts(floor, counts);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            val b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
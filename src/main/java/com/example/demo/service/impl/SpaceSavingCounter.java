@@ -0,0 +1,258 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+// Приближённый топ слов алгоритмом Space-Saving: не больше capacity счётчиков при любом
+// числе различных слов. Когда счётчики заняты, новое слово вытесняет слово с минимальным
+// счётчиком и наследует его значение как погрешность. Оценка частоты завышена не больше
+// чем на error, а error не превышает N / capacity, где N — число учтённых слов.
+// Счётчики лежат в min-куче по значению, поиск слова — открытая адресация без аллокаций.
+// Экземпляр не потокобезопасен
+public class SpaceSavingCounter {
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final int capacity;
+    private final String[] words;
+    private final int[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+
+    // Min-куча идентификаторов счётчиков и позиция каждого счётчика в ней
+    private final int[] heap;
+    private final int[] heapIndex;
+
+    // Хэш-таблица: идентификатор счётчика + 1, 0 — пустой слот
+    private final int[] table;
+    private final int shift;
+
+    private int size;
+    private long total;
+
+    public SpaceSavingCounter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        words = new String[capacity];
+        hashes = new int[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+
+        final int tableSize = Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+        table = new int[tableSize];
+        shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Число учтённых слов N
+    public long total() {
+        return total;
+    }
+
+    // Верхняя граница погрешности любой оценки и частоты любого слова вне сводки: N / capacity
+    public long maxError() {
+        return total / capacity;
+    }
+
+    public void add(char[] chars, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        total++;
+
+        final int mask = table.length - 1;
+        for (int slot = index(hash); table[slot] != 0; slot = (slot + 1) & mask) {
+            final int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(words[id], chars, length)) {
+                counts[id]++;
+                siftDown(heapIndex[id]);
+                return;
+            }
+        }
+        put(new String(chars, 0, length), hash, 1, 0);
+    }
+
+    /**
+     * Слияние сводок по Agarwal et al., «Mergeable Summaries»: счётчики слова складываются,
+     * а слову, которого нет в одной из сводок, от неё достаётся её минимальный счётчик —
+     * столько слово могло встретиться незамеченным. Остаются capacity наибольших счётчиков.
+     * Оценка по-прежнему не меньше частоты и завышена не больше чем на error,
+     * а error не превышает N / capacity для суммарного N.
+     */
+    public void addAll(SpaceSavingCounter other) {
+        final long min = minCount();
+        final long otherMin = other.minCount();
+        final Map<String, long[]> merged = new HashMap<>((size + other.size) * 2);
+        for (int id = 0; id < size; id++) {
+            merged.put(words[id], new long[]{counts[id] + otherMin, errors[id] + otherMin});
+        }
+        for (int id = 0; id < other.size; id++) {
+            final long count = other.counts[id];
+            final long error = other.errors[id];
+            final long[] entry = merged.get(other.words[id]);
+            if (entry == null) {
+                merged.put(other.words[id], new long[]{count + min, error + min});
+            } else {
+                entry[0] += count - otherMin;
+                entry[1] += error - otherMin;
+            }
+        }
+
+        final long mergedTotal = total + other.total;
+        clear();
+        total = mergedTotal;
+        merged.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, long[]>>comparingLong(entry -> entry.getValue()[0]).reversed())
+                .limit(capacity)
+                .forEach(entry -> put(entry.getKey(), entry.getKey().hashCode(), entry.getValue()[0], entry.getValue()[1]));
+    }
+
+    /**
+     * Топ-N по оценке частоты, при равной оценке — по алфавиту.
+     *
+     * @return список из объектов вида {слово, оценка частоты, место в рейтинге, погрешность}
+     */
+    public List<WordFrequency> top(int topCount) {
+        final List<Integer> ids = IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(id -> counts[id]).reversed()
+                        .thenComparing(id -> words[id]))
+                .limit(topCount)
+                .toList();
+
+        final List<WordFrequency> top = new ArrayList<>(ids.size());
+        for (final int id : ids) {
+            top.add(new WordFrequency(words[id], counts[id], top.size() + 1, errors[id]));
+        }
+        return top;
+    }
+
+    // Пока счётчики не заняты, сводка точна и незамеченных слов нет
+    private long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    private void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(words, null);
+        size = 0;
+        total = 0;
+    }
+
+    private void put(String word, int hash, long count, long error) {
+        if (size < capacity) {
+            final int id = size++;
+            set(id, word, hash, count, error);
+            heap[id] = id;
+            heapIndex[id] = id;
+            siftUp(id);
+            return;
+        }
+
+        // Вытесняем минимальный счётчик: его значение становится погрешностью нового слова
+        final int id = heap[0];
+        final long min = counts[id];
+        remove(id);
+        set(id, word, hash, min + count, min + error);
+        siftDown(0);
+    }
+
+    private void set(int id, String word, int hash, long count, long error) {
+        words[id] = word;
+        hashes[id] = hash;
+        counts[id] = count;
+        errors[id] = error;
+
+        final int mask = table.length - 1;
+        int slot = index(hash);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    // Удаление из хэш-таблицы со сдвигом следующих элементов цепочки назад, без надгробий
+    private void remove(int id) {
+        final int mask = table.length - 1;
+        int slot = index(hashes[id]);
+        while (table[slot] != id + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            final int other = table[next];
+            if (other == 0) {
+                break;
+            }
+            final int ideal = index(hashes[other - 1]);
+            if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                table[slot] = other;
+                slot = next;
+            }
+        }
+        table[slot] = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            final int left = 2 * position + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int child = right < size && counts[heap[right]] < counts[heap[left]] ? right : left;
+            if (counts[heap[position]] <= counts[heap[child]]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int id = heap[i];
+        heap[i] = heap[j];
+        heap[j] = id;
+        heapIndex[heap[i]] = i;
+        heapIndex[heap[j]] = j;
+    }
+
+    private int index(int hash) {
+        return (hash * GOLDEN_RATIO) >>> shift;
+    }
+
+    private static boolean matches(String key, char[] chars, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.impl.WordTokenizer.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+import org.springframework.util.unit.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+// Подсчёт слов в большом файле несколькими потоками: файл делится на диапазоны байтов
+// по ASCII-разделителям (не внутри слова и не внутри символа UTF-8), диапазоны считаются
+// fork/join-подзадачами в словари или сводки потоков, которые их выполняют
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SplitFileCounter {
+
+    Utf8WordTokenizer tokenizer;
+
+    // Файлы больше этого размера делятся на диапазоны
+    @Getter
+    long splitThreshold;
+
+    // Размер диапазона, который считается одной подзадачей без дальнейшего деления
+    long splitSize;
+
+    public SplitFileCounter(Utf8WordTokenizer tokenizer,
+                            @Value("${word-frequency.split.threshold}") DataSize splitThreshold,
+                            @Value("${word-frequency.split.size}") DataSize splitSize) {
+        this.tokenizer = tokenizer;
+        this.splitThreshold = splitThreshold.toBytes();
+        this.splitSize = Math.max(1, splitSize.toBytes());
+    }
+
+    /**
+     * Считает слова файла. Вызывается из потока ForkJoinPool: подзадачи разбираются
+     * свободными потоками того же пула, каждый считает в свой частичный словарь.
+     *
+     * @param consumers получатель слов потока, запрашивается один раз на диапазон
+     */
+    public void count(Path file, int minLength, Supplier<WordConsumer> consumers) throws IOException {
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            log.debug("Start split processing of file {} ({} bytes)", file, channel.size());
+            new RangeCountTask(channel, 0, channel.size(), minLength, consumers).invoke();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class RangeCountTask extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+        private final int minLength;
+        private final Supplier<WordConsumer> consumers;
+
+        @Override
+        protected void compute() {
+            try {
+                if (to - from > splitSize) {
+                    val middle = tokenizer.nextBoundary(channel, from + (to - from) / 2, to);
+                    if (middle < to) {
+                        invokeAll(new RangeCountTask(channel, from, middle, minLength, consumers),
+                                new RangeCountTask(channel, middle, to, minLength, consumers));
+                        return;
+                    }
+                }
+                countRange();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void countRange() throws IOException {
+            val scanner = new Utf8WordScanner(minLength, consumers.get());
+            tokenizer.feed(channel, from, to, scanner);
+            scanner.finish();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.service.impl;
+
+import java.util.regex.*;
+
+// Имена таблиц и колонок подставляются в текст SQL, поэтому допускаются только простые
+// идентификаторы PostgreSQL без кавычек: строчные латинские буквы, цифры и '_', не длиннее 63 символов
+final class SqlIdentifiers {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    private SqlIdentifiers() {
+    }
+
+    static String requireValid(String identifier) {
+        if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid SQL identifier: " + identifier);
+        }
+        return identifier;
+    }
+}
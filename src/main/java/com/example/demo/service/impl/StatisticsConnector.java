@@ -0,0 +1,90 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+// Оценки по статистике планировщика (pg_stats) вместо SELECT COUNT(*) по всей таблице
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class StatisticsConnector {
+
+    private static final String SELECT_COLUMN_STATS_COMMAND =
+            """
+                    SELECT null_frac,
+                           most_common_vals::text::timestamp[] AS common_values,
+                           most_common_freqs                   AS common_freqs,
+                           histogram_bounds::text::timestamp[] AS histogram
+                    FROM pg_stats
+                    WHERE schemaname = current_schema() AND tablename = ? AND attname = ?
+                    """;
+
+    JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Оценивает долю строк таблицы, у которых значение колонки меньше cutoff.
+     * Пустой результат — по таблице ещё не собрана статистика (ANALYZE).
+     */
+    public OptionalDouble estimateShareOlderThan(String tableName, String column, LocalDateTime cutoff) {
+        val estimates = jdbcTemplate.query(
+                SELECT_COLUMN_STATS_COMMAND,
+                (rs, rowNum) -> estimate(rs, Timestamp.valueOf(cutoff)),
+                tableName, column
+        );
+        return estimates.isEmpty() ? OptionalDouble.empty() : OptionalDouble.of(estimates.get(0));
+    }
+
+    // Частые значения учитываем точно, остальное — линейной интерполяцией по гистограмме
+    private static double estimate(ResultSet rs, Timestamp cutoff) throws SQLException {
+        val nullFraction = rs.getDouble("null_frac");
+        val commonValues = timestamps(rs.getArray("common_values"));
+        val commonFreqs = rs.getArray("common_freqs");
+        val histogram = timestamps(rs.getArray("histogram"));
+
+        double commonShare = 0;
+        double commonOlder = 0;
+        if (commonFreqs != null) {
+            val freqs = (Float[]) commonFreqs.getArray();
+            for (int i = 0; i < freqs.length; i++) {
+                commonShare += freqs[i];
+                if (commonValues[i].before(cutoff)) {
+                    commonOlder += freqs[i];
+                }
+            }
+        }
+
+        val histogramShare = Math.max(0, 1 - nullFraction - commonShare);
+        return commonOlder + histogramShare * histogramFraction(histogram, cutoff);
+    }
+
+    private static double histogramFraction(Timestamp[] bounds, Timestamp cutoff) {
+        if (bounds.length < 2) {
+            return bounds.length == 1 && bounds[0].before(cutoff) ? 1 : 0;
+        }
+        if (!bounds[0].before(cutoff)) {
+            return 0;
+        }
+        if (bounds[bounds.length - 1].before(cutoff)) {
+            return 1;
+        }
+
+        int bucket = 0;
+        while (bucket < bounds.length - 2 && !cutoff.before(bounds[bucket + 1])) {
+            bucket++;
+        }
+        val width = bounds[bucket + 1].getTime() - bounds[bucket].getTime();
+        val within = width > 0 ? (double) (cutoff.getTime() - bounds[bucket].getTime()) / width : 0;
+        return (bucket + within) / (bounds.length - 1);
+    }
+
+    private static Timestamp[] timestamps(Array array) throws SQLException {
+        return array == null ? new Timestamp[0] : (Timestamp[]) array.getArray();
+    }
+}
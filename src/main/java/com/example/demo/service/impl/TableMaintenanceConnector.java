@@ -0,0 +1,174 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+import static java.lang.Math.*;
+
+// Индексы, статистика и VACUUM таблиц для удаления. CREATE INDEX CONCURRENTLY и VACUUM
+// не выполняются внутри транзакции, поэтому идут на соединении в режиме autocommit
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TableMaintenanceConnector {
+
+    // Действующие индексы без условия, у которых колонка — первая в ключе. B-tree предпочтительнее BRIN
+    private static final String SELECT_LEADING_INDEX_COMMAND =
+            """
+                    SELECT i.relname                     AS name,
+                           pg_get_indexdef(x.indexrelid) AS definition
+                    FROM pg_index x
+                    JOIN pg_class i ON i.oid = x.indexrelid
+                    JOIN pg_am am ON am.oid = i.relam
+                    JOIN pg_attribute a ON a.attrelid = x.indrelid AND a.attnum = x.indkey[0]
+                    WHERE x.indrelid = ?::regclass AND a.attname = ? AND x.indisvalid AND x.indpred IS NULL
+                      AND am.amname IN ('btree', 'brin')
+                    ORDER BY am.amname = 'btree' DESC
+                    """;
+    // Недостроенный индекс остаётся после прерванного CREATE INDEX CONCURRENTLY
+    private static final String IS_INVALID_INDEX_COMMAND =
+            """
+                    SELECT EXISTS(SELECT 1 FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid
+                                  WHERE x.indrelid = ?::regclass AND i.relname = ? AND NOT x.indisvalid)
+                    """;
+    private static final String SELECT_CORRELATION_COMMAND =
+            """
+                    SELECT correlation FROM pg_stats
+                    WHERE schemaname = current_schema() AND tablename = ? AND attname = ?
+                    """;
+    private static final String SELECT_HEALTH_COMMAND =
+            """
+                    SELECT s.n_live_tup, s.n_dead_tup,
+                           pg_relation_size(s.relid)                        AS table_bytes,
+                           pg_total_relation_size(s.relid)                  AS total_bytes,
+                           (SELECT sum(p.avg_width) FROM pg_stats p
+                            WHERE p.schemaname = s.schemaname AND p.tablename = s.relname) AS row_width,
+                           current_setting('block_size')::int               AS block_size,
+                           greatest(s.last_vacuum, s.last_autovacuum)       AS last_vacuum,
+                           greatest(s.last_analyze, s.last_autoanalyze)     AS last_analyze
+                    FROM pg_stat_user_tables s
+                    WHERE s.schemaname = current_schema() AND s.relname = ?
+                    """;
+    private static final String CREATE_INDEX_COMMAND =
+            """
+                    CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s USING %s (%s)
+                    """;
+    private static final String DROP_INDEX_COMMAND =
+            """
+                    DROP INDEX CONCURRENTLY IF EXISTS %s
+                    """;
+    private static final String ANALYZE_COMMAND = "ANALYZE %s";
+    private static final String VACUUM_COMMAND = "VACUUM (ANALYZE) %s";
+
+    // Заголовок строки и указатель на неё в странице, заголовок страницы
+    private static final int TUPLE_OVERHEAD = 24 + 4;
+    private static final int PAGE_HEADER = 24;
+
+    JdbcTemplate jdbcTemplate;
+
+
+    public Optional<IndexDefinition> findLeadingIndex(String tableName, String column) {
+        return jdbcTemplate.query(
+                SELECT_LEADING_INDEX_COMMAND,
+                (rs, rowNum) -> new IndexDefinition(rs.getString("name"), rs.getString("definition"), null),
+                tableName, column
+        ).stream().findFirst();
+    }
+
+    // Корреляция значений колонки с физическим порядком строк, пустой результат — статистики нет
+    public OptionalDouble getCorrelation(String tableName, String column) {
+        val correlations = jdbcTemplate.query(SELECT_CORRELATION_COMMAND,
+                (rs, rowNum) -> rs.getObject("correlation", Float.class), tableName, column);
+        return correlations.isEmpty() || correlations.get(0) == null
+                ? OptionalDouble.empty()
+                : OptionalDouble.of(correlations.get(0));
+    }
+
+    public Optional<TableHealth> getHealth(String tableName) {
+        return jdbcTemplate.query(SELECT_HEALTH_COMMAND, (rs, rowNum) -> toHealth(tableName, rs), tableName)
+                .stream().findFirst();
+    }
+
+    /**
+     * Строит индекс, не блокируя запись в таблицу. Недостроенный индекс с тем же именем
+     * от прерванной попытки сначала удаляется, иначе IF NOT EXISTS принял бы его за готовый.
+     */
+    public void createIndex(String indexName, String tableName, String column, String method) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_INVALID_INDEX_COMMAND, Boolean.class, tableName, indexName))) {
+            executeOutsideTransaction(DROP_INDEX_COMMAND.formatted(indexName));
+        }
+        try {
+            executeOutsideTransaction(CREATE_INDEX_COMMAND.formatted(indexName, tableName, method, column));
+        } catch (RuntimeException e) {
+            executeOutsideTransaction(DROP_INDEX_COMMAND.formatted(indexName));
+            throw e;
+        }
+    }
+
+    public void analyze(String tableName) {
+        executeOutsideTransaction(ANALYZE_COMMAND.formatted(tableName));
+    }
+
+    /**
+     * VACUUM (ANALYZE) с ограничением нагрузки: после каждых costLimit единиц стоимости
+     * VACUUM спит costDelay. Настройки действуют только в сессии и сбрасываются перед возвратом соединения в пул.
+     */
+    public void vacuumAnalyze(String tableName, Duration costDelay, int costLimit) {
+        executeOutsideTransaction(
+                "SET vacuum_cost_delay = " + costDelay.toMillis(),
+                "SET vacuum_cost_limit = " + costLimit,
+                VACUUM_COMMAND.formatted(tableName));
+    }
+
+    private void executeOutsideTransaction(String... commands) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            val autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            try (val statement = connection.createStatement()) {
+                try {
+                    for (val command : commands) {
+                        statement.execute(command);
+                    }
+                } finally {
+                    statement.execute("RESET vacuum_cost_delay");
+                    statement.execute("RESET vacuum_cost_limit");
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    // Живым строкам нужно столько страниц, сколько их помещается при средней ширине строки, остальное — раздутие
+    private static TableHealth toHealth(String tableName, ResultSet rs) throws SQLException {
+        val live = rs.getLong("n_live_tup");
+        val dead = rs.getLong("n_dead_tup");
+        val tableBytes = rs.getLong("table_bytes");
+        val rowWidth = rs.getObject("row_width", Long.class);
+        val blockSize = rs.getInt("block_size");
+
+        Long bloat = null;
+        if (rowWidth != null) {
+            // Строки выравниваются по 8 байт
+            val tupleBytes = TUPLE_OVERHEAD + (rowWidth + 7) / 8 * 8;
+            val rowsPerPage = max(1, (blockSize - PAGE_HEADER) / tupleBytes);
+            val neededBytes = (live + rowsPerPage - 1) / rowsPerPage * blockSize;
+            bloat = max(0, tableBytes - neededBytes);
+        }
+        return new TableHealth(tableName, live, dead, live + dead > 0 ? (double) dead / (live + dead) : 0,
+                tableBytes, rs.getLong("total_bytes"), bloat,
+                toInstant(rs.getTimestamp("last_vacuum")), toInstant(rs.getTimestamp("last_analyze")));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.*;
+import org.springframework.stereotype.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.lang.Math.*;
+
+// Индекс по колонке политики перед удалением и VACUUM (ANALYZE) после него: удаление не сканирует
+// таблицу целиком ради небольшой доли строк, а запросы после удаления не упираются в мёртвые строки
+// и устаревшую статистику планировщика
+@Slf4j
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TableMaintenanceServiceImpl implements TableMaintenanceService {
+
+    // Состояние таблицы перед удалением по задачам, для отчёта о VACUUM после него
+    ConcurrentHashMap<UUID, TableHealth> beforePurge = new ConcurrentHashMap<>();
+    // Таблицы, VACUUM которых стоит в очереди и ещё не начался
+    Set<String> pendingVacuums = ConcurrentHashMap.newKeySet();
+    Deque<VacuumReport> vacuumReports = new ConcurrentLinkedDeque<>();
+
+    TableMaintenanceConnector maintenanceConnector;
+    StatisticsConnector statisticsConnector;
+    RetentionPolicyConnector retentionPolicyConnector;
+    TaskExecutor tableMaintenanceExecutor;
+    DeletionMetrics metrics;
+
+    @NonFinal
+    @Value("${deletion.maintenance.index.auto-create}")
+    boolean autoCreateIndex;
+
+    // Доля удаляемых строк, до которой их выгоднее искать по индексу, чем сканировать таблицу
+    @NonFinal
+    @Value("${deletion.maintenance.index.max-share}")
+    double indexMaxShare;
+
+    @NonFinal
+    @Value("${deletion.maintenance.index.brin-correlation}")
+    double brinCorrelation;
+
+    @NonFinal
+    @Value("${deletion.maintenance.vacuum.min-deleted-share}")
+    double vacuumMinDeletedShare;
+
+    @NonFinal
+    @Value("${deletion.maintenance.vacuum.cost-delay}")
+    Duration vacuumCostDelay;
+
+    @NonFinal
+    @Value("${deletion.maintenance.vacuum.cost-limit}")
+    int vacuumCostLimit;
+
+    @NonFinal
+    @Value("${deletion.maintenance.vacuum.history-size}")
+    int historySize;
+
+    public TableMaintenanceServiceImpl(TableMaintenanceConnector maintenanceConnector,
+                                       StatisticsConnector statisticsConnector,
+                                       RetentionPolicyConnector retentionPolicyConnector,
+                                       @Qualifier("tableMaintenanceExecutor") TaskExecutor tableMaintenanceExecutor,
+                                       DeletionMetrics metrics) {
+        this.maintenanceConnector = maintenanceConnector;
+        this.statisticsConnector = statisticsConnector;
+        this.retentionPolicyConnector = retentionPolicyConnector;
+        this.tableMaintenanceExecutor = tableMaintenanceExecutor;
+        this.metrics = metrics;
+    }
+
+
+    @Override
+    public TableHealth getHealth(String tableName) {
+        policy(tableName);
+        return maintenanceConnector.getHealth(tableName)
+                .orElseThrow(() -> new NoSuchElementException("Table not found: " + tableName));
+    }
+
+    @Override
+    public IndexAdvice adviseIndex(String tableName, LocalDateTime olderThan) {
+        val policy = policy(tableName);
+        return advise(tableName, policy.column(), cutoff(policy, olderThan));
+    }
+
+    @Override
+    public IndexAdvice createAdvisedIndex(String tableName, LocalDateTime olderThan) {
+        return ensureIndex(adviseIndex(tableName, olderThan));
+    }
+
+    @Override
+    public void preparePurge(DeletionJobInfo job) {
+        val tableName = job.tableName();
+        maintenanceConnector.getHealth(tableName).ifPresent(health -> {
+            beforePurge.put(job.jobId(), health);
+            log.info("Before cleaning {} table: {}", tableName, health);
+        });
+        if (job.mode() != DeletionMode.SEQUENTIAL && job.mode() != DeletionMode.PARALLEL) {
+            return;
+        }
+
+        val advice = adviseAnalyzed(tableName, job.column(), job.olderThan());
+        log.info("Index advice for cleaning {} table: {}", tableName, advice);
+        if (autoCreateIndex) {
+            ensureIndex(advice);
+        }
+    }
+
+    // После PARTITION мёртвых строк не остаётся: партиции отсоединяются целиком
+    @Override
+    public void onPurgeFinished(DeletionJobInfo job) {
+        val before = beforePurge.remove(job.jobId());
+        if (job.mode() == DeletionMode.PARTITION || job.rowsDeleted() == 0
+                || (job.status() != DeletionJobStatus.COMPLETED && job.status() != DeletionJobStatus.CANCELLED)) {
+            return;
+        }
+        submitVacuum(job.tableName(), job.jobId(), job.rowsDeleted(), before);
+    }
+
+    @Override
+    public boolean scheduleVacuum(String tableName) {
+        policy(tableName);
+        return submitVacuum(tableName, null, 0, null);
+    }
+
+    @Override
+    public List<VacuumReport> getVacuumReports(String tableName) {
+        return vacuumReports.stream()
+                .filter(report -> report.tableName().equals(tableName))
+                .toList();
+    }
+
+    private IndexAdvice advise(String tableName, String column, LocalDateTime olderThan) {
+        val share = statisticsConnector.estimateShareOlderThan(tableName, column, olderThan);
+        val correlation = maintenanceConnector.getCorrelation(tableName, column);
+        val existing = maintenanceConnector.findLeadingIndex(tableName, column);
+        // Большая доля строк всё равно затрагивает почти все страницы таблицы, сканирование дешевле
+        val expectedScan = share.isPresent() && share.getAsDouble() <= indexMaxShare
+                ? ExpectedScan.INDEX
+                : ExpectedScan.SEQUENTIAL;
+        // BRIN хранит диапазон значений на группу страниц: он мал и полезен, только если
+        // значения колонки растут вместе с физическим порядком строк
+        String indexType = null;
+        if (expectedScan == ExpectedScan.INDEX) {
+            indexType = correlation.isPresent() && abs(correlation.getAsDouble()) >= brinCorrelation ? "brin" : "btree";
+        }
+        return new IndexAdvice(tableName, column, olderThan, boxed(share), boxed(correlation), expectedScan,
+                existing.map(IndexDefinition::definition).orElse(null), indexType, false);
+    }
+
+    // Без статистики долю удаляемых строк не оценить, а планировщик выберет план вслепую
+    private IndexAdvice adviseAnalyzed(String tableName, String column, LocalDateTime olderThan) {
+        val advice = advise(tableName, column, olderThan);
+        if (advice.deleteShare() != null) {
+            return advice;
+        }
+        log.info("No planner statistics for {} table, analyzing it", tableName);
+        maintenanceConnector.analyze(tableName);
+        return advise(tableName, column, olderThan);
+    }
+
+    private IndexAdvice ensureIndex(IndexAdvice advice) {
+        if (advice.expectedScan() != ExpectedScan.INDEX || advice.existingIndex() != null) {
+            return advice;
+        }
+        val tableName = advice.tableName();
+        val indexName = indexName(tableName, advice.column(), advice.recommendedIndexType());
+        log.info("Creating {} index {} on {} table", advice.recommendedIndexType(), indexName, tableName);
+        val start = System.nanoTime();
+        maintenanceConnector.createIndex(indexName, tableName, advice.column(), advice.recommendedIndexType());
+        log.info("Created index {} on {} table in {} ms", indexName, tableName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return advice.withCreated(maintenanceConnector.findLeadingIndex(tableName, advice.column())
+                .map(IndexDefinition::definition)
+                .orElse(null));
+    }
+
+    // false — VACUUM таблицы уже в очереди или очередь остановлена
+    private boolean submitVacuum(String tableName, UUID jobId, long rowsDeleted, TableHealth before) {
+        if (!pendingVacuums.add(tableName)) {
+            return false;
+        }
+        try {
+            tableMaintenanceExecutor.execute(() -> runVacuum(tableName, jobId, rowsDeleted, before));
+            return true;
+        } catch (TaskRejectedException e) {
+            pendingVacuums.remove(tableName);
+            log.warn("VACUUM of {} table not scheduled: {}", tableName, e.getMessage());
+            return false;
+        }
+    }
+
+    // Таблица снимается с очереди до начала VACUUM: удаление, завершённое во время него, поставит следующий
+    private void runVacuum(String tableName, UUID jobId, long rowsDeleted, TableHealth before) {
+        pendingVacuums.remove(tableName);
+        val startedAt = Instant.now();
+        val start = System.nanoTime();
+        TableHealth beforeVacuum = null;
+        try {
+            beforeVacuum = maintenanceConnector.getHealth(tableName).orElse(null);
+            if (jobId != null && beforeVacuum != null && !isLargePurge(rowsDeleted, beforeVacuum)) {
+                log.info("Skipping VACUUM of {} table: {} rows deleted out of {}", tableName, rowsDeleted,
+                        rowsDeleted + beforeVacuum.liveTuples());
+                return;
+            }
+            log.info("VACUUM (ANALYZE) of {} table started: {}", tableName, beforeVacuum);
+            maintenanceConnector.vacuumAnalyze(tableName, vacuumCostDelay, vacuumCostLimit);
+            val afterVacuum = maintenanceConnector.getHealth(tableName).orElse(null);
+            metrics.onVacuum(tableName, "success", System.nanoTime() - start);
+            log.info("VACUUM (ANALYZE) of {} table finished in {} ms: {}", tableName,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), afterVacuum);
+            addReport(new VacuumReport(tableName, jobId, rowsDeleted, startedAt, Instant.now(),
+                    before, beforeVacuum, afterVacuum, null));
+        } catch (RuntimeException e) {
+            metrics.onVacuum(tableName, "failure", System.nanoTime() - start);
+            log.error("VACUUM (ANALYZE) of {} table failed", tableName, e);
+            addReport(new VacuumReport(tableName, jobId, rowsDeleted, startedAt, Instant.now(),
+                    before, beforeVacuum, null, e.getMessage()));
+        }
+    }
+
+    private boolean isLargePurge(long rowsDeleted, TableHealth health) {
+        return (double) rowsDeleted / max(1, rowsDeleted + health.liveTuples()) >= vacuumMinDeletedShare;
+    }
+
+    // Храним не больше historySize отчётов
+    private void addReport(VacuumReport report) {
+        vacuumReports.addFirst(report);
+        while (vacuumReports.size() > historySize) {
+            vacuumReports.pollLast();
+        }
+    }
+
+    // Имя таблицы попадает в текст SQL, поэтому обслуживаются только таблицы с политикой хранения
+    private RetentionPolicy policy(String tableName) {
+        return retentionPolicyConnector.find(SqlIdentifiers.requireValid(tableName))
+                .orElseThrow(() -> new IllegalArgumentException("Table has no retention policy: " + tableName));
+    }
+
+    private static LocalDateTime cutoff(RetentionPolicy policy, LocalDateTime olderThan) {
+        return olderThan != null ? olderThan : LocalDateTime.now().minus(policy.maxAge());
+    }
+
+    // PostgreSQL обрезает имена длиннее 63 символов, обрезаем сами, чтобы искать индекс по тому же имени
+    static String indexName(String tableName, String column, String method) {
+        val name = "%s_%s_%s".formatted(tableName, column, method.equals("brin") ? "brin" : "idx");
+        return name.length() <= 63 ? name : name.substring(0, 63);
+    }
+
+    private static Double boxed(OptionalDouble value) {
+        return value.isPresent() ? value.getAsDouble() : null;
+    }
+}
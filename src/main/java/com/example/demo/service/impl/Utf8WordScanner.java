@@ -0,0 +1,237 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.impl.WordTokenizer.*;
+
+import java.nio.*;
+import java.util.*;
+
+// Потоковый разбор UTF-8 байтов на слова без промежуточных строк.
+// Повторяет семантику \b\p{L}{n,}\b + String.toLowerCase(): слово — максимальная серия
+// «словесных» символов (буквы, цифры, '_', диакритика после буквы или цифры), целиком
+// состоящая из букв. Строчные буквы получаются по кодовым точкам, и только для слов,
+// прошедших фильтр длины. Состояние переносится между вызовами feed, поэтому вход
+// можно подавать окнами произвольного размера. Экземпляр не потокобезопасен
+public class Utf8WordScanner {
+
+    private static final int REPLACEMENT = 0xFFFD;
+
+    // Классы символов BMP: разделитель, буква, цифра или '_', диакритика (NON_SPACING_MARK).
+    // Таблица в 64 КБ заменяет обращения к Character в горячем цикле
+    private static final byte SEPARATOR = 0;
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte MARK = 3;
+    private static final byte[] BMP_CLASS = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            BMP_CLASS[c] = classOf(c);
+        }
+    }
+
+    // Для этих символов и языков String.toLowerCase зависит от контекста или локали
+    private static final Set<String> SPECIAL_CASING_LANGUAGES = Set.of("tr", "az", "lt");
+    private static final boolean SPECIAL_CASING_LOCALE =
+            SPECIAL_CASING_LANGUAGES.contains(Locale.getDefault().getLanguage());
+
+    private final int minLength;
+    private final WordConsumer consumer;
+
+    // Незавершённая многобайтовая последовательность
+    private int pending;
+    private int pendingBytes;
+    private int pendingMin;
+
+    // Текущая серия словесных символов
+    private char[] raw = new char[64];
+    private char[] lower = new char[64];
+    private int length;
+    private int letters;
+    private boolean inWord;
+    private boolean allLetters;
+    private boolean specialCasing;
+    // Последний символ, не являющийся диакритикой, — буква или цифра
+    private boolean baseLetterOrDigit;
+
+    public Utf8WordScanner(int minLength, WordConsumer consumer) {
+        this.minLength = minLength;
+        this.consumer = consumer;
+    }
+
+    // ASCII-разделитель не бывает частью многобайтовой последовательности и всегда завершает слово,
+    // поэтому после него файл можно разрезать без изменения результата
+    public static boolean isSeparator(byte b) {
+        return b >= 0 && BMP_CLASS[b] == SEPARATOR;
+    }
+
+    // Разбирает байты buffer от position до limit, позицию буфера не меняет
+    public void feed(ByteBuffer buffer) {
+        final int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            final int b = buffer.get(i);
+            if (pendingBytes == 0) {
+                if (b >= 0) {
+                    classified(b, BMP_CLASS[b], true);
+                } else {
+                    start(b);
+                }
+            } else if ((b & 0xC0) == 0x80) {
+                pending = (pending << 6) | (b & 0x3F);
+                if (--pendingBytes == 0) {
+                    decoded(pending);
+                }
+            } else {
+                // Оборванная последовательность: заменяем её и разбираем байт заново
+                pendingBytes = 0;
+                codePoint(REPLACEMENT);
+                i--;
+            }
+        }
+    }
+
+    // Завершает разбор: дописывает последнее слово
+    public void finish() {
+        if (pendingBytes > 0) {
+            pendingBytes = 0;
+            codePoint(REPLACEMENT);
+        }
+        if (inWord) {
+            flush();
+        }
+    }
+
+    private void start(int b) {
+        if ((b & 0xE0) == 0xC0) {
+            pending = b & 0x1F;
+            pendingBytes = 1;
+            pendingMin = 0x80;
+        } else if ((b & 0xF0) == 0xE0) {
+            pending = b & 0x0F;
+            pendingBytes = 2;
+            pendingMin = 0x800;
+        } else if ((b & 0xF8) == 0xF0) {
+            pending = b & 0x07;
+            pendingBytes = 3;
+            pendingMin = 0x10000;
+        } else {
+            codePoint(REPLACEMENT);
+        }
+    }
+
+    private void decoded(int cp) {
+        // Избыточные кодировки, суррогаты и значения за пределами Unicode некорректны
+        if (cp < pendingMin || cp > Character.MAX_CODE_POINT
+                || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            cp = REPLACEMENT;
+        }
+        codePoint(cp);
+    }
+
+    private void codePoint(int cp) {
+        if (cp <= Character.MAX_VALUE) {
+            classified(cp, BMP_CLASS[cp], true);
+        } else {
+            classified(cp, classOf(cp), false);
+        }
+    }
+
+    private void classified(int cp, byte type, boolean bmp) {
+        switch (type) {
+            case LETTER -> {
+                // Pattern ищет основу диакритики по char, поэтому символы вне BMP основой не считаются
+                baseLetterOrDigit = bmp;
+                wordChar(cp, true);
+            }
+            case DIGIT -> {
+                baseLetterOrDigit = bmp && cp != '_';
+                wordChar(cp, false);
+            }
+            case MARK -> {
+                // Диакритика продолжает слово, только если стоит после буквы или цифры.
+                // Диакритика вне BMP завершает слово слева и не продолжает справа
+                if (!baseLetterOrDigit) {
+                    separator();
+                } else if (bmp) {
+                    wordChar(cp, false);
+                } else {
+                    wordChar(cp, false);
+                    separator();
+                    baseLetterOrDigit = false;
+                }
+            }
+            default -> {
+                baseLetterOrDigit = false;
+                separator();
+            }
+        }
+    }
+
+    private static byte classOf(int cp) {
+        if (Character.isLetter(cp)) {
+            return LETTER;
+        }
+        if (Character.isDigit(cp) || cp == '_') {
+            return DIGIT;
+        }
+        return Character.getType(cp) == Character.NON_SPACING_MARK ? MARK : SEPARATOR;
+    }
+
+    private void wordChar(int cp, boolean letter) {
+        if (!inWord) {
+            inWord = true;
+            allLetters = true;
+            specialCasing = false;
+            length = 0;
+            letters = 0;
+        }
+        if (!allLetters) {
+            return;
+        }
+        if (!letter) {
+            // В серии есть не буква — шаблон её не найдёт целиком
+            allLetters = false;
+            return;
+        }
+        if (length + 2 > raw.length) {
+            raw = Arrays.copyOf(raw, raw.length * 2);
+        }
+        if (cp == '\u03A3' || cp == '\u0130') {
+            specialCasing = true;
+        }
+        length += Character.toChars(cp, raw, length);
+        letters++;
+    }
+
+    private void separator() {
+        if (inWord) {
+            flush();
+            inWord = false;
+        }
+    }
+
+    private void flush() {
+        if (!allLetters || letters <= minLength) {
+            return;
+        }
+        if (specialCasing || SPECIAL_CASING_LOCALE) {
+            // Редкий случай (сигма в конце слова, İ, турецкая локаль) — полная семантика String.toLowerCase
+            final String word = new String(raw, 0, length).toLowerCase();
+            consumer.accept(word.toCharArray(), word.length());
+            return;
+        }
+        if (lower.length < raw.length) {
+            lower = new char[raw.length];
+        }
+        int lowerLength = 0;
+        for (int i = 0; i < length; ) {
+            final int cp = Character.codePointAt(raw, i, length);
+            i += Character.charCount(cp);
+            final int lowered = Character.toLowerCase(cp);
+            if (lowerLength + 2 > lower.length) {
+                lower = Arrays.copyOf(lower, lower.length * 2);
+            }
+            lowerLength += Character.toChars(lowered, lower, lowerLength);
+        }
+        consumer.accept(lower, lowerLength);
+    }
+}
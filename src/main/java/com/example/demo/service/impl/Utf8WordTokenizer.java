@@ -0,0 +1,126 @@
+package com.example.demo.service.impl;
+
+import lombok.*;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+import static java.nio.channels.FileChannel.MapMode.*;
+
+// Токенизатор без построчного чтения и регулярных выражений: байты файла отображаются
+// в память (или читаются в переиспользуемый direct-буфер для небольших файлов)
+// и разбираются Utf8WordScanner. Строка создаётся только для слов, прошедших фильтр длины
+@Component
+public class Utf8WordTokenizer implements WordTokenizer {
+
+    // Небольшие файлы дешевле прочитать, чем отображать
+    private static final long MAP_THRESHOLD = 1 << 20;
+    // Отображаем окнами: MappedByteBuffer ограничен 2 ГБ
+    private static final long MAP_WINDOW = 1 << 28;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+
+    // Файлы от этого размера отображаются в память, меньшие читаются в буфер
+    @Getter
+    private final long mapThreshold;
+    private final long mapWindow;
+
+    public Utf8WordTokenizer() {
+        this(MAP_THRESHOLD, MAP_WINDOW);
+    }
+
+    Utf8WordTokenizer(long mapThreshold, long mapWindow) {
+        this.mapThreshold = mapThreshold;
+        this.mapWindow = mapWindow;
+    }
+
+    @Override
+    public void tokenize(Path file, int minLength, WordConsumer consumer) throws IOException {
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            val scanner = new Utf8WordScanner(minLength, consumer);
+            feed(channel, 0, channel.size(), scanner);
+            scanner.finish();
+        }
+    }
+
+    // Разбор уже прочитанного в память содержимого файла
+    public void tokenize(ByteBuffer content, int minLength, WordConsumer consumer) {
+        val scanner = new Utf8WordScanner(minLength, consumer);
+        scanner.feed(content);
+        scanner.finish();
+    }
+
+    /**
+     * Возвращает позицию сразу после первого ASCII-разделителя в [position, limit) — безопасную
+     * точку разреза файла, не попадающую внутрь слова или символа UTF-8. Если разделителя нет, возвращает limit.
+     */
+    public long nextBoundary(FileChannel channel, long position, long limit) throws IOException {
+        val buffer = READ_BUFFERS.get();
+        while (position < limit) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), limit - position));
+            val read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (Utf8WordScanner.isSeparator(buffer.get(i))) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    /**
+     * Возвращает позицию сразу после последнего ASCII-разделителя в [position, limit) — конец последнего
+     * целого слова, если за limit файл будет дописан. Если разделителя нет, возвращает position.
+     */
+    public long previousBoundary(FileChannel channel, long position, long limit) throws IOException {
+        val buffer = READ_BUFFERS.get();
+        long end = limit;
+        while (end > position) {
+            val start = Math.max(position, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            int read;
+            do {
+                read = channel.read(buffer, start + buffer.position());
+            } while (read >= 0 && buffer.hasRemaining());
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (Utf8WordScanner.isSeparator(buffer.get(i))) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return position;
+    }
+
+    // Подаёт в scanner байты файла из полуинтервала [from, to)
+    public void feed(FileChannel channel, long from, long to, Utf8WordScanner scanner) throws IOException {
+        if (to - from >= mapThreshold) {
+            for (long position = from; position < to; position += mapWindow) {
+                scanner.feed(channel.map(READ_ONLY, position, Math.min(mapWindow, to - position)));
+            }
+            return;
+        }
+
+        val buffer = READ_BUFFERS.get();
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            val read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            scanner.feed(buffer);
+            position += read;
+        }
+    }
+}
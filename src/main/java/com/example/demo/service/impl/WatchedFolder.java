@@ -0,0 +1,319 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+// Папка под наблюдением: частоты слов её .txt-файлов поддерживаются по событиям WatchService.
+// Дописанный файл дочитывается с сохранённой позиции, удалённый или переписанный вычитается
+// целиком по сохранённой сводке файла. Рейтинг хранится упорядоченным, топ-N читается за O(N)
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+class WatchedFolder implements Closeable {
+
+    private static final String FILE_POSTFIX = ".txt";
+    // Отпечаток байтов перед позицией дочитывания: если он изменился, файл переписан, а не дописан
+    private static final int FINGERPRINT_BYTES = 4096;
+
+    @Getter
+    UUID id = UUID.randomUUID();
+    @Getter
+    Path folder;
+    @Getter
+    int minLength;
+    Utf8WordTokenizer tokenizer;
+    WatchService watchService;
+
+    Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    Map<Path, FileState> files = new ConcurrentHashMap<>();
+    // Запись — поток наблюдения и первичный подсчёт, чтение — запросы топа
+    RankedWordCounts counts = new RankedWordCounts();
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @NonFinal
+    volatile boolean ready;
+    @NonFinal
+    volatile Instant updatedAt;
+    @NonFinal
+    volatile String error;
+
+    WatchedFolder(Path folder, int minLength, Utf8WordTokenizer tokenizer) throws IOException {
+        this.folder = folder;
+        this.minLength = minLength;
+        this.tokenizer = tokenizer;
+        this.watchService = folder.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Первичный подсчёт и обработка событий до закрытия. Каталоги регистрируются до подсчёта,
+     * поэтому изменения во время первичного подсчёта не теряются.
+     *
+     * @param cpuPool  пул, в котором параллельно считаются файлы первичного подсчёта
+     * @param debounce пауза после первого события: частые дозаписи файла обрабатываются одним чтением
+     */
+    void run(ForkJoinPool cpuPool, Duration debounce) {
+        try {
+            rescan(cpuPool);
+            ready = true;
+            log.info("Watching {} folder: {} files, {} distinct words", folder, files.size(), counts.distinct());
+            while (true) {
+                val key = watchService.take();
+                Thread.sleep(debounce.toMillis());
+                val changed = new LinkedHashSet<Path>();
+                boolean overflow = false;
+                for (WatchKey next = key; next != null; next = watchService.poll()) {
+                    overflow |= collect(next, changed);
+                }
+                if (overflow) {
+                    log.warn("Watch events of {} folder overflowed, rescanning", folder);
+                    rescan(cpuPool);
+                } else {
+                    changed.forEach(this::sync);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Stopped watching {} folder", folder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Изменения папки больше не отслеживаются, частоты устарели
+            error = e.toString();
+            ready = false;
+            log.error("Watching {} folder failed", folder, e);
+        }
+    }
+
+    List<WordFrequency> top(int topCount) {
+        val failure = error;
+        if (failure != null) {
+            throw new IllegalStateException("Watching %s folder failed: %s".formatted(folder, failure));
+        }
+        lock.readLock().lock();
+        try {
+            return counts.top(topCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    WatchedFolderInfo info() {
+        lock.readLock().lock();
+        try {
+            return new WatchedFolderInfo(id, folder.toString(), minLength, ready, files.size(), counts.total(),
+                    counts.distinct(), updatedAt, error);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Failed to close watch service of {} folder", folder, e);
+        }
+    }
+
+    // Полный проход: регистрирует каталоги, пересчитывает изменённые файлы и вычитает исчезнувшие
+    private void rescan(ForkJoinPool cpuPool) throws IOException, InterruptedException, ExecutionException {
+        val found = registerAll(folder);
+        cpuPool.submit(() -> found.parallelStream().forEach(this::sync)).get();
+        files.keySet().stream()
+                .filter(file -> !found.contains(file))
+                .toList()
+                .forEach(this::remove);
+    }
+
+    // Регистрирует каталоги поддерева и возвращает его текстовые файлы
+    private Set<Path> registerAll(Path root) throws IOException {
+        val found = new HashSet<Path>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isText(file)) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            // Файл удалили во время обхода — его удаление придёт событием
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return found;
+    }
+
+    // Собирает изменённые пути из событий ключа; true — события потеряны и нужен полный проход
+    private boolean collect(WatchKey key, Set<Path> changed) throws IOException {
+        val dir = directories.get(key);
+        boolean overflow = dir == null;
+        for (val event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            val path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                changed.addAll(registerAll(path));
+            } else {
+                changed.add(path);
+            }
+        }
+        // Ключ недействителен — каталог удалён вместе с файлами
+        if (!key.reset() && dir != null) {
+            directories.remove(key);
+            changed.add(dir);
+        }
+        return overflow;
+    }
+
+    private void sync(Path path) {
+        try {
+            if (isText(path) && Files.isRegularFile(path)) {
+                syncFile(path);
+            } else if (!Files.exists(path)) {
+                files.keySet().stream()
+                        .filter(file -> file.startsWith(path))
+                        .toList()
+                        .forEach(this::remove);
+            }
+        } catch (NoSuchFileException e) {
+            remove(path);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to update word counts of {}", path, e);
+        }
+    }
+
+    // Дописанный файл дочитывается с позиции после последнего целого слова, остальные считаются заново.
+    // Слова после этой позиции (хвост) учтены, но при дозаписи вычитаются и считаются заново вместе с ней
+    private void syncFile(Path file) throws IOException {
+        val attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        val modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        val state = files.get(file);
+        if (state != null && state.matches(attributes.fileKey(), attributes.size(), modified)) {
+            return;
+        }
+
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            val size = channel.size();
+            val appended = state != null && state.isAppendedTo(channel, attributes.fileKey(), size);
+            val from = appended ? state.offset() : 0;
+            val boundary = tokenizer.previousBoundary(channel, from, size);
+            val body = count(channel, from, boundary);
+            val tail = count(channel, boundary, size);
+
+            val delta = new WordCountMap();
+            delta.addAll(body);
+            delta.addAll(tail);
+            if (state != null) {
+                subtract(delta, appended ? state.tail() : state.counts());
+            }
+            val fileCounts = appended ? state.counts() : new WordCountMap();
+            if (appended) {
+                subtract(fileCounts, state.tail());
+            }
+            fileCounts.addAll(body);
+            fileCounts.addAll(tail);
+
+            files.put(file, new FileState(attributes.fileKey(), size, modified, boundary,
+                    checksum(channel, boundary), fileCounts, tail));
+            apply(delta);
+            log.debug("Updated word counts of {} from {} ({})", file, from, appended ? "appended" : "counted");
+        }
+    }
+
+    private void remove(Path file) {
+        val state = files.remove(file);
+        if (state != null) {
+            val delta = new WordCountMap();
+            subtract(delta, state.counts());
+            apply(delta);
+            log.debug("Subtracted word counts of removed {}", file);
+        }
+    }
+
+    private void apply(WordCountMap delta) {
+        lock.writeLock().lock();
+        try {
+            counts.addAll(delta);
+            updatedAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private WordCountMap count(FileChannel channel, long from, long to) throws IOException {
+        val counts = new WordCountMap();
+        if (from < to) {
+            val scanner = new Utf8WordScanner(minLength, counts::add);
+            tokenizer.feed(channel, from, to, scanner);
+            scanner.finish();
+        }
+        return counts;
+    }
+
+    private static void subtract(WordCountMap target, WordCountMap counts) {
+        counts.forEach((word, count) -> target.add(word, -count));
+    }
+
+    private static boolean isText(Path file) {
+        return file.getFileName().toString().endsWith(FILE_POSTFIX);
+    }
+
+    private static long checksum(FileChannel channel, long offset) throws IOException {
+        val from = Math.max(0, offset - FINGERPRINT_BYTES);
+        val buffer = ByteBuffer.allocate((int) (offset - from));
+        int read;
+        do {
+            read = channel.read(buffer, from + buffer.position());
+        } while (read > 0 && buffer.hasRemaining());
+        val crc = new CRC32C();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * Состояние файла на момент последнего подсчёта.
+     *
+     * @param offset      позиция после последнего целого слова, с неё файл дочитывается
+     * @param fingerprint отпечаток байтов перед offset
+     * @param counts      все учтённые слова файла, вычитаются при удалении и перезаписи
+     * @param tail        слова после offset, уже входящие в counts
+     */
+    private record FileState(Object fileKey, long size, long modified, long offset, long fingerprint,
+                             WordCountMap counts, WordCountMap tail) {
+
+        boolean matches(Object fileKey, long size, long modified) {
+            return Objects.equals(this.fileKey, fileKey) && this.size == size && this.modified == modified;
+        }
+
+        // Дозапись только увеличивает файл и не меняет уже прочитанные байты
+        boolean isAppendedTo(FileChannel channel, Object fileKey, long size) throws IOException {
+            return Objects.equals(this.fileKey, fileKey) && size > this.size
+                    && checksum(channel, offset) == fingerprint;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.service.impl;
+
+import com.google.common.cache.*;
+import com.google.common.hash.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.concurrent.*;
+
+// Постоянный индекс сводок слов по файлам. Сводка файла действительна, пока совпадают
+// путь, размер и время изменения; иначе файл считается заново. Сводки хранятся на диске
+// (файл на каждый исходный файл, имя — SHA-256 пути) и в памяти в LRU-кэше по числу слов
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WordCountIndex {
+
+    private static final int MAGIC = 0x57434958;
+    private static final int VERSION = 1;
+    private static final String INDEX_POSTFIX = ".idx";
+
+    Path directory;
+    Cache<Path, FileWordCounts> memory;
+
+    public WordCountIndex(@Value("${word-frequency.index.directory}") Path directory,
+                          @Value("${word-frequency.index.memory-words}") long memoryWords) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.memory = CacheBuilder.newBuilder()
+                .maximumWeight(memoryWords)
+                .weigher((Path file, FileWordCounts counts) -> counts.distinct() + 1)
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface FileCounter {
+
+        // Считает все слова файла (minLength = 0)
+        WordCounts count(Path file) throws IOException;
+    }
+
+    /**
+     * Сводка слов файла: из памяти, с диска или подсчитанная заново, если файл
+     * новый или изменился с момента последнего подсчёта.
+     *
+     * @param counter подсчёт слов файла при промахе индекса
+     */
+    public FileWordCounts get(Path file, FileCounter counter) throws IOException {
+        val path = file.toAbsolutePath().normalize();
+        val attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        val size = attributes.size();
+        val modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+
+        val cached = memory.getIfPresent(path);
+        if (cached != null && cached.matches(size, modified)) {
+            return cached;
+        }
+
+        val stored = read(path, size, modified);
+        val counts = stored != null ? stored : countAndWrite(path, size, modified, counter);
+        memory.put(path, counts);
+        return counts;
+    }
+
+    private FileWordCounts countAndWrite(Path path, long size, long modified, FileCounter counter) throws IOException {
+        log.debug("File {} is new or changed, counting words", path);
+        val counts = FileWordCounts.of(size, modified, counter.count(path));
+        write(path, counts);
+        return counts;
+    }
+
+    private FileWordCounts read(Path path, long size, long modified) {
+        val indexFile = indexFile(path);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (val in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(path.toString())) {
+                return null;
+            }
+            val counts = FileWordCounts.readFrom(in);
+            return counts.matches(size, modified) ? counts : null;
+        } catch (IOException e) {
+            log.warn("Corrupted index file {} for {}, recounting", indexFile, path, e);
+            return null;
+        }
+    }
+
+    // Запись через временный файл и атомарную замену: параллельные запросы и сбой
+    // посреди записи не оставляют частично записанную сводку. Ошибка записи не роняет запрос
+    private void write(Path path, FileWordCounts counts) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "word-counts", ".tmp");
+            try (val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(path.toString());
+                counts.writeTo(out);
+            }
+            Files.move(temp, indexFile(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Error while writing index for {}", path, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    private Path indexFile(Path path) {
+        return directory.resolve(Hashing.sha256().hashString(path.toString(), StandardCharsets.UTF_8) + INDEX_POSTFIX);
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Error while deleting {}", temp, e);
+        }
+    }
+}
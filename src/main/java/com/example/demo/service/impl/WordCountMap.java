@@ -0,0 +1,198 @@
+package com.example.demo.service.impl;
+
+import java.util.*;
+import java.util.function.*;
+
+// Словарь {слово -> количество} с открытой адресацией на примитивных массивах:
+// без Map.Entry, LongAdder и упаковки long. Поиск по char[] не создаёт строку,
+// строка создаётся только для нового слова. Хэш совпадает с String.hashCode().
+// Экземпляр не потокобезопасен: каждый поток считает в свой словарь
+public class WordCountMap {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private String[] keys;
+    private int[] hashes;
+    private long[] counts;
+    private int size;
+    private long total;
+    private int shift;
+    private int resizeAt;
+
+    public WordCountMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public WordCountMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.min(1 << 30, (long) (expectedSize / LOAD_FACTOR) + 1)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Сумма всех добавленных количеств
+    public long total() {
+        return total;
+    }
+
+    public void add(char[] chars, int length) {
+        add(chars, length, 1);
+    }
+
+    public void add(char[] chars, int length, long delta) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        total += delta;
+
+        final int mask = keys.length - 1;
+        for (int slot = index(hash); ; slot = (slot + 1) & mask) {
+            final String key = keys[slot];
+            if (key == null) {
+                insert(slot, new String(chars, 0, length), hash, delta);
+                return;
+            }
+            if (hashes[slot] == hash && matches(key, chars, length)) {
+                counts[slot] += delta;
+                return;
+            }
+        }
+    }
+
+    public void add(String word, long delta) {
+        add(word, word.hashCode(), delta);
+    }
+
+    // Добавляет все слова другого словаря
+    public void addAll(WordCountMap other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != null) {
+                add(other.keys[slot], other.hashes[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    public long get(String word) {
+        final int hash = word.hashCode();
+        final int mask = keys.length - 1;
+        for (int slot = index(hash); ; slot = (slot + 1) & mask) {
+            final String key = keys[slot];
+            if (key == null) {
+                return 0;
+            }
+            if (hashes[slot] == hash && key.equals(word)) {
+                return counts[slot];
+            }
+        }
+    }
+
+    public void forEach(ObjLongConsumer<String> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                action.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    // Прямой доступ к слотам для слияния и выбора топа без промежуточных объектов
+    int capacity() {
+        return keys.length;
+    }
+
+    String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int hashAt(int slot) {
+        return hashes[slot];
+    }
+
+    long countAt(int slot) {
+        return counts[slot];
+    }
+
+    void add(String word, int hash, long delta) {
+        total += delta;
+        final int mask = keys.length - 1;
+        for (int slot = index(hash); ; slot = (slot + 1) & mask) {
+            final String key = keys[slot];
+            if (key == null) {
+                insert(slot, word, hash, delta);
+                return;
+            }
+            if (hashes[slot] == hash && key.equals(word)) {
+                counts[slot] += delta;
+                return;
+            }
+        }
+    }
+
+    private void insert(int slot, String key, int hash, long delta) {
+        keys[slot] = key;
+        hashes[slot] = hash;
+        counts[slot] = delta;
+        if (++size > resizeAt) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        final String[] oldKeys = keys;
+        final int[] oldHashes = hashes;
+        final long[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = index(oldHashes[i]);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        counts = new long[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Фибоначчиево хэширование: старшие биты произведения равномерны даже для близких хэшей
+    private int index(int hash) {
+        return (hash * GOLDEN_RATIO) >>> shift;
+    }
+
+    private static boolean matches(String key, char[] chars, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((word, count) -> joiner.add(word + "=" + count));
+        return joiner.toString();
+    }
+}
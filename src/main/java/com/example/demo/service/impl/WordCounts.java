@@ -0,0 +1,152 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+
+import java.util.*;
+import java.util.function.*;
+
+// Итоговые частоты слов: набор словарей с непересекающимися множествами слов
+// (разбиение по хэшу после параллельного слияния). Топ выбирается кучей
+// на примитивном long[] прямо по слотам словарей, без копирования в Map<String, Long>
+public class WordCounts {
+
+    private final WordCountMap[] partitions;
+
+    public WordCounts(WordCountMap... partitions) {
+        this.partitions = partitions;
+    }
+
+    // Номер части, в которую попадает слово при слиянии; независим от индекса слота внутри словаря
+    static int partitionOf(int hash, int parts) {
+        return (hash ^ (hash >>> 16)) & (parts - 1);
+    }
+
+    // Число учтённых слов
+    public long total() {
+        long total = 0;
+        for (final WordCountMap partition : partitions) {
+            total += partition.total();
+        }
+        return total;
+    }
+
+    public long distinct() {
+        long distinct = 0;
+        for (final WordCountMap partition : partitions) {
+            distinct += partition.size();
+        }
+        return distinct;
+    }
+
+    public long get(String word) {
+        return partitions[partitionOf(word.hashCode(), partitions.length)].get(word);
+    }
+
+    public void forEach(ObjLongConsumer<String> action) {
+        for (final WordCountMap partition : partitions) {
+            partition.forEach(action);
+        }
+    }
+
+    /**
+     * Топ-N слов по убыванию частоты, при равной частоте — по алфавиту.
+     *
+     * @return список из объектов вида {слово, частота, место в рейтинге}
+     */
+    public List<WordFrequency> top(int topCount) {
+        final TopHeap heap = new TopHeap(topCount);
+        for (int p = 0; p < partitions.length; p++) {
+            final WordCountMap partition = partitions[p];
+            for (int slot = 0; slot < partition.capacity(); slot++) {
+                if (partition.keyAt(slot) != null) {
+                    heap.offer(ref(p, slot));
+                }
+            }
+        }
+        return heap.drain();
+    }
+
+    private static long ref(int partition, int slot) {
+        return (long) partition << 32 | slot;
+    }
+
+    private long count(long ref) {
+        return partitions[(int) (ref >>> 32)].countAt((int) ref);
+    }
+
+    private String word(long ref) {
+        return partitions[(int) (ref >>> 32)].keyAt((int) ref);
+    }
+
+    // a хуже b: меньше частота, при равной — дальше по алфавиту
+    private boolean worse(long a, long b) {
+        final long countA = count(a);
+        final long countB = count(b);
+        return countA != countB ? countA < countB : word(a).compareTo(word(b)) > 0;
+    }
+
+    // Min-куча ссылок {часть, слот}: в корне худший из отобранных
+    private final class TopHeap {
+
+        private final long[] heap;
+        private int size;
+
+        private TopHeap(int capacity) {
+            heap = new long[Math.max(0, capacity)];
+        }
+
+        private void offer(long ref) {
+            if (size < heap.length) {
+                heap[size] = ref;
+                siftUp(size++);
+            } else if (size > 0 && worse(heap[0], ref)) {
+                heap[0] = ref;
+                siftDown(0);
+            }
+        }
+
+        private List<WordFrequency> drain() {
+            final WordFrequency[] result = new WordFrequency[size];
+            for (int position = size; position > 0; position--) {
+                final long ref = heap[0];
+                result[position - 1] = new WordFrequency(word(ref), count(ref), position);
+                heap[0] = heap[--size];
+                siftDown(0);
+            }
+            return Arrays.asList(result);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (!worse(heap[i], heap[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                final int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                final int right = left + 1;
+                final int child = right < size && worse(heap[right], heap[left]) ? right : left;
+                if (!worse(heap[child], heap[i])) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            final long tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import com.github.benmanes.caffeine.cache.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.http.client.*;
+import org.springframework.stereotype.*;
+import org.springframework.web.client.*;
+
+import java.io.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static java.util.Comparator.*;
+import static java.util.concurrent.CompletableFuture.*;
+
+// Распределённый подсчёт: координатор делит файлы на шарды примерно равного размера и раздаёт их
+// узлам по HTTP, узлы считают шард целиком и держат частоты в кэше. Топ собирается по схеме TPUT
+// в три запроса к каждому шарду: топ-N шарда даёт нижнюю границу τ частоты N-го слова; слово
+// с частотой не меньше τ хотя бы в одном из m шардов встречается не меньше τ / m раз, поэтому
+// второй запрос забирает только такие слова; третий — точные частоты оставшихся кандидатов.
+// Упавший запрос повторяется на следующем узле: тот считает шард заново
+@Slf4j
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WordFrequencyClusterServiceImpl implements WordFrequencyClusterService {
+
+    private static final String SHARD_PATH = "/api/v1/words/frequency/shards";
+
+    WordFrequencyServiceImpl wordFrequencyService;
+    ExecutorService clusterExecutor;
+    // Узлы подсчёта: сначала удалённые, последним — этот экземпляр
+    List<ShardNode> nodes;
+    int shardsPerNode;
+    // Частоты шардов этого узла между запросами координатора
+    Cache<UUID, WordCounts> shardCache;
+    long cacheWords;
+    Duration cacheTtl;
+    // Шарды больше всего кэша: кэш вытеснил бы их сразу, и каждый из трёх запросов считал бы шард заново.
+    // Держатся до последнего запроса координатора или до cache-ttl без запросов
+    ConcurrentHashMap<UUID, PinnedShard> pinnedShards = new ConcurrentHashMap<>();
+    // Папки, файлы из которых узел считает по запросам других узлов; пусто — любые, как в обычном подсчёте
+    List<Path> roots;
+
+    public WordFrequencyClusterServiceImpl(WordFrequencyServiceImpl wordFrequencyService,
+                                           RestClient.Builder restClientBuilder,
+                                           @Qualifier("wordFrequencyClusterExecutor") ExecutorService clusterExecutor,
+                                           @Value("${word-frequency.cluster.peers}") List<String> peers,
+                                           @Value("${word-frequency.cluster.shards-per-node}") int shardsPerNode,
+                                           @Value("${word-frequency.cluster.connect-timeout}") Duration connectTimeout,
+                                           @Value("${word-frequency.cluster.timeout}") Duration timeout,
+                                           @Value("${word-frequency.cluster.cache-words}") long cacheWords,
+                                           @Value("${word-frequency.cluster.cache-ttl}") Duration cacheTtl,
+                                           @Value("${word-frequency.cluster.roots}") List<String> roots) {
+        this.wordFrequencyService = wordFrequencyService;
+        this.clusterExecutor = clusterExecutor;
+        this.shardsPerNode = Math.max(1, shardsPerNode);
+        this.cacheWords = cacheWords;
+        this.cacheTtl = cacheTtl;
+        this.roots = roots.stream()
+                .map(String::trim)
+                .filter(root -> !root.isEmpty())
+                .map(root -> Path.of(root).toAbsolutePath().normalize())
+                .toList();
+        this.shardCache = Caffeine.newBuilder()
+                .maximumWeight(cacheWords)
+                .weigher((UUID shardId, WordCounts counts) -> (int) Math.min(Integer.MAX_VALUE, weight(counts)))
+                .expireAfterAccess(cacheTtl)
+                .build();
+
+        val requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build());
+        requestFactory.setReadTimeout(timeout);
+        val nodes = new ArrayList<ShardNode>();
+        peers.stream()
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .map(peer -> new RemoteNode(peer, restClientBuilder.clone()
+                        .baseUrl(peer)
+                        .requestFactory(requestFactory)
+                        .build()))
+                .forEach(nodes::add);
+        nodes.add(new LocalNode());
+        this.nodes = List.copyOf(nodes);
+    }
+
+    @Override
+    public Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount) {
+        if (minLength < 0 || topCount < 1) {
+            throw new IllegalArgumentException("minLength must be non-negative and topCount must be positive");
+        }
+        val shards = split(folderPath, wordFrequencyService.listFiles(folderPath), nodes.size() * shardsPerNode);
+        log.info("Start cluster word frequency for {} folder: {} shards on {} nodes", folderPath, shards.size(), nodes.size());
+        if (shards.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. Топ-N каждого шарда: сумма частот из ответов — нижняя граница, τ — N-я по величине
+        val tops = query(shards, shard -> shard.request(minLength, ShardQuery.TOP, topCount, null, false));
+        val threshold = ceilDiv(kth(sum(tops.values()), topCount), shards.size());
+
+        // 2. Слова с частотой не меньше τ / m хотя бы в одном шарде — все возможные слова топа
+        val above = query(shards, shard -> shard.request(minLength, ShardQuery.ABOVE, threshold, null, false));
+        val lower = sum(above.values());
+        val tau = kth(lower, topCount);
+        // В шарде, где слова нет в ответе, его частота меньше threshold
+        val candidates = lower.entrySet().stream()
+                .filter(entry -> entry.getValue() + missing(above, entry.getKey()) * Math.max(0, threshold - 1) >= tau)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        // 3. Точные частоты кандидатов из шардов, которые их ещё не прислали
+        val exact = query(shards, shard -> shard.request(minLength, ShardQuery.WORDS, 0, candidates.stream()
+                .filter(word -> !above.get(shard).counts().containsKey(word))
+                .toList(), true));
+        val totals = new HashMap<String, Long>();
+        for (val word : candidates) {
+            totals.put(word, lower.get(word));
+        }
+        exact.values().forEach(counts -> counts.counts().forEach((word, count) -> totals.merge(word, count, Long::sum)));
+
+        log.info("Counted cluster word frequency for {} folder: {} candidates of {} reported words",
+                folderPath, candidates.size(), lower.size());
+        return top(totals, topCount);
+    }
+
+    @Override
+    public byte[] countShard(ShardRequest request) {
+        checkFiles(request);
+        return countLocally(request).encode();
+    }
+
+    // Запрос приходит по HTTP от кого угодно: узел считает только то, что нашёл бы сам обходом папки
+    // запроса, иначе по частотам слов можно прочитать любой файл сервера
+    private void checkFiles(ShardRequest request) {
+        if (request.folder() == null || request.files() == null) {
+            throw new IllegalArgumentException("Shard request must list files of a folder");
+        }
+        val folder = Path.of(request.folder()).toAbsolutePath().normalize();
+        if (!roots.isEmpty() && roots.stream().noneMatch(folder::startsWith)) {
+            throw new IllegalArgumentException("Folder is outside word-frequency.cluster.roots: " + request.folder());
+        }
+        for (val file : request.files()) {
+            val path = Path.of(file).toAbsolutePath().normalize();
+            if (!path.startsWith(folder) || !wordFrequencyService.isCountable(path)) {
+                throw new IllegalArgumentException("Not a text file of %s folder: %s".formatted(request.folder(), file));
+            }
+        }
+    }
+
+    private ShardCounts countLocally(ShardRequest request) {
+        val counts = shardCounts(request);
+        if (request.last()) {
+            shardCache.invalidate(request.shardId());
+            pinnedShards.remove(request.shardId());
+        }
+
+        val result = new HashMap<String, Long>();
+        return switch (request.query()) {
+            case TOP -> {
+                val top = counts.top((int) Math.min(Integer.MAX_VALUE, request.limit()));
+                top.forEach(word -> result.put(word.word(), word.frequency()));
+                // Слов меньше limit — шард прислал все слова
+                yield new ShardCounts(top.size() < request.limit() ? 0 : top.get(top.size() - 1).frequency(), result);
+            }
+            case ABOVE -> {
+                counts.forEach((word, count) -> {
+                    if (count >= request.limit()) {
+                        result.put(word, count);
+                    }
+                });
+                yield new ShardCounts(Math.max(0, request.limit() - 1), result);
+            }
+            case WORDS -> {
+                request.words().forEach(word -> {
+                    val count = counts.get(word);
+                    if (count > 0) {
+                        result.put(word, count);
+                    }
+                });
+                yield new ShardCounts(0, result);
+            }
+        };
+    }
+
+    private WordCounts shardCounts(ShardRequest request) {
+        val now = System.nanoTime();
+        pinnedShards.values().removeIf(pinned -> now - pinned.accessedAt > cacheTtl.toNanos());
+        val pinned = pinnedShards.get(request.shardId());
+        if (pinned != null) {
+            pinned.accessedAt = now;
+            return pinned.counts;
+        }
+
+        val cached = shardCache.getIfPresent(request.shardId());
+        if (cached != null) {
+            return cached;
+        }
+        // Подсчёт идёт вне вычисления кэша: внутри него виртуальный поток держит блокировку
+        // и занимает поток-носитель, пока ждёт задачи подсчёта на тех же носителях.
+        // Шард запрашивает один запрос за раз, поэтому двойного подсчёта нет
+        val shardId = request.shardId();
+        log.debug("Counting shard {} of {} files", shardId, request.files().size());
+        val counts = wordFrequencyService.countFiles(request.files().stream().map(Path::of).toList(), request.minLength());
+        if (weight(counts) > cacheWords) {
+            log.warn("Shard {} has {} distinct words, more than word-frequency.cluster.cache-words {}: "
+                    + "keeping it outside the cache until the query ends", shardId, counts.distinct(), cacheWords);
+            pinnedShards.put(shardId, new PinnedShard(counts, now));
+        } else {
+            shardCache.put(shardId, counts);
+        }
+        return counts;
+    }
+
+    private static long weight(WordCounts counts) {
+        return counts.distinct() + 1;
+    }
+
+    // Запрос ко всем шардам параллельно, каждый на своём узле
+    private Map<Shard, ShardCounts> query(List<Shard> shards, Function<Shard, ShardRequest> requests) {
+        val futures = new LinkedHashMap<Shard, CompletableFuture<ShardCounts>>();
+        shards.forEach(shard -> futures.put(shard, supplyAsync(() -> call(shard, requests.apply(shard)), clusterExecutor)));
+        try {
+            allOf(futures.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        val result = new LinkedHashMap<Shard, ShardCounts>();
+        futures.forEach((shard, future) -> result.put(shard, future.join()));
+        return result;
+    }
+
+    // Шард идёт на узел, который его уже считал; при ошибке — на следующий узел по кругу
+    private ShardCounts call(Shard shard, ShardRequest request) {
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < nodes.size(); attempt++) {
+            val index = (shard.node + attempt) % nodes.size();
+            val node = nodes.get(index);
+            try {
+                val counts = node.count(request);
+                shard.node = index;
+                return counts;
+            } catch (RuntimeException e) {
+                failure = e;
+                log.warn("Shard {} {} query failed on {}, retrying on another node: {}",
+                        shard.id, request.query(), node, e.toString());
+            }
+        }
+        throw new IllegalStateException("Shard %s failed on all %d nodes".formatted(shard.id, nodes.size()), failure);
+    }
+
+    // Жадное распределение: файлы по убыванию размера, каждый — в наименее загруженный шард
+    private static List<Shard> split(String folderPath, List<Path> files, int shardCount) {
+        val sized = files.stream()
+                .map(file -> Map.entry(file, sizeOf(file)))
+                .sorted(Map.Entry.<Path, Long>comparingByValue().reversed())
+                .toList();
+        val shards = new PriorityQueue<Shard>(comparingLong(shard -> shard.bytes));
+        for (int i = 0; i < Math.min(shardCount, sized.size()); i++) {
+            shards.add(new Shard(folderPath, i));
+        }
+        for (val file : sized) {
+            val shard = shards.poll();
+            shard.files.add(file.getKey().toString());
+            shard.bytes += file.getValue();
+            shards.add(shard);
+        }
+        return shards.stream()
+                .sorted(comparingInt(shard -> shard.node))
+                .toList();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, Long> sum(Collection<ShardCounts> shards) {
+        val sum = new HashMap<String, Long>();
+        shards.forEach(shard -> shard.counts().forEach((word, count) -> sum.merge(word, count, Long::sum)));
+        return sum;
+    }
+
+    // N-я по величине частота, 0 — если слов меньше N
+    private static long kth(Map<String, Long> counts, int n) {
+        if (counts.size() < n) {
+            return 0;
+        }
+        val heap = new PriorityQueue<Long>(n);
+        for (val count : counts.values()) {
+            if (heap.size() < n) {
+                heap.add(count);
+            } else if (count > heap.peek()) {
+                heap.poll();
+                heap.add(count);
+            }
+        }
+        return heap.peek();
+    }
+
+    private static long missing(Map<Shard, ShardCounts> shards, String word) {
+        return shards.values().stream()
+                .filter(counts -> !counts.counts().containsKey(word))
+                .count();
+    }
+
+    private static long ceilDiv(long value, int parts) {
+        return (value + parts - 1) / parts;
+    }
+
+    // По убыванию частоты, при равной — по алфавиту, как в WordCounts.top
+    private static List<WordFrequency> top(Map<String, Long> counts, int topCount) {
+        val sorted = counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(topCount)
+                .toList();
+        val top = new ArrayList<WordFrequency>(sorted.size());
+        for (val entry : sorted) {
+            top.add(new WordFrequency(entry.getKey(), entry.getValue(), top.size() + 1));
+        }
+        return top;
+    }
+
+    private static class Shard {
+
+        final UUID id = UUID.randomUUID();
+        final String folder;
+        final List<String> files = new ArrayList<>();
+        long bytes;
+        // Узел, который последним выполнил запрос к шарду и держит его частоты в кэше
+        volatile int node;
+
+        Shard(String folder, int node) {
+            this.folder = folder;
+            this.node = node;
+        }
+
+        ShardRequest request(int minLength, ShardQuery query, long limit, List<String> words, boolean last) {
+            return new ShardRequest(id, folder, files, minLength, query, limit, words, last);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PinnedShard {
+
+        final WordCounts counts;
+        volatile long accessedAt;
+    }
+
+    private interface ShardNode {
+
+        ShardCounts count(ShardRequest request);
+    }
+
+    private class LocalNode implements ShardNode {
+
+        @Override
+        public ShardCounts count(ShardRequest request) {
+            return countLocally(request);
+        }
+
+        @Override
+        public String toString() {
+            return "local node";
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class RemoteNode implements ShardNode {
+
+        private final String url;
+        private final RestClient restClient;
+
+        @Override
+        public ShardCounts count(ShardRequest request) {
+            val body = restClient.post()
+                    .uri(SHARD_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(request)
+                    .retrieve()
+                    .body(byte[].class);
+            try {
+                return ShardCounts.decode(Objects.requireNonNull(body, "Empty shard response"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+}
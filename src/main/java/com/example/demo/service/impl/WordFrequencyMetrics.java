@@ -0,0 +1,78 @@
+package com.example.demo.service.impl;
+
+import io.micrometer.core.instrument.*;
+import lombok.*;
+import lombok.experimental.*;
+import org.springframework.stereotype.*;
+
+import java.util.function.*;
+
+// Метрики подсчёта частоты слов. Скорость (байт и слов в секунду) считается по счётчикам
+// на стороне Prometheus: rate(word_frequency_words_total[1m])
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WordFrequencyMetrics {
+
+    MeterRegistry meterRegistry;
+    Counter bytes;
+    Counter files;
+    Counter failedFiles;
+    Timer fileLatency;
+    Timer mergeLatency;
+    DistributionSummary distinctWords;
+
+    public WordFrequencyMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.bytes = Counter.builder("word.frequency.bytes")
+                .description("Bytes of processed files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.files = Counter.builder("word.frequency.files")
+                .description("Processed files")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedFiles = Counter.builder("word.frequency.files")
+                .description("Processed files")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.fileLatency = Timer.builder("word.frequency.file")
+                .description("Time to count words of one file")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.mergeLatency = Timer.builder("word.frequency.merge")
+                .description("Time to merge per-thread counts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.distinctWords = DistributionSummary.builder("word.frequency.distinct")
+                .description("Distinct words per counted folder")
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startFile() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void onFile(Timer.Sample sample, long size) {
+        sample.stop(fileLatency);
+        files.increment();
+        bytes.increment(size);
+    }
+
+    public void onFileFailure(Timer.Sample sample) {
+        sample.stop(fileLatency);
+        failedFiles.increment();
+    }
+
+    // Слова учитываются по окончании подсчёта: словари потоков не знают, к какому запросу относятся
+    public void onWords(String mode, long words) {
+        meterRegistry.counter("word.frequency.words", "mode", mode).increment(words);
+    }
+
+    public void onDistinct(long distinct) {
+        distinctWords.record(distinct);
+    }
+
+    public <T> T merge(Supplier<T> merge) {
+        return mergeLatency.record(merge);
+    }
+}
@@ -2,28 +2,28 @@ package com.example.demo.service.impl;
 
 import com.example.demo.model.*;
 import com.example.demo.service.*;
+import com.example.demo.service.impl.WordTokenizer.*;
+import com.github.benmanes.caffeine.cache.*;
 import lombok.experimental.*;
 import lombok.extern.slf4j.*;
 import lombok.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.*;
 import org.springframework.stereotype.*;
 
-import java.nio.charset.*;
+import java.io.*;
+import java.nio.*;
 import java.nio.file.*;
+import java.time.*;
 import java.util.*;
-import java.util.Map.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
-import java.util.regex.*;
-import java.util.stream.*;
+import java.util.function.*;
 
+import static com.example.demo.config.CacheConfig.*;
 import static java.lang.Math.max;
-import static java.lang.Runtime.*;
-import static java.util.Collections.*;
-import static java.util.Comparator.*;
 import static java.util.concurrent.CompletableFuture.*;
-import static java.util.concurrent.Executors.*;
-import static java.util.stream.Collectors.*;
 import static lombok.AccessLevel.*;
 
 @Slf4j
@@ -31,115 +31,381 @@ import static lombok.AccessLevel.*;
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 public class WordFrequencyServiceImpl implements WordFrequencyService {
 
-    private static final int DEFAULT_THREAD_POOL_SIZE = max(getRuntime().availableProcessors() - 1, 1);
     private static final String FILE_POSTFIX = ".txt";
 
-    // \\b - граница слова, \\w{%d,} - последовательность букв, где %d длина слова
+    // Пул разбора: только работа на CPU, в нём же выполняются подзадачи больших файлов
+    // и живут словари потоков
+    ForkJoinPool executor;
+    // Задачи по файлам: виртуальные потоки или сам пул разбора, см. execution.mode
+    ExecutorService ioExecutor;
+    // Файлов в работе одновременно: ограничивает параллельное чтение и память под прочитанные файлы
+    Semaphore diskPermits;
 
-//    Pattern pattern = Pattern.compile("\\b\\p{L}\\b");
-    private static final String PATTERN_BASE = "\\b\\p{L}{%d,}\\b";
+    WordTokenizer tokenizer;
+    // Разбор прочитанных в память файлов поддерживает только разбор байтов
+    Utf8WordTokenizer utf8Tokenizer;
+    // Деление больших файлов на диапазоны поддерживает только разбор байтов
+    SplitFileCounter splitFileCounter;
+    // Архивы разбираются из потока распаковки, без извлечения на диск
+    ArchiveWordCounter archiveCounter;
+    // Индекс сводок по файлам: заново считаются только новые и изменённые файлы
+    WordCountIndex index;
+    // Число счётчиков Space-Saving на поток в приближённом режиме
+    int approximateCapacity;
+    // Период отправки промежуточных результатов потокового подсчёта
+    Duration streamInterval;
+    // Снимки рейтинга постраничной выдачи: живут, пока по ним идут страницы
+    long snapshotWords;
+    Cache<UUID, RankingSnapshot> snapshots;
+    // Последний снимок папки: первые страницы в пределах snapshot-ttl начинают его, а не считают папку заново
+    Cache<SnapshotKey, RankingSnapshot> latestSnapshots;
+    WordFrequencyMetrics metrics;
 
-    // Stealing pool для увеличения производительности
-    ExecutorService executor = newWorkStealingPool(DEFAULT_THREAD_POOL_SIZE);
+    public WordFrequencyServiceImpl(Utf8WordTokenizer utf8WordTokenizer,
+                                    RegexWordTokenizer regexWordTokenizer,
+                                    SplitFileCounter splitFileCounter,
+                                    ArchiveWordCounter archiveCounter,
+                                    WordCountIndex index,
+                                    @Value("${word-frequency.tokenizer}") TokenizerType tokenizerType,
+                                    @Value("${word-frequency.index.enabled}") boolean indexEnabled,
+                                    @Value("${word-frequency.approximate.capacity}") int approximateCapacity,
+                                    @Value("${word-frequency.stream.interval}") Duration streamInterval,
+                                    @Value("${word-frequency.page.snapshot-words}") long snapshotWords,
+                                    @Value("${word-frequency.page.snapshot-ttl}") Duration snapshotTtl,
+                                    @Qualifier("wordFrequencyCpuPool") ForkJoinPool executor,
+                                    @Qualifier("wordFrequencyIoExecutor") ExecutorService ioExecutor,
+                                    @Qualifier("diskPermits") Semaphore diskPermits,
+                                    WordFrequencyMetrics metrics) {
+        this.tokenizer = switch (tokenizerType) {
+            case UTF8 -> utf8WordTokenizer;
+            case REGEX -> regexWordTokenizer;
+        };
+        this.utf8Tokenizer = tokenizerType == TokenizerType.UTF8 ? utf8WordTokenizer : null;
+        this.executor = executor;
+        this.ioExecutor = ioExecutor;
+        this.diskPermits = diskPermits;
+        this.splitFileCounter = tokenizerType == TokenizerType.UTF8 ? splitFileCounter : null;
+        this.archiveCounter = archiveCounter;
+        this.index = indexEnabled ? index : null;
+        this.approximateCapacity = approximateCapacity;
+        this.streamInterval = streamInterval;
+        this.snapshotWords = snapshotWords;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(snapshotWords)
+                .weigher((UUID id, RankingSnapshot snapshot) -> snapshot.weight())
+                .expireAfterAccess(snapshotTtl)
+                .build();
+        this.latestSnapshots = Caffeine.newBuilder()
+                .maximumWeight(snapshotWords)
+                .weigher((SnapshotKey key, RankingSnapshot snapshot) -> snapshot.weight())
+                .expireAfterWrite(snapshotTtl)
+                .build();
+        this.metrics = metrics;
+    }
+
+    @Override
+    // sync: одинаковые параллельные запросы ждут один подсчёт вместо десятка сканирований
+    @Cacheable(value = WORD_FREQUENCY_CACHE, keyGenerator = "wordFrequencyKeyGenerator", sync = true)
+    public Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount, boolean approximate) {
+        validate(minLength, topCount);
+        log.info("Start {} word frequency for {} folder with min length {} and top of {} word",
+                approximate ? "approximate" : "exact", folderPath, minLength, topCount);
+
+        if (approximate) {
+            // Память ограничена числом счётчиков на поток, а не числом различных слов
+            val topWords = new PartialTopWords(max(approximateCapacity, topCount));
+            runFiles(listFiles(folderPath), file -> countWords(file, minLength, () -> topWords.local()::add)).join();
+            val merged = metrics.merge(topWords::merge);
+            metrics.onWords("approximate", merged.total());
+            log.info("Counted {} words in {} folder, max error {}", merged.total(), folderPath, merged.maxError());
+            return merged.top(topCount);
+        }
+        return countExact(folderPath, minLength).top(topCount);
+    }
+
+    @Override
+    public WordFrequencyPage getTopWordsPage(String folderPath, int minLength, int limit, String cursor) {
+        validate(minLength, limit);
+        val after = cursor == null ? null : RankCursor.decode(cursor);
+        log.info("Start word frequency page for {} folder with min length {}, {} words after {}", folderPath, minLength, limit, after);
+
+        val snapshot = after == null ? latestSnapshot(folderPath, minLength) : snapshot(after);
+        val words = snapshot.page(limit, after);
+        return new WordFrequencyPage(words, snapshot.nextCursor(words));
+    }
+
+    // Одинаковые параллельные запросы первой страницы ждут один подсчёт рейтинга
+    private RankingSnapshot latestSnapshot(String folderPath, int minLength) {
+        val key = new SnapshotKey(Paths.get(folderPath).toAbsolutePath().normalize().toString(), minLength);
+        return latestSnapshots.get(key, k -> {
+            val snapshot = RankingSnapshot.of(countExact(folderPath, minLength));
+            if (snapshot.weight() > snapshotWords) {
+                log.warn("Ranking of {} folder has {} words, more than word-frequency.page.snapshot-words: "
+                        + "only its first page is served", folderPath, snapshot.words().size());
+            }
+            snapshots.put(snapshot.id(), snapshot);
+            return snapshot;
+        });
+    }
+
+    private RankingSnapshot snapshot(RankCursor after) {
+        val snapshot = snapshots.getIfPresent(after.snapshot());
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Ranking of the cursor has expired, request the first page again");
+        }
+        return snapshot;
+    }
 
     @Override
-    @Cacheable(value = "wordFrequencyCache", key = "#folderPath + #minLength + #topCount")
-    public Collection<WordFrequency> getTopWords(String folderPath, int minLength, int topCount) {
-        log.info("Start word frequency for {} folder with min length {} and top of {} word", folderPath, minLength, topCount);
-        val wordFrequency = processFiles(folderPath, minLength);
-        return getTopWords(wordFrequency, topCount);
+    public void streamTopWords(String folderPath, int minLength, int topCount, boolean approximate,
+                               Consumer<WordFrequencySnapshot> listener) {
+        validate(minLength, topCount);
+        val files = listFiles(folderPath);
+        val progress = new ScanProgress(files.size());
+        log.info("Start streaming {} word frequency for {} folder with min length {} and top of {} word",
+                approximate ? "approximate" : "exact", folderPath, minLength, topCount);
+
+        // Файл сначала считается целиком, затем добавляется в словарь потока под блокировкой,
+        // поэтому промежуточный топ строится по завершённым файлам
+        Supplier<WordFrequencySnapshot> snapshot;
+        FileProcessor processor;
+        if (approximate) {
+            val capacity = max(approximateCapacity, topCount);
+            val topWords = new PartialTopWords(capacity);
+            processor = file -> {
+                val fileTopWords = countTopWords(file, minLength, capacity);
+                onCpu(() -> topWords.update(local -> local.addAll(fileTopWords)));
+                progress.onFile(Files.size(file), fileTopWords.total());
+            };
+            snapshot = () -> {
+                val merged = topWords.snapshot();
+                return progress.snapshot(false, merged.maxError(), merged.top(topCount));
+            };
+        } else {
+            val wordFrequency = new PartialWordCounts();
+            processor = file -> progress.onFile(Files.size(file), countExactLocked(file, minLength, wordFrequency));
+            snapshot = () -> progress.snapshot(false, null, wordFrequency.snapshot().top(topCount));
+        }
+
+        // Отмена: при ошибке отправки клиенту оставшиеся файлы пропускаются
+        val cancelled = new AtomicBoolean();
+        val scan = runFiles(files, file -> {
+            if (!cancelled.get()) {
+                processor.process(file);
+            }
+        });
+        try {
+            while (true) {
+                try {
+                    scan.get(streamInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    listener.accept(snapshot.get());
+                }
+            }
+            val result = snapshot.get();
+            metrics.onWords(approximate ? "approximate" : "exact", result.wordsCounted());
+            listener.accept(progress.snapshot(true, result.maxError(), result.words()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Word frequency streaming interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while files processing", e.getCause());
+        } finally {
+            cancelled.set(true);
+        }
+    }
+
+    private static void validate(int minLength, int topCount) {
+        if (minLength < 0 || topCount < 1) {
+            throw new IllegalArgumentException("minLength must be non-negative and topCount must be positive");
+        }
+    }
+
+    private WordCounts countExact(String folderPath, int minLength) {
+        val counts = countFiles(listFiles(folderPath), minLength);
+        log.info("Counted {} distinct words in {} folder", counts.distinct(), folderPath);
+        return counts;
+    }
+
+    // Точный подсчёт списка файлов: папки целиком или шарда распределённого подсчёта
+    public WordCounts countFiles(List<Path> files, int minLength) {
+        // Каждый поток пула считает в собственный словарь без синхронизации
+        val wordFrequency = new PartialWordCounts();
+        runFiles(files, file -> countExact(file, minLength, wordFrequency))
+                .join();
+
+        // Частичные словари сливаются параллельно по частям хэш-пространства
+        val merged = metrics.merge(() -> wordFrequency.merge(executor));
+        metrics.onWords("exact", merged.total());
+        metrics.onDistinct(merged.distinct());
+        return merged;
     }
 
-    private Map<String, Long> processFiles(String folderPath, int minLength) {
+    private record SnapshotKey(String folder, int minLength) {
+    }
+
+    public List<Path> listFiles(String folderPath) {
         val dir = Paths.get(folderPath);
-        val pattern_str = PATTERN_BASE.formatted(minLength + 1);
-        val pattern = Pattern.compile(pattern_str);
         // Обрабатываем все файлы в том числе из вложенных директорий
         try (val files = Files.walk(dir)) {
-            val resultedFiles = files.filter(Files::isRegularFile)
-                    .filter(path -> path.toString().endsWith(FILE_POSTFIX))
-                    .toList();
+            val resultedFiles = files.filter(this::isCountable).toList();
 
             log.info("Start processing files in {} folder, resulted {} files", folderPath, resultedFiles.size());
+            return resultedFiles;
+        } catch (Exception e) {
+            log.error("Error while opening files directory {}", folderPath, e);
+            throw new RuntimeException("Error while files processing", e);
+        }
+    }
 
-            // LongAdder для увеличения производительности
-            val wordFrequency = new ConcurrentHashMap<String, LongAdder>();
+    // Файлы, которые подсчёт берёт из папки: текстовые и архивы с текстом
+    public boolean isCountable(Path path) {
+        return Files.isRegularFile(path) && (path.toString().endsWith(FILE_POSTFIX) || archiveCounter.isArchive(path));
+    }
 
-            // Запускаем для обработки каждого отдельного файла отдельный поток Completable Future
-            val futures = resultedFiles.stream()
-                    .map(file -> runAsync(() ->
-                            processFile(file, wordFrequency, pattern), executor))
-                    .toList();
+    // Запускаем для обработки каждого отдельного файла отдельный поток Completable Future,
+    // результат завершается после обработки всех файлов
+    private CompletableFuture<Void> runFiles(List<Path> files, FileProcessor processor) {
+        val futures = files.stream()
+                .map(file -> runAsync(() -> processFile(file, processor), ioExecutor))
+                .toList();
+        return allOf(futures.toArray(new CompletableFuture[0]));
+    }
 
-            // Дожидаемся завершения обрабокти всех файлов
-            allOf(futures.toArray(new CompletableFuture[0]))
-                    .join();
+    @FunctionalInterface
+    private interface FileProcessor {
 
-            return wordFrequency.entrySet()
-                    .stream()
-                    .collect(toMap(Entry::getKey, e -> e.getValue().sum()));
-        } catch (Exception e) {
-            log.error("Error while opening files directory {}, length = {}", folderPath, minLength, e);
-            throw new RuntimeException("Error while files processing", e);
-        }
+        void process(Path file) throws IOException;
     }
 
-    // Обработка конкретного файла построчно
-    private void processFile(Path file, final ConcurrentHashMap<String, LongAdder> wordFrequency, Pattern pattern) {
-        log.info("Start processing file {}", file);
+    // Обработка конкретного файла: ошибка одного файла не прерывает подсчёт остальных
+    private void processFile(Path file, FileProcessor processor) {
+        log.debug("Start processing file {}", file);
 
-        try (val lines = Files.lines(file, StandardCharsets.UTF_8)) {
-            lines.flatMap(l -> extractWords(l, pattern))
-                    .forEach(w -> {
-                        try {
-                            processWord(w, wordFrequency);
-                        } catch (Exception e) {
-                            log.error("Error while processing file {}, word {}, error message {}", file, w, e.getMessage());
-                        }
-                    });
+        val sample = metrics.startFile();
+        try {
+            processor.process(file);
+            metrics.onFile(sample, Files.size(file));
         } catch (Exception e) {
+            metrics.onFileFailure(sample);
             log.error("Error while files processing {}", file, e);
         }
     }
 
-    // Обработка конкретного слова
-    private void processWord(String word, ConcurrentHashMap<String, LongAdder> wordFrequency) {
-        wordFrequency.computeIfAbsent(word, k -> new LongAdder()).increment();
+    // Точный подсчёт файла: сводка из индекса или слова прямо в словарь потока
+    private void countExact(Path file, int minLength, PartialWordCounts wordFrequency) throws IOException {
+        if (index != null) {
+            val summary = index.get(file, this::countFile);
+            onCpu(() -> summary.addTo(wordFrequency.local(), minLength));
+            return;
+        }
+        countWords(file, minLength, () -> wordFrequency.local()::add);
     }
 
-    private Collection<WordFrequency> getTopWords(Map<String, Long> wordFrequency, int topCount) {
-        val minHeap = new PriorityQueue<Entry<String, Long>>(topCount,
-                comparingLong(Entry::getValue));
-        for (val entry : wordFrequency.entrySet()) {
-            val lastTop = minHeap.peek();
-            if (minHeap.size() < topCount) {
-                minHeap.offer(entry);
-            } else if (lastTop != null && entry.getValue() > lastTop.getValue()) {
-                minHeap.poll();
-                minHeap.offer(entry);
-            }
+    // Точный подсчёт файла для потоковой выдачи: файл считается отдельно и добавляется
+    // в словарь потока под блокировкой. Возвращает число учтённых слов файла
+    private long countExactLocked(Path file, int minLength, PartialWordCounts wordFrequency) throws IOException {
+        if (index != null) {
+            val summary = index.get(file, this::countFile);
+            val added = new long[1];
+            onCpu(() -> wordFrequency.update(local -> added[0] = summary.addTo(local, minLength)));
+            return added[0];
         }
+        val counts = countFile(file, minLength);
+        onCpu(() -> wordFrequency.update(local -> counts.forEach(local::add)));
+        return counts.total();
+    }
+
+    // Подсчёт всех слов файла для индекса, фильтр длины применяется при запросе
+    private WordCounts countFile(Path file) throws IOException {
+        return countFile(file, 0);
+    }
+
+    private WordCounts countFile(Path file, int minLength) throws IOException {
+        val counts = new PartialWordCounts();
+        countWords(file, minLength, () -> counts.local()::add);
+        return counts.merge(executor);
+    }
+
+    // Приближённый подсчёт файла в отдельную сводку: для небольшого файла счётчиков хватает
+    // на все его слова, и сводка точная. Размер текста в архиве заранее неизвестен
+    private SpaceSavingCounter countTopWords(Path file, int minLength, int capacity) throws IOException {
+        val size = archiveCounter.isArchive(file) ? Long.MAX_VALUE : Files.size(file);
+        val topWords = new PartialTopWords((int) Math.min(capacity, Math.max(16, size / 2)));
+        countWords(file, minLength, () -> topWords.local()::add);
+        return topWords.merge();
+    }
 
-        val topWords = new ArrayList<WordFrequency>();
-        int position = 1;
-        while (!minHeap.isEmpty()) {
-            Entry<String, Long> entry = minHeap.poll();
-            topWords.add(new WordFrequency(entry.getKey(), entry.getValue(), topCount - position + 1));
-            position++;
+    // Разбор файла: строка создаётся только для новых слов словаря потока.
+    // Большой файл делится на диапазоны, которые параллельно считают свободные потоки пула.
+    // Архивы всегда разбираются по байтам UTF-8, независимо от word-frequency.tokenizer
+    private void countWords(Path file, int minLength, Supplier<WordConsumer> consumers) throws IOException {
+        if (archiveCounter.isArchive(file)) {
+            onCpu(() -> archiveCounter.count(file, minLength, consumers));
+            return;
+        }
+        val size = Files.size(file);
+        if (splitFileCounter != null && size > splitFileCounter.getSplitThreshold()) {
+            onCpu(() -> splitFileCounter.count(file, minLength, consumers));
+            return;
+        }
+        // Файл от порога отображения в память не копируется в кучу целиком, а отображается
+        // и разбирается в пуле разбора
+        if (utf8Tokenizer == null || !Thread.currentThread().isVirtual() || size >= utf8Tokenizer.getMapThreshold()) {
+            onCpu(() -> tokenizer.tokenize(file, minLength, consumers.get()));
+            return;
         }
 
-        reverse(topWords);
-        return topWords;
+        // Виртуальный поток читает небольшой файл целиком, блокируясь на диске без платформенного потока,
+        // а разбирается прочитанное уже в пуле разбора
+        acquire(diskPermits);
+        try {
+            val content = ByteBuffer.wrap(Files.readAllBytes(file));
+            onCpu(() -> utf8Tokenizer.tokenize(content, minLength, consumers.get()));
+        } finally {
+            diskPermits.release();
+        }
     }
 
-    private static Stream<String> extractWords(String input, Pattern pattern) {
-        val words = new ArrayList<String>();
-        val matcher = pattern.matcher(input);
+    @FunctionalInterface
+    private interface CpuTask {
 
-        while (matcher.find()) {
-            words.add(matcher.group().toLowerCase());
+        void run() throws IOException;
+    }
+
+    // Работа на CPU выполняется в пуле разбора: сразу, если текущий поток из него, иначе
+    // с ожиданием из виртуального потока. Словари потоков привязаны к потокам этого пула
+    private void onCpu(CpuTask task) throws IOException {
+        if (ForkJoinTask.getPool() == executor) {
+            task.run();
+            return;
         }
+        try {
+            executor.submit(() -> {
+                task.run();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for word counting");
+        }
+    }
 
-        return words.stream();
+    private static void acquire(Semaphore permits) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for disk permit");
+        }
     }
-}
\ No newline at end of file
+}
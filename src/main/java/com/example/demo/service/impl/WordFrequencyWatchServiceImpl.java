@@ -0,0 +1,117 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.*;
+import com.example.demo.service.*;
+import jakarta.annotation.*;
+import lombok.*;
+import lombok.experimental.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.util.Comparator.*;
+
+// Наблюдаемые папки: у каждой свой WatchService и поток наблюдения, первичный подсчёт идёт в пуле разбора
+@Slf4j
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WordFrequencyWatchServiceImpl implements WordFrequencyWatchService {
+
+    Map<UUID, WatchedFolder> watches = new ConcurrentHashMap<>();
+
+    Utf8WordTokenizer tokenizer;
+    ForkJoinPool cpuPool;
+    ExecutorService watchExecutor;
+    int maxFolders;
+    Duration debounce;
+
+    public WordFrequencyWatchServiceImpl(Utf8WordTokenizer tokenizer,
+                                         @Qualifier("wordFrequencyCpuPool") ForkJoinPool cpuPool,
+                                         @Qualifier("wordFrequencyWatchExecutor") ExecutorService watchExecutor,
+                                         @Value("${word-frequency.watch.max-folders}") int maxFolders,
+                                         @Value("${word-frequency.watch.debounce}") Duration debounce) {
+        this.tokenizer = tokenizer;
+        this.cpuPool = cpuPool;
+        this.watchExecutor = watchExecutor;
+        this.maxFolders = maxFolders;
+        this.debounce = debounce;
+    }
+
+    @Override
+    public synchronized WatchedFolderInfo watch(String folderPath, int minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("minLength must be non-negative");
+        }
+        val folder = Paths.get(folderPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(folder)) {
+            throw new IllegalArgumentException("Folder not found: " + folderPath);
+        }
+        val existing = watches.values().stream()
+                .filter(watched -> watched.getFolder().equals(folder) && watched.getMinLength() == minLength)
+                .findFirst();
+        if (existing.isPresent()) {
+            return existing.get().info();
+        }
+        if (watches.size() >= maxFolders) {
+            throw new IllegalStateException("Too many watched folders, limit is " + maxFolders);
+        }
+
+        try {
+            val watched = new WatchedFolder(folder, minLength, tokenizer);
+            watches.put(watched.getId(), watched);
+            watchExecutor.execute(() -> watched.run(cpuPool, debounce));
+            log.info("Start watching {} folder with min length {} as {}", folder, minLength, watched.getId());
+            return watched.info();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch folder " + folderPath, e);
+        }
+    }
+
+    @Override
+    public List<WatchedFolderInfo> getWatches() {
+        return watches.values().stream()
+                .map(WatchedFolder::info)
+                .sorted(comparing(WatchedFolderInfo::folderPath).thenComparing(WatchedFolderInfo::minLength))
+                .toList();
+    }
+
+    @Override
+    public WatchedFolderInfo getWatch(UUID watchId) {
+        return findWatch(watchId).info();
+    }
+
+    @Override
+    public Collection<WordFrequency> getTopWords(UUID watchId, int topCount) {
+        if (topCount < 1) {
+            throw new IllegalArgumentException("topCount must be positive");
+        }
+        return findWatch(watchId).top(topCount);
+    }
+
+    @Override
+    public synchronized void unwatch(UUID watchId) {
+        findWatch(watchId).close();
+        watches.remove(watchId);
+        log.info("Stop watching folder {}", watchId);
+    }
+
+    @PreDestroy
+    public void close() {
+        watches.values().forEach(WatchedFolder::close);
+    }
+
+    private WatchedFolder findWatch(UUID watchId) {
+        val watched = watches.get(watchId);
+        if (watched == null) {
+            throw new NoSuchElementException("Watched folder not found: " + watchId);
+        }
+        return watched;
+    }
+}
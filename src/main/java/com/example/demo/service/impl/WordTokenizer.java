@@ -0,0 +1,21 @@
+package com.example.demo.service.impl;
+
+import java.io.*;
+import java.nio.file.*;
+
+// Разбивает текстовый файл на слова: максимальные последовательности букв длиннее minLength
+// в нижнем регистре (семантика шаблона \b\p{L}{n,}\b)
+public interface WordTokenizer {
+
+    void tokenize(Path file, int minLength, WordConsumer consumer) throws IOException;
+
+    @FunctionalInterface
+    interface WordConsumer {
+
+        /**
+         * Получает очередное слово. Массив переиспользуется токенизатором
+         * и валиден только во время вызова, значимы первые length символов.
+         */
+        void accept(char[] chars, int length);
+    }
+}
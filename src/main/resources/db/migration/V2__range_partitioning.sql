@@ -0,0 +1,98 @@
+-- Создаёт партиции таблицы tbl шагом step на интервале [since, until).
+-- Строки партиции по умолчанию, попадающие в диапазон новой партиции, переносятся в неё:
+-- иначе PostgreSQL не создаёт партицию, пересекающуюся с содержимым партиции по умолчанию.
+-- Имена партиций: <таблица>_p<нижняя граница>. Возвращает количество созданных партиций
+CREATE OR REPLACE FUNCTION create_range_partitions(tbl text, step interval, since timestamp, until timestamp)
+    RETURNS integer
+    LANGUAGE plpgsql AS $$
+DECLARE
+    bound   timestamp := since;
+    created integer := 0;
+    col     text;
+    dflt    text;
+    part    text;
+    pending boolean;
+BEGIN
+    SELECT a.attname INTO col
+    FROM pg_partitioned_table p
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = tbl::regclass;
+
+    SELECT c.relname INTO dflt
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = tbl::regclass AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+
+    WHILE bound < until LOOP
+            part := tbl || '_p' || to_char(bound, 'YYYYMMDD_HH24MISS');
+            pending := false;
+            IF dflt IS NOT NULL THEN
+                EXECUTE format('SELECT EXISTS(SELECT 1 FROM %I WHERE %I >= %L AND %I < %L)',
+                               dflt, col, bound, col, bound + step) INTO pending;
+            END IF;
+
+            IF pending THEN
+                EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part, tbl);
+                EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+                                   'INSERT INTO %I SELECT * FROM moved',
+                               dflt, col, bound, col, bound + step, part);
+                EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               tbl, part, bound, bound + step);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               part, tbl, bound, bound + step);
+            END IF;
+            bound := bound + step;
+            created := created + 1;
+        END LOOP;
+    RETURN created;
+END $$;
+
+-- Переводит обычную таблицу (например, из V1__init_tables.sql) в таблицу, партиционированную
+-- по диапазону временной колонки col. Данные переносятся, последовательность id переходит
+-- к новой таблице. Строки вне диапазонов попадают в партицию <таблица>_default.
+-- Первичный ключ партиционированной таблицы обязан включать колонку партиционирования,
+-- поэтому он становится (id, col): по нему же идёт keyset-удаление в граничных партициях.
+-- Строки с NULL в col такой ключ не допускает — таблица с ними не преобразуется
+CREATE OR REPLACE FUNCTION partition_by_range(tbl text, col text, step interval)
+    RETURNS integer
+    LANGUAGE plpgsql AS $$
+DECLARE
+    source  text := tbl || '_unpartitioned';
+    lo      timestamp;
+    hi      timestamp;
+    nulls   boolean;
+    seq     text;
+    created integer;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = tbl::regclass) THEN
+        RETURN 0;
+    END IF;
+
+    EXECUTE format('LOCK TABLE %I IN ACCESS EXCLUSIVE MODE', tbl);
+    EXECUTE format('SELECT EXISTS(SELECT 1 FROM %I WHERE %I IS NULL)', tbl, col) INTO nulls;
+    IF nulls THEN
+        RAISE EXCEPTION 'Column % of table % has NULL values', col, tbl;
+    END IF;
+    EXECUTE format('SELECT min(%I), max(%I) FROM %I', col, col, tbl) INTO lo, hi;
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', tbl, source);
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (%I)',
+                   tbl, source, col);
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id, %I)', tbl, col);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tbl || '_default', tbl);
+
+    lo := date_trunc('day', coalesce(lo, now()::timestamp));
+    hi := coalesce(hi, now()::timestamp) + step;
+    created := create_range_partitions(tbl, step, lo, hi);
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', tbl, source);
+
+    seq := pg_get_serial_sequence(source, 'id');
+    IF seq IS NOT NULL THEN
+        EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.id', seq, tbl);
+    END IF;
+    EXECUTE format('DROP TABLE %I', source);
+
+    RETURN created;
+END $$;
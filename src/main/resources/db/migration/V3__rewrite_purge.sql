@@ -0,0 +1,50 @@
+-- Триггерная функция для режима удаления REWRITE: пока выжившие строки копируются в новую таблицу,
+-- запоминает id изменённых строк в журнальной таблице TG_ARGV[0], чтобы перенести их при переключении
+CREATE OR REPLACE FUNCTION rewrite_capture()
+    RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        EXECUTE format('INSERT INTO %I (id) VALUES ($1)', TG_ARGV[0]) USING OLD.id;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        EXECUTE format('INSERT INTO %I (id) VALUES ($1)', TG_ARGV[0]) USING NEW.id;
+    END IF;
+    RETURN NULL;
+END $$;
+
+-- Переносит на новую таблицу режима REWRITE владельца, права и комментарии исходной таблицы и её колонок:
+-- CREATE TABLE ... (LIKE ...) их не копирует, а исходная таблица удаляется после подмены
+CREATE OR REPLACE FUNCTION rewrite_copy_properties(source regclass, target regclass)
+    RETURNS void
+    LANGUAGE plpgsql AS $$
+DECLARE
+    owner name;
+    acl   record;
+    col   record;
+BEGIN
+    SELECT pg_get_userbyid(relowner) INTO owner FROM pg_class WHERE oid = source;
+    IF owner <> (SELECT pg_get_userbyid(relowner) FROM pg_class WHERE oid = target) THEN
+        EXECUTE format('ALTER TABLE %s OWNER TO %I', target, owner);
+    END IF;
+
+    -- Права владельца он получает вместе с таблицей
+    FOR acl IN
+        SELECT a.privilege_type, a.is_grantable,
+               CASE WHEN a.grantee = 0 THEN 'PUBLIC' ELSE quote_ident(pg_get_userbyid(a.grantee)) END AS grantee
+        FROM pg_class c, aclexplode(c.relacl) a
+        WHERE c.oid = source AND a.grantee <> c.relowner
+        LOOP
+            EXECUTE format('GRANT %s ON %s TO %s%s', acl.privilege_type, target, acl.grantee,
+                           CASE WHEN acl.is_grantable THEN ' WITH GRANT OPTION' ELSE '' END);
+        END LOOP;
+
+    EXECUTE format('COMMENT ON TABLE %s IS %L', target, obj_description(source, 'pg_class'));
+    FOR col IN
+        SELECT attname, col_description(source, attnum) AS description
+        FROM pg_attribute
+        WHERE attrelid = source AND attnum > 0 AND NOT attisdropped AND col_description(source, attnum) IS NOT NULL
+        LOOP
+            EXECUTE format('COMMENT ON COLUMN %s.%I IS %L', target, col.attname, col.description);
+        END LOOP;
+END $$;
@@ -0,0 +1,29 @@
+-- Политики хранения: список таблиц, из которых разрешено удаление, колонка времени,
+-- срок хранения и расписание фонового удаления (cron Spring: секунды минуты часы день месяц день_недели)
+CREATE TABLE IF NOT EXISTS retention_policy (
+    table_name  VARCHAR(63) PRIMARY KEY,
+    column_name VARCHAR(63)  NOT NULL DEFAULT 'col4',
+    max_age     INTERVAL     NOT NULL,
+    schedule    VARCHAR(120) NOT NULL DEFAULT '0 0 3 * * *',
+    mode        VARCHAR(20),
+    enabled     BOOLEAN      NOT NULL DEFAULT false,
+    last_run_at TIMESTAMPTZ,
+    next_run_at TIMESTAMPTZ,
+    last_job_id UUID,
+    -- Имена подставляются в текст SQL, поэтому только простые идентификаторы без кавычек
+    CONSTRAINT retention_policy_table_name_check CHECK (table_name ~ '^[a-z_][a-z0-9_]*$'),
+    CONSTRAINT retention_policy_column_name_check CHECK (column_name ~ '^[a-z_][a-z0-9_]*$'),
+    CONSTRAINT retention_policy_max_age_check CHECK (max_age > INTERVAL '0')
+);
+
+CREATE INDEX IF NOT EXISTS retention_policy_due_idx ON retention_policy (next_run_at) WHERE enabled;
+
+-- Существующие тестовые таблицы разрешены для ручного удаления, фоновое удаление включается явно
+INSERT INTO retention_policy (table_name, column_name, max_age)
+SELECT c.relname, 'col4', INTERVAL '90 days'
+FROM pg_class c
+JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname = current_schema()
+  AND c.relkind IN ('r', 'p')
+  AND c.relname ~ '^table_[0-9]+$'
+ON CONFLICT (table_name) DO NOTHING;
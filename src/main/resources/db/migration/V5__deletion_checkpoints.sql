@@ -0,0 +1,39 @@
+-- Контрольные точки задач удаления: после падения процесса незавершённая задача продолжается
+-- с последней закоммиченной порции. Строка задачи и строка её диапазона обновляются
+-- в той же транзакции, что и удаление порции
+CREATE TABLE IF NOT EXISTS deletion_job (
+    job_id          UUID PRIMARY KEY,
+    table_name      VARCHAR(63) NOT NULL,
+    column_name     VARCHAR(63) NOT NULL,
+    older_than      TIMESTAMP   NOT NULL,
+    mode            VARCHAR(20) NOT NULL,
+    -- QUEUED и RUNNING — незавершённые задачи
+    status          VARCHAR(20) NOT NULL,
+    -- Экземпляр приложения, который держит задачу в очереди или выполняет её, и время его последнего
+    -- подтверждения. Задачу без подтверждения дольше deletion.jobs.lease забирает другой экземпляр
+    owner_id        UUID        NOT NULL,
+    heartbeat_at    TIMESTAMPTZ NOT NULL DEFAULT now(),
+    -- Пауза или отмена, запрошенная через любой экземпляр; NULL — задача не приостановлена.
+    -- Владелец применяет запрос, request_seq которого больше уже применённого
+    requested_state VARCHAR(20),
+    request_seq     BIGINT      NOT NULL DEFAULT 0,
+    min_id          BIGINT,
+    max_id          BIGINT,
+    rows_scanned    BIGINT      NOT NULL DEFAULT 0,
+    rows_deleted    BIGINT      NOT NULL DEFAULT 0,
+    chunks          INTEGER     NOT NULL DEFAULT 0,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS deletion_job_unfinished_idx ON deletion_job (table_name)
+    WHERE status IN ('QUEUED', 'RUNNING');
+
+-- Диапазоны id задачи: [range_from, range_to] пройден до next_id (не включая)
+CREATE TABLE IF NOT EXISTS deletion_job_range (
+    job_id     UUID   NOT NULL REFERENCES deletion_job (job_id) ON DELETE CASCADE,
+    range_from BIGINT NOT NULL,
+    range_to   BIGINT NOT NULL,
+    next_id    BIGINT NOT NULL,
+    PRIMARY KEY (job_id, range_to)
+);
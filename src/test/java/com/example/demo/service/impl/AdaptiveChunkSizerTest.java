@@ -0,0 +1,53 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Размер порции сходится к целевому времени, меняется ограниченными шагами и не выходит за границы
+class AdaptiveChunkSizerTest {
+
+    @Test
+    void growsAtMostByHalfWhenChunksAreFast() {
+        var sizer = new AdaptiveChunkSizer(1000, 100, 10_000, 500);
+
+        sizer.next();
+        sizer.onChunk(1);
+        assertThat(sizer.next()).isEqualTo(1500);
+        assertThat(sizer.getIssued()).isEqualTo(1500);
+    }
+
+    @Test
+    void shrinksAtMostByHalfWhenChunksAreSlow() {
+        var sizer = new AdaptiveChunkSizer(1000, 100, 10_000, 500);
+
+        sizer.onChunk(60_000);
+        assertThat(sizer.next()).isEqualTo(500);
+    }
+
+    @Test
+    void convergesToTargetLatency() {
+        var sizer = new AdaptiveChunkSizer(1000, 100, 100_000, 500);
+        // Время порции пропорционально размеру: 1 мс на 10 строк, цель — 5000 строк
+        for (int i = 0; i < 20; i++) {
+            sizer.onChunk(sizer.next() / 10);
+        }
+        assertThat(sizer.next()).isBetween(4900, 5100);
+    }
+
+    @Test
+    void staysWithinBounds() {
+        var sizer = new AdaptiveChunkSizer(50, 100, 1000, 500);
+        assertThat(sizer.next()).isEqualTo(100);
+
+        for (int i = 0; i < 10; i++) {
+            sizer.onBackpressure();
+        }
+        assertThat(sizer.next()).isEqualTo(100);
+
+        for (int i = 0; i < 20; i++) {
+            sizer.onChunk(0);
+        }
+        assertThat(sizer.next()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service.impl;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Слова архивов совпадают с подсчётом распакованного текста; буферы распаковки меньше слов,
+// поэтому слова и символы UTF-8 разрезаются между буферами. Метаданные macOS не считаются
+class ArchiveWordCounterTest {
+
+    private static final String TEXT = String.join("\n",
+            "Война и мир — роман-эпопея Льва Николаевича Толстого, война",
+            "İSTANBUL İzmir ΟΔΥΣΣΕΥΣ σοφός 𝐀𝐁𝐂 𐐀𐐨 abc1def word",
+            "a bb ccc dddd eeeee ffffff Война мир мир\n");
+
+    private final Utf8WordTokenizer tokenizer = new Utf8WordTokenizer();
+    private final ExecutorService decompressExecutor = Executors.newCachedThreadPool();
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final ArchiveWordCounter counter = new ArchiveWordCounter(decompressExecutor, DataSize.ofBytes(5));
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void stopExecutors() {
+        pool.shutdownNow();
+        decompressExecutor.shutdownNow();
+    }
+
+    @Test
+    void countsZipTextEntries() throws Exception {
+        var file = dir.resolve("texts.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            for (var name : new String[]{"one.txt", "nested/two.txt", "three.txt"}) {
+                writeEntry(zip, name, TEXT);
+            }
+            writeEntry(zip, "image.png", "Война Война");
+            writeEntry(zip, "__MACOSX/one.txt", "Война Война");
+            writeEntry(zip, "__MACOSX/nested/._two.txt", "Война Война");
+            writeEntry(zip, "nested/._three.txt", "Война Война");
+            zip.putNextEntry(new ZipEntry("empty.txt/"));
+            zip.closeEntry();
+        }
+
+        var expected = expected(3);
+        assertThat(count(file)).isEqualTo(expected).containsEntry("война", 9L);
+    }
+
+    @Test
+    void countsGzipText() throws Exception {
+        var file = dir.resolve("text.txt.gz");
+        try (var out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(count(file)).isEqualTo(expected(1));
+    }
+
+    @Test
+    void countsZstdText() throws Exception {
+        var file = dir.resolve("text.txt.zst");
+        try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(file))) {
+            out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(count(file)).isEqualTo(expected(1));
+    }
+
+    @Test
+    void recognisesArchivesByName() {
+        assertThat(counter.isArchive(Path.of("a.zip"))).isTrue();
+        assertThat(counter.isArchive(Path.of("a.txt.gz"))).isTrue();
+        assertThat(counter.isArchive(Path.of("a.txt.zst"))).isTrue();
+        assertThat(counter.isArchive(Path.of("a.txt"))).isFalse();
+        assertThat(counter.isArchive(Path.of("a.tar.gz"))).isFalse();
+    }
+
+    private Map<String, Long> count(Path file) throws Exception {
+        var partials = new PartialWordCounts();
+        pool.submit(() -> {
+            counter.count(file, 0, () -> partials.local()::add);
+            return null;
+        }).get();
+        var counts = new HashMap<String, Long>();
+        partials.merge(pool).forEach(counts::put);
+        return counts;
+    }
+
+    private Map<String, Long> expected(int copies) throws IOException {
+        var map = new WordCountMap();
+        tokenizer.tokenize(Files.writeString(dir.resolve("plain.txt"), TEXT, StandardCharsets.UTF_8), 0, map::add);
+        var counts = new HashMap<String, Long>();
+        map.forEach((word, count) -> counts.put(word, count * copies));
+        return counts;
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, String text) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(text.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
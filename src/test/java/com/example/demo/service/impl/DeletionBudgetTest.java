@@ -0,0 +1,92 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Таблицы делят соединения поровну, прерванное ожидание не оставляет занятых долей и разрешений
+class DeletionBudgetTest {
+
+    private final Semaphore permits = new Semaphore(4);
+    // Пул из 6 соединений, 2 зарезервированы: удалению достаются 4
+    private final DeletionBudget budget = new DeletionBudget(permits, 6, 2, 0);
+
+    @Test
+    void singleTableTakesAllConnections() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            budget.acquire("table_1");
+        }
+        assertThat(permits.availablePermits()).isZero();
+
+        for (int i = 0; i < 4; i++) {
+            budget.release("table_1");
+        }
+        assertThat(permits.availablePermits()).isEqualTo(4);
+    }
+
+    @Test
+    void busyTableLeavesShareToAnotherTable() throws InterruptedException {
+        budget.acquire("table_1");
+        budget.acquire("table_1");
+        var second = start(() -> budget.acquire("table_2"));
+        // table_1 заняла свою половину: третья порция ждёт, пока table_2 не получит разрешение
+        var third = start(() -> budget.acquire("table_1"));
+
+        assertThat(second.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(third.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        budget.release("table_1");
+        assertThat(third.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(permits.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedWaitReleasesShare() throws InterruptedException {
+        budget.acquire("table_1");
+        budget.acquire("table_1");
+        budget.acquire("table_2");
+        budget.acquire("table_2");
+        var waiting = new Thread(() -> {
+            try {
+                budget.acquire("table_2");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        waiting.interrupt();
+        waiting.join(5000);
+
+        budget.release("table_2");
+        budget.release("table_2");
+        // Прерванная порция не считается спросом table_2: table_1 снова получает все соединения
+        var acquired = start(() -> {
+            budget.acquire("table_1");
+            budget.acquire("table_1");
+        });
+        assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(permits.availablePermits()).isZero();
+    }
+
+    @FunctionalInterface
+    private interface Acquire {
+        void run() throws InterruptedException;
+    }
+
+    private static CountDownLatch start(Acquire acquire) {
+        var done = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            try {
+                acquire.run();
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return done;
+    }
+}
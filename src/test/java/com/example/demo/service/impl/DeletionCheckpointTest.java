@@ -0,0 +1,212 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionChunk;
+import com.example.demo.model.DeletionJobStatus;
+import com.example.demo.model.DeletionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Задача, упавшая посреди удаления, продолжается другим экземпляром приложения с последней закоммиченной
+// порции: строки не теряются и не учитываются дважды. Задачу живого экземпляра никто не забирает
+class DeletionCheckpointTest extends PostgresTestSupport {
+
+    private static final String TABLE_NAME = "table_1";
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    private final JdbcConnector jdbcConnector = new JdbcConnector(jdbcTemplate);
+    private final DeletionCheckpointConnector checkpointConnector = new DeletionCheckpointConnector(jdbcTemplate);
+    // Второй экземпляр приложения
+    private final DeletionCheckpointConnector otherConnector = new DeletionCheckpointConnector(jdbcTemplate);
+    private final DeletionChunkRunner runner = new DeletionChunkRunner(
+            new DeletionBudget(new Semaphore(4), 4, 0, 0), new DeletionMetrics(new SimpleMeterRegistry()),
+            50, 10, 50, 500, 60_000, 1, 1);
+    private final ThreadPoolTaskExecutor workers = new ThreadPoolTaskExecutor();
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        migrate("V5__deletion_checkpoints.sql");
+    }
+
+    @BeforeEach
+    void seed() {
+        createTable(TABLE_NAME, 1000);
+        jdbcTemplate.update("DELETE FROM deletion_job");
+        workers.setMaxPoolSize(2);
+        workers.setCorePoolSize(2);
+        workers.initialize();
+    }
+
+    @AfterEach
+    void stopWorkers() {
+        workers.shutdown();
+    }
+
+    @Test
+    void keysetResumesFromCheckpoint() throws InterruptedException {
+        var job = startJob(DeletionMode.SEQUENTIAL);
+
+        assertThatThrownBy(() -> keysetEngine(3).delete(job, job.getRestoredRange()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(count("SELECT rows_deleted FROM deletion_job")).isBetween(1L, 499L);
+
+        var resumed = resume();
+        keysetEngine(Integer.MAX_VALUE).delete(resumed, resumed.getRestoredRange());
+
+        assertDeleted(resumed);
+    }
+
+    @Test
+    void parallelResumesFromCheckpoint() throws InterruptedException {
+        var job = startJob(DeletionMode.PARALLEL);
+
+        assertThatThrownBy(() -> parallelEngine(5).delete(job, job.getRestoredRange()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(count("SELECT count(*) FROM table_1 WHERE col4 < ?", NOW.minusDays(50))).isBetween(1L, 499L);
+
+        var resumed = resume();
+        parallelEngine(Integer.MAX_VALUE).delete(resumed, resumed.getRestoredRange());
+
+        assertDeleted(resumed);
+        // Пройденные до падения диапазоны учтены в прогрессе продолженной задачи
+        assertThat(resumed.snapshot().progress()).isEqualTo(1);
+    }
+
+    @Test
+    void takesOverOnlyStaleJobs() throws InterruptedException {
+        var job = startJob(DeletionMode.SEQUENTIAL);
+        var queued = new DeletionJob("table_2", "col4", NOW.minusDays(50), DeletionMode.SEQUENTIAL);
+        checkpointConnector.createJob(queued);
+        checkpointConnector.saveRequest(queued.getId(), DeletionJobStatus.PAUSED);
+
+        // Владелец жив: ни выполняемую, ни приостановленную в очереди задачу не забирают
+        assertThat(otherConnector.findStaleJobs(LEASE)).isEmpty();
+        assertThat(otherConnector.takeOverJob(job.getId(), LEASE)).isFalse();
+
+        expireHeartbeats();
+        assertThat(checkpointConnector.findStaleJobs(LEASE)).as("own jobs").isEmpty();
+        assertThat(otherConnector.findStaleJobs(LEASE)).hasSize(2);
+        assertThat(otherConnector.takeOverJob(job.getId(), LEASE)).isTrue();
+        assertThat(new DeletionCheckpointConnector(jdbcTemplate).takeOverJob(job.getId(), LEASE)).isFalse();
+
+        // Прежний владелец узнаёт о потере задачи и не может её ни запустить, ни завершить
+        assertThat(checkpointConnector.heartbeat(job)).isFalse();
+        assertThat(checkpointConnector.claimJob(job.getId())).isFalse();
+        checkpointConnector.finishJob(job.getId(), DeletionJobStatus.CANCELLED);
+        assertThat(otherConnector.claimJob(job.getId())).isTrue();
+    }
+
+    @Test
+    void appliesRequestsSavedByOtherInstance() throws InterruptedException {
+        var job = startJob(DeletionMode.SEQUENTIAL);
+
+        otherConnector.saveRequest(job.getId(), DeletionJobStatus.PAUSED);
+        assertThat(checkpointConnector.heartbeat(job)).isTrue();
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.PAUSED);
+        // Копия задачи на другом экземпляре видит запрошенную паузу
+        assertThat(otherConnector.findUnfinishedJob(job.getId()).orElseThrow().snapshot().status())
+                .isEqualTo(DeletionJobStatus.PAUSED);
+
+        otherConnector.saveRequest(job.getId(), null);
+        checkpointConnector.heartbeat(job);
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.RUNNING);
+
+        otherConnector.saveRequest(job.getId(), DeletionJobStatus.CANCELLED);
+        checkpointConnector.heartbeat(job);
+        keysetEngine(Integer.MAX_VALUE).delete(job, job.getRestoredRange());
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.CANCELLED);
+        assertThat(count("SELECT rows_deleted FROM deletion_job")).isZero();
+
+        // Уже применённый запрос не применяется повторно
+        var resumed = new DeletionJob(job.getId(), TABLE_NAME, "col4", NOW.minusDays(50), DeletionMode.SEQUENTIAL);
+        resumed.acceptRequest(3);
+        checkpointConnector.heartbeat(resumed);
+        assertThat(resumed.snapshot().status()).isEqualTo(DeletionJobStatus.QUEUED);
+    }
+
+    // Задача в том виде, в каком её запускает DeletionServiceImpl; диапазон отдаётся через restoredRange
+    private DeletionJob startJob(DeletionMode mode) throws InterruptedException {
+        var job = new DeletionJob(TABLE_NAME, "col4", NOW.minusDays(50), mode);
+        checkpointConnector.createJob(job);
+        checkpointConnector.claimJob(job.getId());
+        var range = jdbcConnector.getIdRange(TABLE_NAME);
+        checkpointConnector.setIdRange(job.getId(), range);
+        job.restore(range, 0, 0, 0, 0);
+        job.start(range);
+        return job;
+    }
+
+    // Упавший экземпляр перестал подтверждать задачу, её забирает другой
+    private DeletionJob resume() throws InterruptedException {
+        expireHeartbeats();
+        var jobs = otherConnector.findStaleJobs(LEASE);
+        assertThat(jobs).hasSize(1);
+        var job = jobs.get(0);
+        assertThat(otherConnector.takeOverJob(job.getId(), LEASE)).isTrue();
+        assertThat(otherConnector.claimJob(job.getId())).isTrue();
+        job.start(job.getRestoredRange());
+        return job;
+    }
+
+    private void expireHeartbeats() {
+        jdbcTemplate.update("UPDATE deletion_job SET heartbeat_at = now() - interval '2 minutes'");
+    }
+
+    private void assertDeleted(DeletionJob job) {
+        assertThat(count("SELECT count(*) FROM table_1 WHERE col4 < ?", NOW.minusDays(50))).isZero();
+        assertThat(count("SELECT count(*) FROM table_1")).isEqualTo(500);
+        assertThat(count("SELECT rows_deleted FROM deletion_job")).isEqualTo(500);
+        assertThat(job.snapshot().rowsDeleted()).isEqualTo(500);
+    }
+
+    private KeysetDeletionEngine keysetEngine(int failAfter) {
+        return new KeysetDeletionEngine(jdbcConnector, new CrashingDeleter(failAfter), checkpointConnector, runner);
+    }
+
+    private ParallelDeletionEngine parallelEngine(int failAfter) {
+        var engine = new ParallelDeletionEngine(new CrashingDeleter(failAfter), checkpointConnector, runner, workers);
+        ReflectionTestUtils.setField(engine, "rangesPerWorker", 4);
+        return engine;
+    }
+
+    // Транзакции порций, как через прокси Spring; после failAfter порций процесс «падает» до коммита
+    private class CrashingDeleter extends CheckpointedChunkDeleter {
+
+        private final AtomicInteger chunks = new AtomicInteger();
+        private final int failAfter;
+
+        CrashingDeleter(int failAfter) {
+            super(jdbcConnector, checkpointConnector);
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public DeletionChunk deleteChunk(DeletionJob job, long rangeTo, long afterId, int chunkSize) {
+            return transactionTemplate.execute(status -> crashAfterChunk(super.deleteChunk(job, rangeTo, afterId, chunkSize)));
+        }
+
+        @Override
+        public DeletionChunk deleteRange(DeletionJob job, long rangeTo, long fromId, long toId) {
+            return transactionTemplate.execute(status -> crashAfterChunk(super.deleteRange(job, rangeTo, fromId, toId)));
+        }
+
+        private DeletionChunk crashAfterChunk(DeletionChunk chunk) {
+            if (chunks.incrementAndGet() > failAfter) {
+                throw new IllegalStateException("Process killed");
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionChunk;
+import com.example.demo.model.DeletionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Упавшая порция повторяется с меньшим размером, после max-retries ошибка уходит задаче
+class DeletionChunkRunnerTest {
+
+    private final Semaphore permits = new Semaphore(2);
+    private final DeletionChunkRunner runner = new DeletionChunkRunner(
+            new DeletionBudget(permits, 4, 2, 0), new DeletionMetrics(new SimpleMeterRegistry()),
+            1000, 10, 10_000, 500, 60_000, 3, 1);
+    private final DeletionJob job = new DeletionJob("table_1", "col4", LocalDateTime.now(), DeletionMode.SEQUENTIAL);
+
+    @Test
+    void retriesLockTimeoutWithSmallerChunk() throws InterruptedException {
+        var sizes = new ArrayList<Integer>();
+        var sizer = runner.newSizer();
+
+        var chunk = runner.run(job, sizer, size -> {
+            sizes.add(size);
+            if (sizes.size() == 1) {
+                throw new CannotAcquireLockException("lock_timeout");
+            }
+            return new DeletionChunk(size, size, (long) size);
+        });
+
+        assertThat(sizes).containsExactly(1000, 500);
+        assertThat(chunk.deleted()).isEqualTo(500);
+        assertThat(job.snapshot().failures()).hasSize(1);
+        assertThat(permits.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        var sizer = runner.newSizer();
+
+        assertThatThrownBy(() -> runner.run(job, sizer, size -> {
+            throw new DataRetrievalFailureException("connection lost");
+        })).isInstanceOf(DataRetrievalFailureException.class);
+        assertThat(job.snapshot().failures()).hasSize(3);
+        assertThat(permits.availablePermits()).isEqualTo(2);
+    }
+}
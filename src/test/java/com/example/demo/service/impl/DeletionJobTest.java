@@ -0,0 +1,62 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionChunk;
+import com.example.demo.model.DeletionJobStatus;
+import com.example.demo.model.DeletionMode;
+import com.example.demo.model.IdRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Пауза и отмена задачи до и после её запуска воркером
+class DeletionJobTest {
+
+    private static final IdRange RANGE = new IdRange(1L, 100L);
+
+    private final DeletionJob job = new DeletionJob("table_1", "col4", LocalDateTime.now(), DeletionMode.SEQUENTIAL);
+
+    @Test
+    void pausedInQueueStartsAfterResume() throws Exception {
+        job.pause();
+        var started = CompletableFuture.supplyAsync(() -> {
+            try {
+                return job.start(RANGE);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(started).isNotDone();
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.PAUSED);
+
+        job.resume();
+        assertThat(started.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.RUNNING);
+    }
+
+    @Test
+    void cancelledInQueueNeverStarts() throws Exception {
+        job.pause();
+        job.cancel();
+
+        assertThat(job.awaitStart()).isFalse();
+        assertThat(job.start(RANGE)).isFalse();
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.CANCELLED);
+    }
+
+    @Test
+    void progressCountsCoveredIds() throws Exception {
+        job.start(RANGE);
+        job.onChunk(new DeletionChunk(10, 10, 50L), 50);
+
+        assertThat(job.snapshot().progress()).isEqualTo(0.5);
+        job.complete();
+        assertThat(job.snapshot().status()).isEqualTo(DeletionJobStatus.COMPLETED);
+        assertThat(job.snapshot().progress()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Порции удаляют только строки старше границы и не выходят за диапазон id задачи
+class JdbcConnectorTest extends PostgresTestSupport {
+
+    private static final String TABLE_NAME = "table_1";
+
+    private JdbcConnector connector;
+
+    @BeforeEach
+    void seed() {
+        createTable(TABLE_NAME, 1000);
+        connector = new JdbcConnector(jdbcTemplate);
+    }
+
+    @Test
+    void keysetChunkStopsAtRangeEnd() {
+        var olderThan = NOW.minusDays(50);
+
+        var chunk = connector.deleteChunk(TABLE_NAME, "col4", olderThan, 0, 300, 10_000);
+
+        // Строки 1..300 с i % 100 >= 50 — по 50 на каждую сотню
+        assertThat(chunk.deleted()).isEqualTo(150);
+        assertThat(chunk.lastId()).isLessThanOrEqualTo(300);
+        assertThat(count("SELECT count(*) FROM table_1 WHERE id > 300")).isEqualTo(700);
+    }
+
+    @Test
+    void keysetChunkHonoursLimitAndLastId() {
+        var olderThan = NOW.minusDays(50);
+
+        var first = connector.deleteChunk(TABLE_NAME, "col4", olderThan, 0, 1000, 30);
+        var second = connector.deleteChunk(TABLE_NAME, "col4", olderThan, first.lastId(), 1000, 30);
+
+        assertThat(first.matched()).isEqualTo(30);
+        assertThat(second.matched()).isEqualTo(30);
+        assertThat(second.lastId()).isGreaterThan(first.lastId());
+        assertThat(count("SELECT count(*) FROM table_1")).isEqualTo(940);
+    }
+
+    @Test
+    void readsIdRangeOfSerialKey() {
+        var range = connector.getIdRange(TABLE_NAME);
+
+        assertThat(range.minId()).isEqualTo(1);
+        assertThat(range.maxId()).isEqualTo(1000);
+    }
+
+    @Test
+    void rangeChunkDeletesHalfOpenInterval() {
+        var chunk = connector.deleteRange(TABLE_NAME, "col4", NOW.minusDays(50), 1, 101);
+
+        assertThat(chunk.deleted()).isEqualTo(50);
+        assertThat(chunk.lastId()).isEqualTo(100);
+        assertThat(count("SELECT count(*) FROM table_1 WHERE id = 101")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.PartitionInfo;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Преобразование таблицы в партиционированную и создание партиций наперёд
+class PartitionConnectorTest extends PostgresTestSupport {
+
+    private static final String TABLE_NAME = "table_1";
+    private static final Duration STEP = Duration.ofDays(1);
+
+    private PartitionConnector connector;
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        migrate("V2__range_partitioning.sql");
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS table_1 CASCADE");
+        createTable(TABLE_NAME, 1000);
+        connector = new PartitionConnector(jdbcTemplate);
+    }
+
+    @Test
+    void keepsPrimaryKeyWithPartitionColumn() {
+        assertThat(connector.partitionTable(TABLE_NAME, "col4", STEP)).isGreaterThan(100);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conrelid = 'table_1'::regclass AND contype = 'p'",
+                String.class)).isEqualTo("PRIMARY KEY (id, col4)");
+        assertThat(count("SELECT count(*) FROM table_1")).isEqualTo(1000);
+        assertThat(count("SELECT count(*) FROM table_1_default")).isZero();
+        // Последовательность id перешла к новой таблице
+        jdbcTemplate.update("INSERT INTO table_1 (col4) VALUES (?)", NOW);
+        assertThat(count("SELECT max(id) FROM table_1")).isEqualTo(1001);
+    }
+
+    @Test
+    void movesDefaultPartitionRowsIntoNewPartition() {
+        connector.partitionTable(TABLE_NAME, "col4", STEP);
+        var last = connector.getPartitions(TABLE_NAME).stream()
+                .filter(partition -> !partition.isDefault())
+                .max(Comparator.comparing(PartitionInfo::to))
+                .orElseThrow();
+        // Строка за последней партицией попадает в партицию по умолчанию
+        jdbcTemplate.update("INSERT INTO table_1 (col4) VALUES (?)", last.to().plusDays(3).plusHours(1));
+        assertThat(count("SELECT count(*) FROM table_1_default")).isEqualTo(1);
+
+        assertThat(connector.createPartitions(TABLE_NAME, STEP, last.to(), last.to().plusDays(7))).isEqualTo(7);
+
+        assertThat(count("SELECT count(*) FROM table_1_default")).isZero();
+        assertThat(count("SELECT count(*) FROM table_1 WHERE col4 > ?", last.to())).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsNullPartitionColumn() {
+        jdbcTemplate.update("UPDATE table_1 SET col4 = NULL WHERE id = 1");
+
+        assertThatThrownBy(() -> connector.partitionTable(TABLE_NAME, "col4", STEP))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("NULL values");
+        assertThat(connector.isPartitioned(TABLE_NAME)).isFalse();
+    }
+}
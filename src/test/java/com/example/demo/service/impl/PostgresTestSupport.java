@@ -0,0 +1,74 @@
+package com.example.demo.service.impl;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// Встроенный PostgreSQL на класс тестов и таблицы той же структуры, что в V1__init_tables.sql.
+// Строка i старше i % 100 дней и ещё одного часа: граница в 50 дней отсекает ровно половину строк
+abstract class PostgresTestSupport {
+
+    private static final String CREATE_TABLE_COMMAND =
+            """
+                    DROP TABLE IF EXISTS %1$s CASCADE;
+                    CREATE TABLE %1$s (
+                        id SERIAL PRIMARY KEY,
+                        col1 VARCHAR(255),
+                        col2 INTEGER,
+                        col3 NUMERIC(10,2),
+                        col4 TIMESTAMP
+                    )
+                    """;
+
+    private static final String SEED_COMMAND =
+            """
+                    INSERT INTO %s (col1, col2, col3, col4)
+                    SELECT md5(i::text), i %% 100, i / 10.0, ?::timestamp - (i %% 100) * INTERVAL '1 day' - INTERVAL '1 hour'
+                    FROM generate_series(1, ?) AS i
+                    """;
+
+    static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+    static EmbeddedPostgres postgres;
+    static JdbcTemplate jdbcTemplate;
+    static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        // Транзакция привязывается к объекту DataSource: JdbcTemplate должен получать соединения из того же
+        var dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    static void createTable(String tableName, int rows) {
+        jdbcTemplate.execute(CREATE_TABLE_COMMAND.formatted(tableName));
+        jdbcTemplate.update(SEED_COMMAND.formatted(tableName), NOW, rows);
+        jdbcTemplate.execute("ANALYZE " + tableName);
+    }
+
+    // Миграции из db/migration целиком, без V1: она заполняет таблицы миллионами строк
+    static void migrate(String... scripts) throws IOException {
+        for (var script : scripts) {
+            jdbcTemplate.execute(new ClassPathResource("db/migration/" + script).getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    static long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
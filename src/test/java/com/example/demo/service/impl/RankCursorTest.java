@@ -0,0 +1,78 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.WordFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Курсор переживает кодирование, а постраничный обход снимка рейтинга совпадает с полным топом,
+// в том числе когда граница страницы приходится на слова с одинаковой частотой
+class RankCursorTest {
+
+    @Test
+    void decodesEncodedCursor() {
+        var cursor = new RankCursor(UUID.randomUUID(), 42, "слово:с:двоеточиями");
+
+        assertThat(RankCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        var snapshot = RankingSnapshot.of(counts());
+        var cursor = RankCursor.after(snapshot.id(), new WordFrequency("я", 9, 1));
+
+        assertThatThrownBy(() -> RankCursor.decode("не курсор"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RankCursor.decode(cursor.encode().substring(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Курсор другого снимка и курсор, место которого не совпадает со словом
+        assertThatThrownBy(() -> RankingSnapshot.of(counts()).page(5, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshot.page(5, new RankCursor(snapshot.id(), 2, "я")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshot.page(5, new RankCursor(snapshot.id(), 13, "ю")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pagesContinueRankingAcrossTies() {
+        var counts = counts();
+        var snapshot = RankingSnapshot.of(counts);
+
+        for (int limit = 1; limit <= 13; limit++) {
+            var pages = new ArrayList<WordFrequency>();
+            RankCursor after = null;
+            while (true) {
+                var page = snapshot.page(limit, after);
+                pages.addAll(page);
+                var next = snapshot.nextCursor(page);
+                if (next == null) {
+                    break;
+                }
+                after = RankCursor.decode(next);
+            }
+            assertThat(pages).as("limit %d", limit).isEqualTo(counts.top(100));
+        }
+        assertThat(counts.top(3)).extracting(WordFrequency::word).containsExactly("я", "а", "б");
+        assertThat(snapshot.words()).extracting(WordFrequency::position).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        // Последняя полная страница не ведёт на пустую
+        assertThat(snapshot.nextCursor(snapshot.page(12, null))).isNull();
+    }
+
+    // Десять слов с частотой 5 и по одному с частотами 9 и 1
+    private static WordCounts counts() {
+        var map = new WordCountMap();
+        for (var word : List.of("к", "и", "з", "ж", "е", "д", "г", "в", "б", "а")) {
+            map.add(word, 5);
+        }
+        map.add("я", 9);
+        map.add("ю", 1);
+        return new WordCounts(map);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionMode;
+import com.example.demo.model.RetentionPolicyRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Политика сохраняется только для существующей колонки времени, положительного срока и корректного расписания
+class RetentionPolicyServiceImplTest extends PostgresTestSupport {
+
+    private final RetentionPolicyServiceImpl service =
+            new RetentionPolicyServiceImpl(new RetentionPolicyConnector(jdbcTemplate));
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        migrate("V4__retention_policies.sql");
+    }
+
+    @BeforeEach
+    void seed() {
+        createTable("table_1", 10);
+        jdbcTemplate.update("DELETE FROM retention_policy");
+    }
+
+    @Test
+    void savesPolicyWithDefaults() {
+        var policy = service.savePolicy("table_1", new RetentionPolicyRequest(null, Duration.ofDays(30), null, null, true));
+
+        assertThat(policy.column()).isEqualTo("col4");
+        assertThat(policy.maxAge()).isEqualTo(Duration.ofDays(30));
+        assertThat(policy.schedule()).isEqualTo("0 0 3 * * *");
+        assertThat(policy.nextRunAt()).isAfter(Instant.now());
+        assertThat(service.getPolicies()).containsExactly(policy);
+    }
+
+    @Test
+    void disabledPolicyIsNotScheduled() {
+        var policy = service.savePolicy("table_1",
+                new RetentionPolicyRequest("col4", Duration.ofHours(1), "0 */5 * * * *", DeletionMode.PARALLEL, false));
+
+        assertThat(policy.nextRunAt()).isNull();
+        assertThat(policy.mode()).isEqualTo(DeletionMode.PARALLEL);
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertInvalid("table_1; DROP TABLE table_1", new RetentionPolicyRequest(null, Duration.ofDays(1), null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest("Col4", Duration.ofDays(1), null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest("absent", Duration.ofDays(1), null, null, true));
+        assertInvalid("absent", new RetentionPolicyRequest(null, Duration.ofDays(1), null, null, true));
+        // Колонка не время
+        assertInvalid("table_1", new RetentionPolicyRequest("col2", Duration.ofDays(1), null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest(null, null, null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest(null, Duration.ofDays(-1), null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest(null, Duration.ofMillis(500), null, null, true));
+        assertInvalid("table_1", new RetentionPolicyRequest(null, Duration.ofDays(1), "every day", null, true));
+        // 30 февраля не наступает никогда
+        assertInvalid("table_1", new RetentionPolicyRequest(null, Duration.ofDays(1), "0 0 0 30 2 *", null, true));
+
+        assertThat(service.getPolicies()).isEmpty();
+    }
+
+    private void assertInvalid(String tableName, RetentionPolicyRequest request) {
+        assertThatThrownBy(() -> service.savePolicy(tableName, request))
+                .as("%s %s", tableName, request)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionChunk;
+import com.example.demo.model.DeletionMode;
+import com.example.demo.model.IdRange;
+import com.example.demo.model.IndexDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Строки, добавленные и изменённые до и во время копирования, переживают подмену таблицы вместе с правами
+// и комментариями; таблицы с объектами, которые подмена потеряла бы, удаляются порциями
+class RewriteDeletionEngineTest extends PostgresTestSupport {
+
+    private static final String TABLE_NAME = "table_1";
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        migrate("V3__rewrite_purge.sql");
+        jdbcTemplate.execute("DROP ROLE IF EXISTS rewrite_reader");
+        jdbcTemplate.execute("CREATE ROLE rewrite_reader");
+    }
+
+    @Test
+    void keepsRowsChangedBeforeAndDuringCopy() throws InterruptedException {
+        createTable(TABLE_NAME, 1000);
+        var olderThan = NOW.minusDays(50);
+        var runner = new DeletionChunkRunner(new DeletionBudget(new Semaphore(1), 1, 1, 0),
+                new DeletionMetrics(new SimpleMeterRegistry()), 100, 10, 1000, 500, 60_000, 3, 1);
+        var engine = new RewriteDeletionEngine(new ChangingRewriteConnector(), new JdbcConnector(jdbcTemplate), runner, null);
+        var job = new DeletionJob(TABLE_NAME, "col4", olderThan, DeletionMode.REWRITE);
+        var range = new JdbcConnector(jdbcTemplate).getIdRange(TABLE_NAME);
+        job.start(range);
+
+        jdbcTemplate.execute("COMMENT ON TABLE table_1 IS 'журнал'");
+        jdbcTemplate.execute("COMMENT ON COLUMN table_1.col4 IS 'время записи'");
+        jdbcTemplate.execute("GRANT SELECT, UPDATE ON table_1 TO rewrite_reader");
+
+        // Вставка между чтением диапазона и созданием триггера
+        insert("after range");
+
+        engine.delete(job, range);
+
+        assertThat(count("SELECT count(*) FROM table_1 WHERE col4 < ?", olderThan)).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT col1 FROM table_1 WHERE length(col1) <> 32", String.class))
+                .containsExactlyInAnyOrder("after range", "during copy", "updated");
+        // 500 свежих строк, минус удалённая во время копирования, плюс две вставки и одна обновлённая старая строка
+        assertThat(count("SELECT count(*) FROM table_1")).isEqualTo(500 - 1 + 3);
+        assertThat(count("SELECT count(*) FROM table_1 WHERE id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM pg_class WHERE relname LIKE 'table_1\\_\\_%'")).isZero();
+        // Первичный ключ перестроен, последовательность id осталась у таблицы
+        assertThat(count("SELECT count(*) FROM pg_constraint WHERE conrelid = 'table_1'::regclass AND contype = 'p'")).isEqualTo(1);
+        insert("after swap");
+        assertThat(count("SELECT max(id) FROM table_1")).isEqualTo(1003);
+        // Права и комментарии перенесены на новую таблицу
+        assertThat(jdbcTemplate.queryForObject("SELECT obj_description('table_1'::regclass, 'pg_class')", String.class))
+                .isEqualTo("журнал");
+        assertThat(jdbcTemplate.queryForObject("SELECT col_description('table_1'::regclass, 5)", String.class))
+                .isEqualTo("время записи");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT privilege_type FROM information_schema.role_table_grants WHERE table_name = 'table_1' AND grantee = 'rewrite_reader'",
+                String.class)).containsExactlyInAnyOrder("SELECT", "UPDATE");
+    }
+
+    @Test
+    void fallsBackToChunkedDeletionForObjectsLostBySwap() throws InterruptedException {
+        var connector = new RewriteConnector(jdbcTemplate);
+        createTable(TABLE_NAME, 10);
+        assertThat(connector.isRewritable(TABLE_NAME)).isTrue();
+
+        // Исходящий внешний ключ
+        createTable("table_2", 10);
+        jdbcTemplate.execute("ALTER TABLE table_1 ADD COLUMN parent_id integer REFERENCES table_2 (id)");
+        assertThat(connector.isRewritable(TABLE_NAME)).isFalse();
+
+        // Пользовательский триггер
+        createTable(TABLE_NAME, 10);
+        jdbcTemplate.execute("""
+                CREATE FUNCTION touch() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN RETURN NEW; END $$;
+                CREATE TRIGGER table_1_touch BEFORE UPDATE ON table_1 FOR EACH ROW EXECUTE FUNCTION touch()
+                """);
+        assertThat(connector.isRewritable(TABLE_NAME)).isFalse();
+
+        // Триггер перезаписи от прерванного запуска не мешает
+        createTable(TABLE_NAME, 10);
+        connector.prepare(TABLE_NAME, false);
+        assertThat(connector.isRewritable(TABLE_NAME)).isTrue();
+        connector.cleanup(TABLE_NAME);
+
+        createTable(TABLE_NAME, 10);
+        jdbcTemplate.execute("ALTER TABLE table_1 ADD COLUMN seq integer GENERATED ALWAYS AS IDENTITY");
+        assertThat(connector.isRewritable(TABLE_NAME)).isFalse();
+
+        createTable(TABLE_NAME, 10);
+        jdbcTemplate.execute("ALTER TABLE table_1 ENABLE ROW LEVEL SECURITY");
+        assertThat(connector.isRewritable(TABLE_NAME)).isFalse();
+
+        // Движок отдаёт такую таблицу обычному удалению порциями и не создаёт копию
+        var fallbacks = new ArrayList<String>();
+        var chunked = new ParallelDeletionEngine(null, null, null, null) {
+            @Override
+            public void delete(DeletionJob job, IdRange range) {
+                fallbacks.add(job.getTableName());
+            }
+        };
+        var engine = new RewriteDeletionEngine(connector, new JdbcConnector(jdbcTemplate), null, chunked);
+        var job = new DeletionJob(TABLE_NAME, "col4", NOW.minusDays(50), DeletionMode.REWRITE);
+        engine.delete(job, new IdRange(1L, 10L));
+
+        assertThat(fallbacks).containsExactly(TABLE_NAME);
+        assertThat(count("SELECT count(*) FROM pg_class WHERE relname LIKE 'table_1\\_\\_%'")).isZero();
+    }
+
+    private static void insert(String marker) {
+        jdbcTemplate.update("INSERT INTO table_1 (col1, col4) VALUES (?, ?)", marker, NOW);
+    }
+
+    // Изменяет таблицу посреди копирования; подмена выполняется в транзакции, как через прокси Spring
+    private static class ChangingRewriteConnector extends RewriteConnector {
+
+        private boolean changed;
+
+        ChangingRewriteConnector() {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public DeletionChunk copyRange(String tableName, String column, LocalDateTime olderThan, long fromId, long toId) {
+            var chunk = super.copyRange(tableName, column, olderThan, fromId, toId);
+            if (!changed) {
+                changed = true;
+                insert("during copy");
+                // Строка 1 свежая и уже скопирована, строка 50 старая и не скопирована
+                jdbcTemplate.update("DELETE FROM table_1 WHERE id = 1");
+                jdbcTemplate.update("UPDATE table_1 SET col1 = 'updated', col4 = ? WHERE id = 50", NOW);
+            }
+            return chunk;
+        }
+
+        @Override
+        public void swap(String tableName, String column, LocalDateTime olderThan, List<IndexDefinition> indexes) {
+            transactionTemplate.executeWithoutResult(status -> super.swap(tableName, column, olderThan, indexes));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Двоичный ответ узла восстанавливается без потерь на границах длины varint
+class ShardCountsTest {
+
+    @Test
+    void decodesEncodedCounts() throws IOException {
+        var counts = new HashMap<String, Long>();
+        long[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, 1L << 56, Long.MAX_VALUE, -1};
+        for (int i = 0; i < values.length; i++) {
+            counts.put("слово" + i, values[i]);
+        }
+        counts.put("", 3L);
+        counts.put("𝐀𝐁𝐂", 5L);
+        counts.put("x".repeat(200), 7L);
+
+        for (var floor : values) {
+            var decoded = ShardCounts.decode(new ShardCounts(floor, counts).encode());
+            assertThat(decoded.floor()).isEqualTo(floor);
+            assertThat(decoded.counts()).isEqualTo(counts);
+        }
+    }
+
+    @Test
+    void encodesSmallCountsCompactly() {
+        // Заголовок 5 байт, floor и размер по байту, пара — длина, слово и частота
+        assertThat(new ShardCounts(0, Map.of("мир", 3L)).encode()).hasSize(5 + 1 + 1 + 1 + 6 + 1);
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedResponses() {
+        var encoded = new ShardCounts(100, Map.of("мир", 300L)).encode();
+
+        assertThatThrownBy(() -> ShardCounts.decode("not a shard".getBytes()))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> ShardCounts.decode(Arrays.copyOf(encoded, encoded.length - 1)))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.WordFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Оценки сводки и слияния сводок сверяются с точными частотами на корпусе с распределением Ципфа
+class SpaceSavingCounterTest {
+
+    private static final int CAPACITY = 64;
+    private static final int PARTS = 8;
+
+    private final List<String> corpus = new ArrayList<>();
+    private final Map<String, Long> exact = new HashMap<>();
+
+    SpaceSavingCounterTest() {
+        // Слово i встречается 20000 / (i + 1) раз: немного частых слов и длинный хвост редких
+        for (int i = 0; i < 2000; i++) {
+            var word = "w" + i;
+            for (int n = 0; n < 20_000 / (i + 1); n++) {
+                corpus.add(word);
+            }
+        }
+        Collections.shuffle(corpus, new Random(42));
+        corpus.forEach(word -> exact.merge(word, 1L, Long::sum));
+    }
+
+    @Test
+    void boundsEstimatesOfSingleSummary() {
+        var counter = new SpaceSavingCounter(CAPACITY);
+        corpus.forEach(word -> add(counter, word));
+
+        assertBounded(counter);
+    }
+
+    @Test
+    void mergeKeepsBoundsOfSummaries() {
+        var parts = new ArrayList<SpaceSavingCounter>();
+        for (int part = 0; part < PARTS; part++) {
+            parts.add(new SpaceSavingCounter(CAPACITY));
+        }
+        // Части корпуса неоднородны: каждая сводка видит свои редкие слова
+        for (int i = 0; i < corpus.size(); i++) {
+            add(parts.get(i * PARTS / corpus.size()), corpus.get(i));
+        }
+
+        var merged = new SpaceSavingCounter(CAPACITY);
+        parts.forEach(merged::addAll);
+
+        assertBounded(merged);
+    }
+
+    @Test
+    void mergeOfUnfilledSummariesIsExact() {
+        var left = new SpaceSavingCounter(CAPACITY);
+        var right = new SpaceSavingCounter(CAPACITY);
+        List.of("a", "b", "b", "c").forEach(word -> add(left, word));
+        List.of("b", "c", "c", "d").forEach(word -> add(right, word));
+
+        left.addAll(right);
+
+        assertThat(left.total()).isEqualTo(8);
+        assertThat(left.top(10)).containsExactly(
+                new WordFrequency("b", 3, 1, 0L),
+                new WordFrequency("c", 3, 2, 0L),
+                new WordFrequency("a", 1, 3, 0L),
+                new WordFrequency("d", 1, 4, 0L));
+    }
+
+    // count - error ≤ частота ≤ count для каждого слова сводки, error ≤ N / capacity,
+    // и ни одно слово чаще N / capacity не потеряно
+    private void assertBounded(SpaceSavingCounter counter) {
+        assertThat(counter.total()).isEqualTo(corpus.size());
+        var top = counter.top(CAPACITY);
+        assertThat(top).hasSize(CAPACITY);
+        for (var frequency : top) {
+            var actual = exact.get(frequency.word());
+            assertThat(actual).as(frequency.word()).isBetween(frequency.frequency() - frequency.error(), frequency.frequency());
+            assertThat(frequency.error()).isLessThanOrEqualTo(counter.maxError());
+        }
+        var found = top.stream().map(WordFrequency::word).toList();
+        exact.forEach((word, count) -> {
+            if (count > counter.maxError()) {
+                assertThat(found).contains(word);
+            }
+        });
+    }
+
+    private static void add(SpaceSavingCounter counter, String word) {
+        counter.add(word.toCharArray(), word.length());
+    }
+}
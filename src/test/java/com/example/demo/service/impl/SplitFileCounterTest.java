@@ -0,0 +1,67 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Слово на границе диапазонов байтов считается один раз и целиком, при любом размере диапазона
+class SplitFileCounterTest {
+
+    private static final String TEXT = String.join("\n",
+            "Война и мир — роман-эпопея Льва Николаевича Толстого, война",
+            "İSTANBUL İzmir ΟΔΥΣΣΕΥΣ σοφός 𝐀𝐁𝐂 𐐀𐐨 abc1def word",
+            "длинноесловобезпробеловкотороенепомещаетсявдиапазон мир мир").repeat(5);
+
+    private final Utf8WordTokenizer tokenizer = new Utf8WordTokenizer();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5, 8, 13, 64, 1 << 20})
+    void countsEveryWordOnce(int splitSize) throws Exception {
+        var file = Files.writeString(dir.resolve("text.txt"), TEXT, StandardCharsets.UTF_8);
+        var counter = new SplitFileCounter(tokenizer, DataSize.ofBytes(0), DataSize.ofBytes(splitSize));
+        var partials = new PartialWordCounts();
+
+        pool.submit(() -> {
+            counter.count(file, 2, () -> partials.local()::add);
+            return null;
+        }).get();
+
+        var direct = new WordCountMap();
+        tokenizer.tokenize(file, 2, direct::add);
+        var split = toMap(partials.merge(pool));
+        assertThat(split).isEqualTo(toMap(direct));
+        assertThat(split).containsEntry("длинноесловобезпробеловкотороенепомещаетсявдиапазон", 5L);
+    }
+
+    private static Map<String, Long> toMap(WordCountMap counts) {
+        var map = new HashMap<String, Long>();
+        counts.forEach(map::put);
+        return map;
+    }
+
+    private static Map<String, Long> toMap(WordCounts counts) {
+        var map = new HashMap<String, Long>();
+        counts.forEach(map::put);
+        return map;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// В текст SQL попадают только простые идентификаторы без кавычек
+class SqlIdentifiersTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"table_1", "_t", "col4", "a23456789012345678901234567890123456789012345678901234567890123"})
+    void acceptsPlainIdentifiers(String identifier) {
+        assertThat(SqlIdentifiers.requireValid(identifier)).isEqualTo(identifier);
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "Table_1", "1table", "table-1", "table_1; DROP TABLE table_2", "\"table_1\"",
+            "public.table_1", "таблица", "a234567890123456789012345678901234567890123456789012345678901234"})
+    void rejectsOtherNames(String identifier) {
+        assertThatThrownBy(() -> SqlIdentifiers.requireValid(identifier))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
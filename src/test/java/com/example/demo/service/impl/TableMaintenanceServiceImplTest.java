@@ -0,0 +1,121 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DeletionJobInfo;
+import com.example.demo.model.DeletionJobStatus;
+import com.example.demo.model.DeletionMode;
+import com.example.demo.model.TableHealth;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// VACUUM после удаления запускается, только если удалено не меньше min-deleted-share строк таблицы,
+// и только после завершённого или отменённого удаления строк, не партиций
+class TableMaintenanceServiceImplTest extends PostgresTestSupport {
+
+    private static final int ROWS = 1000;
+
+    private final TableMaintenanceConnector maintenanceConnector = new TableMaintenanceConnector(jdbcTemplate);
+    private final TableMaintenanceServiceImpl service = new TableMaintenanceServiceImpl(maintenanceConnector,
+            new StatisticsConnector(jdbcTemplate), new RetentionPolicyConnector(jdbcTemplate),
+            new SyncTaskExecutor(), new DeletionMetrics(new SimpleMeterRegistry()));
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        migrate("V4__retention_policies.sql");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "vacuumMinDeletedShare", 0.05);
+        ReflectionTestUtils.setField(service, "vacuumCostDelay", Duration.ZERO);
+        ReflectionTestUtils.setField(service, "vacuumCostLimit", 200);
+        ReflectionTestUtils.setField(service, "historySize", 50);
+        createTable("table_1", ROWS);
+        jdbcTemplate.update("INSERT INTO retention_policy (table_name, max_age) VALUES ('table_1', INTERVAL '50 days') "
+                + "ON CONFLICT DO NOTHING");
+    }
+
+    @Test
+    void vacuumsOnlyFromDeletedShare() throws InterruptedException {
+        // 49 из 1000 строк — меньше 5 %
+        var small = purge(49, DeletionMode.SEQUENTIAL, DeletionJobStatus.COMPLETED);
+        assertThat(service.getVacuumReports("table_1")).isEmpty();
+
+        // Доля — от живых строк перед VACUUM вместе с удалёнными задачей: 50 из 950 + 50 — ровно порог
+        var large = purge(1, DeletionMode.SEQUENTIAL, DeletionJobStatus.COMPLETED, 50);
+        var reports = service.getVacuumReports("table_1");
+        assertThat(reports).hasSize(1);
+        var report = reports.get(0);
+        assertThat(report.jobId()).isEqualTo(large.jobId()).isNotEqualTo(small.jobId());
+        assertThat(report.rowsDeleted()).isEqualTo(50);
+        assertThat(report.error()).isNull();
+        assertThat(report.beforePurge().liveTuples()).isEqualTo(ROWS - 49);
+        assertThat(report.beforeVacuum().liveTuples()).isEqualTo(ROWS - 50);
+        assertThat(report.afterVacuum()).isNotNull();
+    }
+
+    @Test
+    void skipsUnfinishedAndPartitionPurges() throws InterruptedException {
+        purge(200, DeletionMode.PARTITION, DeletionJobStatus.COMPLETED);
+        purge(200, DeletionMode.PARALLEL, DeletionJobStatus.FAILED);
+        purge(0, DeletionMode.SEQUENTIAL, DeletionJobStatus.COMPLETED);
+        assertThat(service.getVacuumReports("table_1")).isEmpty();
+
+        purge(200, DeletionMode.REWRITE, DeletionJobStatus.CANCELLED);
+        assertThat(service.getVacuumReports("table_1")).hasSize(1);
+    }
+
+    @Test
+    void manualVacuumIgnoresThreshold() {
+        assertThat(service.scheduleVacuum("table_1")).isTrue();
+
+        var reports = service.getVacuumReports("table_1");
+        assertThat(reports).hasSize(1);
+        assertThat(reports.get(0).jobId()).isNull();
+        assertThat(reports.get(0).error()).isNull();
+    }
+
+    private DeletionJobInfo purge(int rows, DeletionMode mode, DeletionJobStatus status) throws InterruptedException {
+        return purge(rows, mode, status, rows);
+    }
+
+    // Удаляет rows строк и сообщает о задаче, удалившей rowsDeleted строк с момента preparePurge.
+    // Перед каждым шагом ждём, пока статистика таблицы покажет действительное число живых строк
+    private DeletionJobInfo purge(int rows, DeletionMode mode, DeletionJobStatus status, long rowsDeleted)
+            throws InterruptedException {
+        var live = count("SELECT count(*) FROM table_1");
+        var job = job(mode, status, rowsDeleted);
+        awaitLiveTuples(live);
+        service.preparePurge(job);
+        jdbcTemplate.update("DELETE FROM table_1 WHERE id IN (SELECT id FROM table_1 ORDER BY id LIMIT ?)", rows);
+        jdbcTemplate.execute("ANALYZE table_1");
+        awaitLiveTuples(live - rows);
+        service.onPurgeFinished(job);
+        return job;
+    }
+
+    private void awaitLiveTuples(long live) throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(10);
+        while (maintenanceConnector.getHealth("table_1").map(TableHealth::liveTuples).orElse(-1L) != live) {
+            assertThat(Instant.now()).as("live tuples of table_1 reach %d", live).isBefore(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static DeletionJobInfo job(DeletionMode mode, DeletionJobStatus status, long rowsDeleted) {
+        return new DeletionJobInfo(UUID.randomUUID(), "table_1", "col4", NOW.minusDays(50), mode, status,
+                Instant.now(), Instant.now(), Instant.now(), rowsDeleted, rowsDeleted, 1, null, 1, 0, 0L,
+                List.of(), null);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Utf8WordTokenizer должен выдавать ровно те же слова и в том же порядке, что и RegexWordTokenizer
+class Utf8WordTokenizerTest {
+
+    private static final Path CORPUS = Path.of("testfolder", "войнаимир.zip");
+
+    private static final String SAMPLES = String.join("\n",
+            "Hello, world! Привет, мир!",
+            "ВОЙНА и МИР — роман-эпопея Льва Николаевича Толстого",
+            "abc1def word_under score 42answer answer42",
+            "Crème brûlée, naïve café; été йог",
+            " ́leading mark, _́under, 1́digit",
+            "ΟΔΥΣΣΕΥΣ ΣΟΦΟΣ σοφός Σ",
+            "İSTANBUL İzmir KIRIKKALE",
+            "𝐀𝐁𝐂 mathematical letters 𐐀𐐨",
+            "ＦＵＬＬ width ｆｏｒｍｓ 日本語のテキスト",
+            "crlf\r\nline\rbreaks\n\n\ttabs nbsp separator",
+            "﻿bom and ǅungla ǈ titlecase"
+    );
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 5, 10})
+    void matchesRegexTokenizer(int minLength) throws IOException {
+        var file = write(SAMPLES);
+        assertThat(tokenize(new Utf8WordTokenizer(), file, minLength))
+                .isNotEmpty()
+                .isEqualTo(tokenize(new RegexWordTokenizer(), file, minLength));
+    }
+
+    // Многобайтовые символы разрезаются границами окон и буферов чтения
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 5, 7, 64})
+    void handlesSequencesSplitAcrossWindows(long window) throws IOException {
+        var file = write(SAMPLES.repeat(3));
+        assertThat(tokenize(new Utf8WordTokenizer(0, window), file, 2))
+                .isEqualTo(tokenize(new RegexWordTokenizer(), file, 2));
+    }
+
+    @Test
+    void replacesMalformedInputWithSeparator() throws IOException {
+        var file = dir.resolve("malformed.txt");
+        Files.write(file, new byte[]{'a', 'b', 'c', (byte) 0xFF, 'd', 'e', 'f', (byte) 0xD0, ' ', 'x', 'y', (byte) 0xE2, (byte) 0x82});
+        assertThat(tokenize(new Utf8WordTokenizer(), file, 0)).containsExactly("abc", "def", "xy");
+    }
+
+    @Test
+    void matchesRegexTokenizerOnCorpus() throws IOException {
+        assumeTrue(Files.exists(CORPUS), "Corpus archive is not available");
+        try (var zip = new ZipFile(CORPUS.toFile(), StandardCharsets.UTF_8)) {
+            var entries = zip.stream()
+                    .filter(e -> e.getName().endsWith(".txt") && !e.getName().startsWith("__MACOSX"))
+                    .toList();
+            assertThat(entries).isNotEmpty();
+
+            for (var entry : entries) {
+                var file = dir.resolve("corpus.txt");
+                try (var in = zip.getInputStream(entry)) {
+                    Files.copy(in, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                }
+                for (var minLength : new int[]{0, 4, 10}) {
+                    assertThat(tokenize(new Utf8WordTokenizer(0, 1 << 12), file, minLength))
+                            .as("%s, minLength %d", entry.getName(), minLength)
+                            .isEqualTo(tokenize(new RegexWordTokenizer(), file, minLength));
+                }
+            }
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        return Files.writeString(dir.resolve("sample.txt"), text, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> tokenize(WordTokenizer tokenizer, Path file, int minLength) throws IOException {
+        var words = new ArrayList<String>();
+        tokenizer.tokenize(file, minLength, (chars, length) -> words.add(new String(chars, 0, length)));
+        return words;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.WordFrequency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Частоты папки следуют за дозаписью, перезаписью, усечением и удалением файлов,
+// а остановившееся с ошибкой наблюдение не отдаёт устаревший рейтинг
+class WatchedFolderTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private final ForkJoinPool cpuPool = new ForkJoinPool(2);
+
+    @TempDir
+    Path dir;
+
+    private WatchedFolder watched;
+
+    @AfterEach
+    void stop() {
+        if (watched != null) {
+            watched.close();
+        }
+        cpuPool.shutdownNow();
+    }
+
+    @Test
+    void followsFileChanges() throws Exception {
+        var file = Files.writeString(dir.resolve("text.txt"), "альфа бе", StandardCharsets.UTF_8);
+        start();
+        awaitTop(Map.of("альфа", 1L, "бе", 1L));
+
+        // Слово «бета» разрезано между записями: «бе» из первой записи вычитается
+        append(file, "та гамма гамма");
+        awaitTop(Map.of("альфа", 1L, "бета", 1L, "гамма", 2L));
+
+        Files.writeString(file, "дельта дельта омега", StandardCharsets.UTF_8);
+        awaitTop(Map.of("дельта", 2L, "омега", 1L));
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate("дельта".getBytes(StandardCharsets.UTF_8).length);
+        }
+        awaitTop(Map.of("дельта", 1L));
+
+        var nested = Files.createDirectory(dir.resolve("nested"));
+        Files.writeString(nested.resolve("other.txt"), "эхо", StandardCharsets.UTF_8);
+        Files.writeString(nested.resolve("skipped.md"), "эхо", StandardCharsets.UTF_8);
+        awaitTop(Map.of("дельта", 1L, "эхо", 1L));
+
+        Files.delete(file);
+        awaitTop(Map.of("эхо", 1L));
+        assertThat(watched.info().files()).isEqualTo(1);
+    }
+
+    @Test
+    void failedWatchRejectsTopRequests() throws Exception {
+        Files.writeString(dir.resolve("text.txt"), "альфа", StandardCharsets.UTF_8);
+        // Первичный подсчёт не может начаться: пул разбора остановлен
+        cpuPool.shutdownNow();
+        start();
+
+        await(() -> watched.info().error() != null);
+        assertThat(watched.info().ready()).isFalse();
+        assertThatThrownBy(() -> watched.top(10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(dir.toString());
+    }
+
+    private void start() throws IOException {
+        watched = new WatchedFolder(dir, 0, new Utf8WordTokenizer());
+        Thread.ofVirtual().start(() -> watched.run(cpuPool, Duration.ofMillis(20)));
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private void awaitTop(Map<String, Long> expected) throws InterruptedException {
+        await(() -> watched.info().ready() && toMap(watched).equals(expected));
+    }
+
+    private static Map<String, Long> toMap(WatchedFolder watched) {
+        var map = new LinkedHashMap<String, Long>();
+        for (WordFrequency frequency : watched.top(100)) {
+            map.put(frequency.word(), frequency.frequency());
+        }
+        return map;
+    }
+
+    private void await(Supplier<Boolean> condition) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.get()) {
+            assertThat(System.currentTimeMillis()).as("condition not met: %s", watched.info()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
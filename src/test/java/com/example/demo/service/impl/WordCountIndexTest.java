@@ -0,0 +1,86 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сводка из индекса должна давать те же частоты, что и прямой подсчёт с нужной длиной,
+// и пересчитываться только при изменении файла
+class WordCountIndexTest {
+
+    private static final String TEXT = String.join("\n",
+            "Война и мир — роман-эпопея Льва Николаевича Толстого, война",
+            "İSTANBUL İzmir ΟΔΥΣΣΕΥΣ σοφός 𝐀𝐁𝐂 𐐀𐐨 abc1def word",
+            "a bb ccc dddd eeeee ffffff Война мир мир");
+
+    private final Utf8WordTokenizer tokenizer = new Utf8WordTokenizer();
+    private final AtomicInteger counted = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 4, 9})
+    void answersAnyMinLength(int minLength) throws IOException {
+        var file = write("text.txt", TEXT);
+        var index = new WordCountIndex(dir.resolve("index"), 1000);
+
+        var fromIndex = new WordCountMap();
+        index.get(file, this::count).addTo(fromIndex, minLength);
+
+        var direct = new WordCountMap();
+        tokenizer.tokenize(file, minLength, direct::add);
+        assertThat(toMap(fromIndex)).isEqualTo(toMap(direct));
+    }
+
+    @Test
+    void recountsOnlyChangedFiles() throws IOException {
+        var file = write("text.txt", TEXT);
+        var index = new WordCountIndex(dir.resolve("index"), 1000);
+
+        index.get(file, this::count);
+        index.get(file, this::count);
+        assertThat(counted).hasValue(1);
+
+        // Сводка читается с диска новым экземпляром индекса
+        assertThat(new WordCountIndex(dir.resolve("index"), 1000).get(file, this::count).distinct())
+                .isEqualTo(index.get(file, this::count).distinct());
+        assertThat(counted).hasValue(1);
+
+        write("text.txt", TEXT + " добавлено");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        var counts = new WordCountMap();
+        index.get(file, this::count).addTo(counts, 0);
+        assertThat(counted).hasValue(2);
+        assertThat(counts.get("добавлено")).isEqualTo(1);
+    }
+
+    private WordCounts count(Path file) throws IOException {
+        counted.incrementAndGet();
+        var counts = new WordCountMap();
+        tokenizer.tokenize(file, 0, counts::add);
+        return new WordCounts(counts);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.writeString(dir.resolve(name), text, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Long> toMap(WordCountMap counts) {
+        var map = new HashMap<String, Long>();
+        counts.forEach(map::put);
+        return map;
+    }
+}
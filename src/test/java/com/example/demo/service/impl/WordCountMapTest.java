@@ -0,0 +1,75 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Словарь на примитивных массивах и слияние частичных словарей потоков сверяются с HashMap
+class WordCountMapTest {
+
+    @Test
+    void keepsCountsAcrossResizes() {
+        var map = new WordCountMap(1);
+        var exact = new HashMap<String, Long>();
+        // "Aa" и "BB" с одинаковым String.hashCode попадают в одну цепочку
+        for (int i = 0; i < 50_000; i++) {
+            var word = (i % 2 == 0 ? "Aa" : "BB") + i % 20_000;
+            map.add(word.toCharArray(), word.length());
+            exact.merge(word, 1L, Long::sum);
+        }
+        map.add("Aa", 3);
+        map.add("BB".toCharArray(), 2, 4);
+        exact.merge("Aa", 3L, Long::sum);
+        exact.merge("BB", 4L, Long::sum);
+
+        assertThat(map.size()).isEqualTo(exact.size());
+        assertThat(map.total()).isEqualTo(50_007);
+        assertThat(toMap(map)).isEqualTo(exact);
+        assertThat(map.get("Aa")).isEqualTo(3);
+        assertThat(map.get("absent")).isZero();
+    }
+
+    @Test
+    void mergesPartialCountsIntoExactCounts() throws Exception {
+        var random = new Random(7);
+        var words = IntStream.range(0, 200_000)
+                .mapToObj(i -> "w" + (int) (Math.pow(random.nextDouble(), 4) * 10_000))
+                .toList();
+        var exact = new HashMap<String, Long>();
+        words.forEach(word -> exact.merge(word, 1L, Long::sum));
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var partials = new PartialWordCounts();
+            pool.submit(() -> words.parallelStream().forEach(word -> partials.update(
+                    local -> local.add(word.toCharArray(), word.length())))).get();
+            assertThat(toMap(partials.snapshot())).isEqualTo(exact);
+
+            var merged = partials.merge(pool);
+            assertThat(toMap(merged)).isEqualTo(exact);
+            assertThat(merged.total()).isEqualTo(words.size());
+            assertThat(merged.distinct()).isEqualTo(exact.size());
+            exact.forEach((word, count) -> assertThat(merged.get(word)).as(word).isEqualTo(count));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Map<String, Long> toMap(WordCountMap counts) {
+        var map = new HashMap<String, Long>();
+        counts.forEach(map::put);
+        return map;
+    }
+
+    private static Map<String, Long> toMap(WordCounts counts) {
+        var map = new HashMap<String, Long>();
+        counts.forEach(map::put);
+        return map;
+    }
+}
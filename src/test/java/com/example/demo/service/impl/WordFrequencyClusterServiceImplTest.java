@@ -0,0 +1,158 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.ShardQuery;
+import com.example.demo.model.ShardRequest;
+import com.example.demo.model.TokenizerType;
+import com.example.demo.model.WordFrequency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Топ по схеме TPUT из четырёх шардов совпадает с точным топом одного узла при любом N,
+// в том числе когда на N-м месте несколько слов с равной частотой
+class WordFrequencyClusterServiceImplTest {
+
+    private static final int FILES = 12;
+    private static final int SHARDS = 4;
+
+    private final ForkJoinPool cpuPool = new ForkJoinPool(2);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger countedShards = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    private WordFrequencyServiceImpl wordFrequencyService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        var tokenizer = new Utf8WordTokenizer();
+        wordFrequencyService = new WordFrequencyServiceImpl(tokenizer, new RegexWordTokenizer(),
+                new SplitFileCounter(tokenizer, DataSize.ofMegabytes(64), DataSize.ofMegabytes(16)),
+                new ArchiveWordCounter(executor, DataSize.ofKilobytes(64)),
+                new WordCountIndex(dir.resolve("index"), 1000), TokenizerType.UTF8, false, 1000, Duration.ofSeconds(1),
+                1_000_000, Duration.ofMinutes(1),
+                cpuPool, executor, new Semaphore(4), new WordFrequencyMetrics(new SimpleMeterRegistry())) {
+            @Override
+            public WordCounts countFiles(List<Path> files, int minLength) {
+                countedShards.incrementAndGet();
+                return super.countFiles(files, minLength);
+            }
+        };
+        writeCorpus(Files.createDirectory(dir.resolve("texts")));
+    }
+
+    @AfterEach
+    void stop() {
+        cpuPool.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void matchesExactTopOfSingleNode() {
+        var cluster = cluster(1_000_000);
+        var folder = dir.resolve("texts").toString();
+        var exact = wordFrequencyService.countFiles(wordFrequencyService.listFiles(folder), 0);
+
+        for (int topCount = 1; topCount <= 40; topCount++) {
+            assertThat(List.copyOf(cluster.getTopWords(folder, 0, topCount)))
+                    .as("top %d", topCount)
+                    .isEqualTo(exact.top(topCount));
+        }
+        // Корпус действительно проверяет равные частоты на границе топа
+        var frequencies = exact.top(40).stream().map(WordFrequency::frequency).toList();
+        assertThat(IntStream.range(1, frequencies.size()).filter(i -> frequencies.get(i).equals(frequencies.get(i - 1))))
+                .isNotEmpty();
+        var all = exact.top(1000).stream().map(WordFrequency::word).toList();
+        assertThat(all.indexOf("ровня")).isEqualTo(all.indexOf("ровно") + 1);
+    }
+
+    @Test
+    void countsOversizedShardOncePerQuery() {
+        // Кэш меньше любого шарда: шарды держатся вне кэша до последнего запроса
+        var cluster = cluster(1);
+        var folder = dir.resolve("texts").toString();
+
+        cluster.getTopWords(folder, 0, 10);
+        assertThat(countedShards).hasValue(SHARDS);
+        cluster.getTopWords(folder, 0, 10);
+        assertThat(countedShards).hasValue(2 * SHARDS);
+    }
+
+    @Test
+    void countsOnlyTextFilesOfRequestFolder() throws IOException {
+        var cluster = cluster(1_000_000, dir.toString());
+        var folder = dir.resolve("texts");
+        var secret = Files.writeString(dir.resolve("secret.txt"), "пароль");
+        var notes = Files.writeString(folder.resolve("notes.md"), "заметки");
+
+        assertThat(ShardCounts.decode(cluster.countShard(request(folder.toString(), folder.resolve("file0.txt"))))
+                .counts()).containsKey("ровня");
+        assertRejected(cluster, request(folder.toString(), secret));
+        assertRejected(cluster, request(folder.toString(), folder.resolve("..").resolve("secret.txt")));
+        assertRejected(cluster, request(folder.toString(), notes));
+        assertRejected(cluster, request(folder.toString(), Path.of("/etc/passwd")));
+        assertRejected(cluster, request(null, folder.resolve("file0.txt")));
+        // Папка вне разрешённых корней
+        assertRejected(cluster(1_000_000, folder.toString()), request(dir.toString(), secret));
+    }
+
+    private static void assertRejected(WordFrequencyClusterServiceImpl cluster, ShardRequest request) {
+        assertThatThrownBy(() -> cluster.countShard(request))
+                .as("%s", request.files())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ShardRequest request(String folder, Path file) {
+        return new ShardRequest(UUID.randomUUID(), folder, List.of(file.toString()), 0, ShardQuery.TOP, 10, null, true);
+    }
+
+    private WordFrequencyClusterServiceImpl cluster(long cacheWords, String... roots) {
+        return new WordFrequencyClusterServiceImpl(wordFrequencyService, RestClient.builder(), executor, List.of(),
+                SHARDS, Duration.ofSeconds(1), Duration.ofSeconds(10), cacheWords, Duration.ofMinutes(1), List.of(roots));
+    }
+
+    // Файлы с разным распределением слов: у каждого свои частые слова, а слово «общее»
+    // встречается везде понемногу и ни в одном шарде не попадает в топ. «Ровня» и «ровно» всегда поровну
+    private void writeCorpus(Path folder) throws IOException {
+        var random = new Random(11);
+        for (int file = 0; file < FILES; file++) {
+            var words = new ArrayList<String>();
+            for (int i = 0; i < 3000; i++) {
+                var rank = (int) (Math.pow(random.nextDouble(), 3) * 60);
+                words.add("слово" + (rank + file * 5) % 80);
+            }
+            for (int i = 0; i < 12; i++) {
+                words.add("общее");
+            }
+            for (int i = 0; i < file % 3 + 1; i++) {
+                words.add("ровня");
+                words.add("ровно");
+            }
+            Files.writeString(folder.resolve("file" + file + ".txt"), String.join(" ", words), StandardCharsets.UTF_8);
+        }
+    }
+}
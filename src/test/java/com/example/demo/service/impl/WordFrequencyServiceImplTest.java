@@ -0,0 +1,97 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.TokenizerType;
+import com.example.demo.model.WordFrequency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Страницы рейтинга — срезы одного снимка: папка считается один раз на обход,
+// а изменения файлов между страницами не сдвигают рейтинг
+class WordFrequencyServiceImplTest {
+
+    private final ForkJoinPool cpuPool = new ForkJoinPool(2);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger counted = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    private WordFrequencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        var tokenizer = new Utf8WordTokenizer();
+        service = new WordFrequencyServiceImpl(tokenizer, new RegexWordTokenizer(),
+                new SplitFileCounter(tokenizer, DataSize.ofMegabytes(64), DataSize.ofMegabytes(16)),
+                new ArchiveWordCounter(executor, DataSize.ofKilobytes(64)),
+                null, TokenizerType.UTF8, false, 1000, Duration.ofSeconds(1), 1000, Duration.ofMinutes(1),
+                cpuPool, executor, new Semaphore(4), new WordFrequencyMetrics(new SimpleMeterRegistry())) {
+            @Override
+            public WordCounts countFiles(List<Path> files, int minLength) {
+                counted.incrementAndGet();
+                return super.countFiles(files, minLength);
+            }
+        };
+    }
+
+    @AfterEach
+    void stop() {
+        cpuPool.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pagesSliceOneRankingSnapshot() throws IOException {
+        var file = dir.resolve("a.txt");
+        Files.writeString(file, "альфа альфа альфа бета бета гамма дельта");
+        var folder = dir.toString();
+
+        var first = service.getTopWordsPage(folder, 0, 2, null);
+        // Новые слова после первой страницы не попадают в обход
+        Files.writeString(file, "омега омега омега омега омега омега омега омега");
+        var second = service.getTopWordsPage(folder, 0, 2, first.nextCursor());
+
+        var words = new ArrayList<WordFrequency>(first.words());
+        words.addAll(second.words());
+        assertThat(words).extracting(WordFrequency::word).containsExactly("альфа", "бета", "гамма", "дельта");
+        assertThat(second.nextCursor()).isNull();
+        assertThat(counted).hasValue(1);
+
+        // Новый обход в пределах snapshot-ttl начинает тот же снимок
+        assertThat(service.getTopWordsPage(folder, 0, 2, null)).isEqualTo(first);
+        assertThat(counted).hasValue(1);
+        // Другой minLength — другой рейтинг
+        assertThat(service.getTopWordsPage(folder, 7, 2, null).words()).isEmpty();
+        assertThat(counted).hasValue(2);
+    }
+
+    @Test
+    void rejectsCursorOfExpiredSnapshot() throws IOException {
+        Files.writeString(dir.resolve("a.txt"), "альфа бета гамма");
+        var cursor = new RankCursor(UUID.randomUUID(), 1, "альфа").encode();
+
+        assertThatThrownBy(() -> service.getTopWordsPage(dir.toString(), 0, 2, cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("expired");
+    }
+}